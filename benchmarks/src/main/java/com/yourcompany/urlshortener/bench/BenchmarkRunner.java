@@ -0,0 +1,40 @@
+package com.yourcompany.urlshortener.bench;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for benchmarks.jar. Accepts the usual JMH command-line options
+ * (e.g. a benchmark name regex, -f, -wi, -i, -t) and always writes JSON results to
+ * results/jmh-&lt;label&gt;-&lt;timestamp&gt;.json so runs from different versions can be compared.
+ * The label defaults to the shortener version and can be set with -Dbench.label=...
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String label = System.getProperty("bench.label", "1.0-SNAPSHOT");
+        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        File resultsDir = new File(System.getProperty("bench.resultsDir", "results"));
+        if (!resultsDir.isDirectory() && !resultsDir.mkdirs()) {
+            System.err.println("❌ Could not create results directory " + resultsDir);
+            return;
+        }
+        File resultFile = new File(resultsDir, "jmh-" + label + "-" + timestamp + ".json");
+
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .resultFormat(ResultFormatType.JSON)
+            .result(resultFile.getPath())
+            .build();
+
+        new Runner(options).run();
+        System.out.println("✅ Results written to " + resultFile.getAbsolutePath());
+    }
+}
@@ -0,0 +1,123 @@
+package com.yourcompany.urlshortener.bench;
+
+import com.yourcompany.urlshortener.DatabaseManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * saveUrl and findLongUrl against the in-memory H2 database.
+ *
+ * "cold" runs with the lookup cache disabled so every lookup reaches the database;
+ * "warm" runs with the cache enabled and pre-filled by the seeding step.
+ * Each parameter combination runs in its own forked JVM, so the settings below
+ * are in place before DatabaseManager is first loaded.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class DatabaseBenchmark {
+
+    private static final String URL_PREFIX = "https://www.example.com/benchmark/path?id=";
+
+    @Param({"warm", "cold"})
+    public String cacheState;
+
+    @Param({"10000"})
+    public int datasetSize;
+
+    @Param({"4", "16"})
+    public int poolSize;
+
+    private String[] keys;
+    private final AtomicLong saveCounter = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("db.url", "jdbc:h2:mem:dbbench");
+        System.setProperty("db.pool.maxSize", String.valueOf(poolSize));
+        System.setProperty("cache.enabled", String.valueOf("warm".equals(cacheState)));
+        System.setProperty("cache.maxEntries", String.valueOf(datasetSize * 2));
+
+        DatabaseManager.initializeDatabase();
+        keys = new String[datasetSize];
+        for (int i = 0; i < datasetSize; i++) {
+            keys[i] = "s" + Integer.toString(i, 36);
+            DatabaseManager.saveUrl(keys[i], URL_PREFIX + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseManager.shutdown();
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    private static String missingKey() {
+        return "m" + Long.toString(ThreadLocalRandom.current().nextLong(1L << 40), 36);
+    }
+
+    private String nextSaveKey() {
+        return "w" + Long.toString(saveCounter.incrementAndGet(), 36);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String findLongUrl_hit() {
+        return DatabaseManager.findLongUrl(randomKey());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String findLongUrl_hit_8threads() {
+        return DatabaseManager.findLongUrl(randomKey());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String findLongUrl_miss() {
+        return DatabaseManager.findLongUrl(missingKey());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String findLongUrl_miss_8threads() {
+        return DatabaseManager.findLongUrl(missingKey());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean saveUrl() {
+        long n = saveCounter.get();
+        return DatabaseManager.saveUrl(nextSaveKey(), URL_PREFIX + n);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean saveUrl_8threads() {
+        long n = saveCounter.get();
+        return DatabaseManager.saveUrl(nextSaveKey(), URL_PREFIX + n);
+    }
+}
@@ -0,0 +1,84 @@
+package com.yourcompany.urlshortener.bench;
+
+import com.yourcompany.urlshortener.DatabaseManager;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Shorten-then-resolve through the public DatabaseManager API, the way the app uses it.
+ *
+ * shortenThenResolve: one thread creates a link and immediately resolves it.
+ * mix: 1 writer shortening and 7 readers resolving recently created links.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EndToEndBenchmark {
+
+    private static final int RECENT = 4096;
+
+    private final AtomicReferenceArray<String> recentKeys = new AtomicReferenceArray<>(RECENT);
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        System.setProperty("db.url", "jdbc:h2:mem:e2ebench");
+        DatabaseManager.initializeDatabase();
+        // Seed so the readers have something to resolve from the start
+        for (int i = 0; i < RECENT; i++) {
+            recentKeys.set(i, DatabaseManager.shortenUrl("https://www.example.com/seed/" + i));
+        }
+        created.set(RECENT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        DatabaseManager.shutdown();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String shortenThenResolve() {
+        String key = DatabaseManager.shortenUrl("https://www.example.com/e2e/" + ThreadLocalRandom.current().nextLong());
+        return DatabaseManager.findLongUrl(key);
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(1)
+    public String mix_shorten() {
+        int n = created.getAndIncrement();
+        String key = DatabaseManager.shortenUrl("https://www.example.com/mix/" + n);
+        recentKeys.set(n & (RECENT - 1), key);
+        return key;
+    }
+
+    @Benchmark
+    @Group("mix")
+    @GroupThreads(7)
+    public String mix_resolve() {
+        return DatabaseManager.findLongUrl(recentKeys.get(ThreadLocalRandom.current().nextInt(RECENT)));
+    }
+}
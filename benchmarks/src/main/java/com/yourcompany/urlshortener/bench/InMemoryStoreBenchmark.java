@@ -0,0 +1,79 @@
+package com.yourcompany.urlshortener.bench;
+
+import com.yourcompany.urlshortener.InMemoryUrlStore;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * find and shorten on the in-memory store engine (no persistence), for comparison
+ * with the H2-backed numbers from DatabaseBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class InMemoryStoreBenchmark {
+
+    private static final String URL_PREFIX = "https://www.example.com/benchmark/path?id=";
+
+    @Param({"1000000"})
+    public int datasetSize;
+
+    private InMemoryUrlStore store;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        store = new InMemoryUrlStore(datasetSize, 64);
+        store.initialize();
+        keys = new String[datasetSize];
+        for (int i = 0; i < datasetSize; i++) {
+            keys[i] = store.shorten(URL_PREFIX + i);
+        }
+    }
+
+    private String randomKey() {
+        return keys[ThreadLocalRandom.current().nextInt(keys.length)];
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String find_hit() {
+        return store.find(randomKey());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String find_hit_8threads() {
+        return store.find(randomKey());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String find_miss() {
+        return store.find("zzzzzzz");
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String shorten_8threads() {
+        return store.shorten(URL_PREFIX);
+    }
+}
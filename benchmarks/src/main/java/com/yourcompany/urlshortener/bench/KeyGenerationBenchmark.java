@@ -0,0 +1,76 @@
+package com.yourcompany.urlshortener.bench;
+
+import com.yourcompany.urlshortener.ConnectionPool;
+import com.yourcompany.urlshortener.KeyGenerator;
+import com.yourcompany.urlshortener.RangeKeyAllocator;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Key generation cost, alone and with every available core generating at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class KeyGenerationBenchmark {
+
+    @Param({"6", "8"})
+    public int keyLength;
+
+    private ConnectionPool pool;
+    private RangeKeyAllocator rangeAllocator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        pool = new ConnectionPool("jdbc:h2:mem:keybench", "sa", "", 1, 4, 5000, false, 1);
+        rangeAllocator = new RangeKeyAllocator(pool, keyLength, 1000, 16);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generateKey_singleThread() {
+        return KeyGenerator.generateKey(keyLength);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateKey_contended() {
+        return KeyGenerator.generateKey(keyLength);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String rangeAllocator_singleThread() throws SQLException {
+        return rangeAllocator.nextKey();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String rangeAllocator_contended() throws SQLException {
+        return rangeAllocator.nextKey();
+    }
+}
@@ -0,0 +1,374 @@
+package com.yourcompany.urlshortener.bench;
+
+import com.yourcompany.urlshortener.AppConfig;
+import com.yourcompany.urlshortener.DatabaseManager;
+import com.yourcompany.urlshortener.KeyGenerator;
+import com.yourcompany.urlshortener.LatencyHistogram;
+import com.yourcompany.urlshortener.RedirectServer;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop load generator for the whole app, as opposed to the JMH microbenchmarks.
+ *
+ * Seeds --dataset links (keys from KeyGenerator, saved through DatabaseManager), then sends
+ * --rate requests per second for --duration seconds from --concurrency worker threads.
+ * Each request is a resolve of a Zipfian-popular key (exponent --zipf) or, with probability
+ * 1 - --read-ratio, a shorten of a new URL. Requests are scheduled on a fixed timeline, and
+ * latency is measured from when a request was due, not from when a worker got round to it,
+ * so stalls show up in the percentiles instead of silently lowering the offered load
+ * (coordinated omission). The plain service time is reported alongside for comparison.
+ *
+ *   --target inprocess  calls DatabaseManager directly (default)
+ *   --target http       starts the RedirectServer on a free port and goes through HTTP
+ *   --target http://host:port  drives a running server; the dataset is seeded with POST /shorten
+ *
+ * Run with: java -cp benchmarks/target/benchmarks.jar com.yourcompany.urlshortener.bench.LoadGenerator
+ * [--rate 5000] [--duration 30] [--warmup 5] [--concurrency 64] [--read-ratio 0.9]
+ * [--dataset 100000] [--zipf 0.99] [--target inprocess]. The db.* settings (or -D overrides) apply in process.
+ */
+public class LoadGenerator {
+
+    private static final String URL_PREFIX = "https://www.example.com/load/";
+    private static final long SPIN_NANOS = 100_000;
+
+    private final Target target;
+    private final double rate;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final int concurrency;
+    private final double readRatio;
+    private final ZipfSampler zipf;
+    private final String[] keys;
+
+    private final LatencyHistogram readLatency = new LatencyHistogram();
+    private final LatencyHistogram writeLatency = new LatencyHistogram();
+    private final LatencyHistogram readService = new LatencyHistogram();
+    private final LatencyHistogram writeService = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final AtomicLong nextRequest = new AtomicLong();
+    private final AtomicLong urlCounter = new AtomicLong();
+    private long measuredNanos;
+
+    LoadGenerator(Target target, String[] keys, double rate, long durationSeconds, long warmupSeconds,
+                  int concurrency, double readRatio, double zipfExponent) {
+        this.target = target;
+        this.keys = keys;
+        this.rate = rate;
+        this.durationNanos = TimeUnit.SECONDS.toNanos(durationSeconds);
+        this.warmupNanos = TimeUnit.SECONDS.toNanos(warmupSeconds);
+        this.concurrency = concurrency;
+        this.readRatio = readRatio;
+        this.zipf = new ZipfSampler(keys.length, zipfExponent);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseArgs(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "5000"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "30"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "5"));
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        double readRatio = Double.parseDouble(options.getOrDefault("read-ratio", "0.9"));
+        int dataset = Integer.parseInt(options.getOrDefault("dataset", "100000"));
+        double zipfExponent = Double.parseDouble(options.getOrDefault("zipf", "0.99"));
+        String targetName = options.getOrDefault("target", "inprocess");
+        if (rate <= 0 || duration <= 0 || concurrency < 1 || dataset < 1 || readRatio < 0 || readRatio > 1) {
+            System.err.println("❌ rate, duration, concurrency and dataset must be positive; read-ratio in [0, 1].");
+            return;
+        }
+
+        RedirectServer server = null;
+        Target target;
+        boolean remote = false;
+        if ("inprocess".equals(targetName)) {
+            DatabaseManager.initializeDatabase();
+            target = new InProcessTarget();
+        } else if ("http".equals(targetName)) {
+            DatabaseManager.initializeDatabase();
+            System.setProperty("server.port", "0");
+            server = RedirectServer.fromConfig(AppConfig.get());
+            server.start();
+            target = new HttpTarget("http://localhost:" + server.getPort());
+        } else if (targetName.startsWith("http://") || targetName.startsWith("https://")) {
+            target = new HttpTarget(targetName.endsWith("/") ? targetName.substring(0, targetName.length() - 1) : targetName);
+            remote = true;
+        } else {
+            System.err.println("❌ Unknown --target " + targetName + " (expected inprocess, http or a server URL)");
+            return;
+        }
+
+        try {
+            String[] keys = seed(target, dataset, remote);
+            LoadGenerator generator = new LoadGenerator(target, keys, rate, duration, warmup, concurrency,
+                readRatio, zipfExponent);
+            System.out.printf("Running %.0f req/s for %ds (+%ds warmup), %d workers, %.0f%% reads, zipf %.2f, target %s%n",
+                rate, duration, warmup, concurrency, readRatio * 100, zipfExponent, targetName);
+            generator.run();
+            generator.report(System.out);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            if (!remote) {
+                DatabaseManager.shutdown();
+            }
+        }
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Expected --name value pairs, got: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    /**
+     * Creates the links the reads are drawn from. In process (and for the embedded server) keys
+     * come from KeyGenerator and are saved with DatabaseManager.saveUrl; a remote server picks
+     * its own keys, so there the dataset goes through the target's shorten.
+     */
+    static String[] seed(Target target, int size, boolean remote) throws Exception {
+        long start = System.nanoTime();
+        int keyLength = AppConfig.get().getInt("keys.length", 6);
+        String[] keys = new String[size];
+        for (int i = 0; i < size; i++) {
+            String url = URL_PREFIX + "seed/" + i;
+            if (remote) {
+                keys[i] = target.shorten(url);
+                if (keys[i] == null) {
+                    throw new IOException("Seeding failed at link " + i);
+                }
+            } else {
+                // A false from saveUrl is almost always a taken key; a few retries rule out a broken database
+                for (int attempt = 0; keys[i] == null; attempt++) {
+                    if (attempt == 10) {
+                        throw new IOException("Seeding failed at link " + i);
+                    }
+                    String key = KeyGenerator.generateKey(keyLength);
+                    if (DatabaseManager.saveUrl(key, url)) {
+                        keys[i] = key;
+                    }
+                }
+            }
+            if ((i + 1) % 100_000 == 0) {
+                System.out.printf("Seeded %d of %d links...%n", i + 1, size);
+            }
+        }
+        System.out.printf("✅ Seeded %d links in %d ms.%n", size, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return keys;
+    }
+
+    /**
+     * Sends requests on the schedule until warmup plus duration have passed.
+     */
+    void run() throws InterruptedException {
+        long total = (long) Math.ceil(rate * (warmupNanos + durationNanos) / 1e9);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(10);
+        List<Thread> workers = new ArrayList<>(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            Thread worker = new Thread(() -> work(start, total), "load-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        // Longer than --duration when the app (or the generator) fell behind the schedule
+        measuredNanos = System.nanoTime() - (start + warmupNanos);
+    }
+
+    private void work(long start, long total) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long request;
+        while ((request = nextRequest.getAndIncrement()) < total) {
+            long due = start + (long) (request * 1e9 / rate);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                // Park for most of the wait; spin the last stretch so oversleeping doesn't count as latency
+                if (wait > SPIN_NANOS) {
+                    LockSupport.parkNanos(wait - SPIN_NANOS);
+                } else {
+                    Thread.onSpinWait();
+                }
+            }
+            boolean read = random.nextDouble() < readRatio;
+            long sent = System.nanoTime();
+            boolean ok;
+            try {
+                ok = read
+                    ? target.resolve(keys[zipf.sample(random) - 1]) != null
+                    : target.shorten(URL_PREFIX + urlCounter.incrementAndGet()) != null;
+            } catch (Exception e) {
+                ok = false;
+            }
+            long done = System.nanoTime();
+            if (due - start < warmupNanos) {
+                continue;
+            }
+            if (!ok) {
+                errors.increment();
+            }
+            (read ? readLatency : writeLatency).record(done - due);
+            (read ? readService : writeService).record(done - sent);
+            if (sent - due > maxLagNanos.get()) {
+                maxLagNanos.accumulateAndGet(sent - due, Math::max);
+            }
+        }
+    }
+
+    void report(Appendable out) throws IOException {
+        long completed = readLatency.getCount() + writeLatency.getCount();
+        out.append(String.format("%nThroughput: %.0f req/s achieved of %.0f offered (%d requests, %d errors)%n",
+            completed / (measuredNanos / 1e9), rate, completed, errors.sum()));
+        out.append("Latency from the scheduled send time (coordinated-omission corrected):\n");
+        out.append(line("read", readLatency)).append(line("write", writeLatency));
+        out.append("Service time (from the actual send):\n");
+        out.append(line("read", readService)).append(line("write", writeService));
+        long lagMillis = TimeUnit.NANOSECONDS.toMillis(maxLagNanos.get());
+        if (lagMillis > 10) {
+            out.append(String.format("Note: requests were sent up to %d ms late; the workers could not keep up, "
+                + "so raise --concurrency or lower --rate to measure the app rather than the generator.%n", lagMillis));
+        }
+    }
+
+    private static String line(String name, LatencyHistogram h) {
+        return String.format("  %-5s count=%d p50=%.2fms p90=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+            name, h.getCount(), h.getPercentile(50) / 1e6, h.getPercentile(90) / 1e6, h.getPercentile(99) / 1e6,
+            h.getPercentile(99.9) / 1e6, h.getMax() / 1e6);
+    }
+
+    LatencyHistogram getReadLatency() { return readLatency; }
+    LatencyHistogram getWriteLatency() { return writeLatency; }
+    long getErrorCount() { return errors.sum(); }
+
+    /**
+     * What the generator drives. Both methods return null on failure.
+     */
+    interface Target {
+        String resolve(String shortKey) throws Exception;
+        String shorten(String longUrl) throws Exception;
+    }
+
+    static final class InProcessTarget implements Target {
+        @Override
+        public String resolve(String shortKey) {
+            return DatabaseManager.findLongUrl(shortKey);
+        }
+
+        @Override
+        public String shorten(String longUrl) {
+            return DatabaseManager.shortenUrl(longUrl);
+        }
+    }
+
+    static final class HttpTarget implements Target {
+        private final String baseUrl;
+        private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+        HttpTarget(String baseUrl) {
+            this.baseUrl = baseUrl;
+        }
+
+        @Override
+        public String resolve(String shortKey) throws IOException, InterruptedException {
+            HttpResponse<Void> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/" + shortKey)).GET().build(),
+                HttpResponse.BodyHandlers.discarding());
+            int status = response.statusCode();
+            return status == 301 || status == 302 ? response.headers().firstValue("Location").orElse(null) : null;
+        }
+
+        @Override
+        public String shorten(String longUrl) throws IOException, InterruptedException {
+            HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(URI.create(baseUrl + "/shorten"))
+                    .POST(HttpRequest.BodyPublishers.ofString(longUrl)).build(),
+                HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 201 ? response.body().trim() : null;
+        }
+    }
+
+    /**
+     * Zipf-distributed ranks in [1, n] (rank 1 most popular) by rejection-inversion sampling
+     * (Hörmann and Derflinger), so each sample is O(1) with no table of n probabilities.
+     * An exponent of 0 is uniform.
+     */
+    static final class ZipfSampler {
+        private final int n;
+        private final double exponent;
+        private final double hIntegralX1;
+        private final double hIntegralN;
+        private final double s;
+
+        ZipfSampler(int n, double exponent) {
+            if (n < 1 || exponent < 0) {
+                throw new IllegalArgumentException("Zipf needs n >= 1 and a non-negative exponent");
+            }
+            this.n = n;
+            this.exponent = exponent;
+            this.hIntegralX1 = hIntegral(1.5) - 1;
+            this.hIntegralN = hIntegral(n + 0.5);
+            this.s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+        }
+
+        int sample(ThreadLocalRandom random) {
+            if (exponent == 0) {
+                return random.nextInt(n) + 1;
+            }
+            while (true) {
+                double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+                double x = hIntegralInverse(u);
+                int k = (int) Math.min(n, Math.max(1, Math.round(x)));
+                if (k - x <= s || u >= hIntegral(k + 0.5) - h(k)) {
+                    return k;
+                }
+            }
+        }
+
+        private double h(double x) {
+            return Math.exp(-exponent * Math.log(x));
+        }
+
+        private double hIntegral(double x) {
+            double logX = Math.log(x);
+            return expm1OverX((1 - exponent) * logX) * logX;
+        }
+
+        private double hIntegralInverse(double x) {
+            double t = Math.max(-1, x * (1 - exponent));
+            return Math.exp(log1pOverX(t) * x);
+        }
+
+        private static double log1pOverX(double x) {
+            return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+
+        private static double expm1OverX(double x) {
+            return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x * (1.0 / 3) * (1 + 0.25 * x));
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.yourcompany.urlshortener.bench;
+
+import com.yourcompany.urlshortener.UrlCanonicalizer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of URL canonicalization per shortened link: an already canonical URL (the common case,
+ * no allocation) and one that needs several rewrites.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class UrlCanonicalizerBenchmark {
+
+    public String canonical = "https://www.example.com/products/shoes/running?color=blue&size=42&ref=newsletter";
+    public String messy = "HTTPS://WWW.Example.com:443/products/%7eshoes/running shoes?color=%2fblue&size=42#reviews";
+
+    @Benchmark
+    public String canonicalize_alreadyCanonical() {
+        return UrlCanonicalizer.canonicalize(canonical);
+    }
+
+    @Benchmark
+    public String canonicalize_needsRewrite() {
+        return UrlCanonicalizer.canonicalize(messy);
+    }
+}
@@ -0,0 +1,97 @@
+package com.yourcompany.urlshortener;
+
+import java.util.Set;
+
+/**
+ * Rules for user-chosen keys ("vanity aliases") and the tenant namespaces they can live in.
+ *
+ * An alias is claimed either at the root (/spring-sale) or in a namespace (/acme/spring-sale).
+ * The pair is stored as one key, "namespace/alias" (just "alias" at the root), in the same
+ * unique short_key column as generated keys. That column's index is therefore the composite
+ * (namespace, alias) index: resolving any key, namespaced or not, is still a single point
+ * lookup, the shard and the cache entry follow from the key as before, and a tenant's aliases
+ * are one prefix range of the index. Generated keys never contain '/', so they can't collide
+ * with a namespaced alias; root aliases share the generated keys' space and are simply first come,
+ * first served, except under keys.strategy=range, where DatabaseManager refuses root aliases
+ * the allocator could generate.
+ *
+ * Claims are insert-or-fail: the row is inserted and the unique index rejects a taken alias, so
+ * two concurrent claims can't both succeed and there is no check-then-insert window.
+ */
+public final class Aliases {
+
+    public static final int MAX_NAMESPACE_LENGTH = 32;
+    public static final int MAX_ALIAS_LENGTH = 48;
+    /** Longest stored key, and the width of the short_key column. */
+    public static final int MAX_KEY_LENGTH = MAX_NAMESPACE_LENGTH + 1 + MAX_ALIAS_LENGTH;
+
+    // Root paths RedirectServer answers itself
+    private static final Set<String> RESERVED = Set.of("shorten", "metrics");
+
+    /**
+     * Outcome of a claim.
+     */
+    public enum Result {
+        /** The alias now points at the URL. */
+        CLAIMED,
+        /** Someone else holds the alias. */
+        TAKEN,
+        /** The alias or namespace breaks the rules below. */
+        INVALID,
+        /**
+         * A valid alias that the urls table layout can't hold: db.schema=compact only stores
+         * base62 keys of up to KeyGenerator.MAX_ENCODED_LENGTH characters, so no namespaces,
+         * '-' or '_'.
+         */
+        UNSUPPORTED,
+        /**
+         * A valid root alias kept back for generated keys: with a collision-free allocator
+         * (keys.strategy=range) new links skip the "is this key taken?" check, so a root alias
+         * the allocator could hand out (keys.length letters and digits) is refused.
+         */
+        RESERVED,
+        /** The store failed; nothing was claimed. */
+        FAILED
+    }
+
+    private Aliases() {
+    }
+
+    /**
+     * Builds the stored key for an alias.
+     * @param namespace Lowercase letters, digits and '-', up to MAX_NAMESPACE_LENGTH; null or blank for the root.
+     * @param alias Letters, digits, '-' and '_', up to MAX_ALIAS_LENGTH.
+     * @return The key, or null if either part is invalid or a root alias is reserved.
+     */
+    public static String qualify(String namespace, String alias) {
+        if (!isValid(alias, MAX_ALIAS_LENGTH, true)) {
+            return null;
+        }
+        if (namespace == null || namespace.isBlank()) {
+            return RESERVED.contains(alias.toLowerCase()) ? null : alias;
+        }
+        return isValid(namespace, MAX_NAMESPACE_LENGTH, false) ? namespace + '/' + alias : null;
+    }
+
+    /**
+     * Whether a stored key belongs to a tenant namespace.
+     */
+    public static boolean isNamespaced(String shortKey) {
+        return shortKey.indexOf('/') >= 0;
+    }
+
+    private static boolean isValid(String part, int maxLength, boolean mixedCase) {
+        if (part == null || part.isEmpty() || part.length() > maxLength) {
+            return false;
+        }
+        for (int i = 0; i < part.length(); i++) {
+            char c = part.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '-'
+                || (mixedCase && ((c >= 'A' && c <= 'Z') || c == '_'));
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,96 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Reads settings from application.properties on the classpath.
+ * A JVM system property with the same name (e.g. -Ddb.url=...) always wins,
+ * which is handy for tests and benchmarks.
+ */
+public final class AppConfig {
+
+    private static final String CONFIG_FILE = "application.properties";
+
+    private static volatile AppConfig instance;
+
+    private final Properties properties;
+
+    private AppConfig(Properties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the shared configuration, loading it on first use.
+     */
+    public static AppConfig get() {
+        AppConfig config = instance;
+        if (config == null) {
+            synchronized (AppConfig.class) {
+                config = instance;
+                if (config == null) {
+                    config = new AppConfig(loadProperties());
+                    instance = config;
+                }
+            }
+        }
+        return config;
+    }
+
+    private static Properties loadProperties() {
+        Properties props = new Properties();
+        try (InputStream in = AppConfig.class.getClassLoader().getResourceAsStream(CONFIG_FILE)) {
+            if (in != null) {
+                props.load(in);
+            } else {
+                System.err.println("❗ " + CONFIG_FILE + " not found on classpath, using defaults.");
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error reading " + CONFIG_FILE + ": " + e.getMessage());
+        }
+        return props;
+    }
+
+    public String getString(String key, String defaultValue) {
+        String value = System.getProperty(key);
+        if (value == null) {
+            value = properties.getProperty(key);
+        }
+        return value == null ? defaultValue : value.trim();
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            System.err.println("❗ Invalid number for '" + key + "': " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            System.err.println("❗ Invalid number for '" + key + "': " + value + " (using " + defaultValue + ")");
+            return defaultValue;
+        }
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        String value = getString(key, null);
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        return Boolean.parseBoolean(value);
+    }
+}
@@ -0,0 +1,64 @@
+package com.yourcompany.urlshortener;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size, thread-safe Bloom filter over 64-bit hashes.
+ * "No" answers are always right; "maybe" answers are wrong with roughly the configured probability.
+ * Bits are set with CAS on an AtomicLongArray, so adds and checks never take a lock.
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitMask;
+    private final int hashCount;
+
+    /**
+     * @param expectedInsertions How many values the filter is sized for.
+     * @param falsePositiveRate Target false positive probability at that size, e.g. 0.01.
+     */
+    public BloomFilter(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter sizing");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        // Round up to a power of two so a bit index is just a mask
+        long size = Long.highestOneBit(Math.max(64, bits) - 1) << 1;
+        this.words = new AtomicLongArray((int) Math.min(Integer.MAX_VALUE, size >>> 6));
+        this.bitMask = ((long) words.length() << 6) - 1;
+        this.hashCount = Math.max(1, (int) Math.round((double) size / expectedInsertions * ln2));
+    }
+
+    public void put(long hash) {
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (hash + i * h2) & bitMask;
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    public boolean mightContain(long hash) {
+        long h2 = Long.rotateLeft(hash, 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = (hash + i * h2) & bitMask;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitMask + 1;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+}
@@ -0,0 +1,62 @@
+package com.yourcompany.urlshortener;
+
+/**
+ * Counters from one DatabaseManager.bulkImport run.
+ */
+public class BulkImportResult {
+
+    private final long imported;
+    private final long skipped;
+    private final long failed;
+    private final long collisionRetries;
+    private final long elapsedNanos;
+    private final long rejected;
+
+    public BulkImportResult(long imported, long skipped, long failed, long collisionRetries, long elapsedNanos) {
+        this(imported, skipped, failed, collisionRetries, elapsedNanos, 0);
+    }
+
+    private BulkImportResult(long imported, long skipped, long failed, long collisionRetries, long elapsedNanos,
+                             long rejected) {
+        this.imported = imported;
+        this.skipped = skipped;
+        this.failed = failed;
+        this.collisionRetries = collisionRetries;
+        this.elapsedNanos = elapsedNanos;
+        this.rejected = rejected;
+    }
+
+    /**
+     * The same counters plus {@code rejected} input lines that the caller filtered out as invalid.
+     */
+    public BulkImportResult withRejected(long rejected) {
+        return new BulkImportResult(imported, skipped, failed, collisionRetries, elapsedNanos, rejected);
+    }
+
+    /** Rows saved and written to the output. */
+    public long getImported() { return imported; }
+
+    /** Blank input lines. */
+    public long getSkipped() { return skipped; }
+
+    /** Rows given up on after running out of collision retries. */
+    public long getFailed() { return failed; }
+
+    /** Rows that had to be re-inserted with a new key because theirs was taken. */
+    public long getCollisionRetries() { return collisionRetries; }
+
+    /** Input lines that were not a valid URL, so never reached the store. */
+    public long getRejected() { return rejected; }
+
+    public long getElapsedNanos() { return elapsedNanos; }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : imported * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("imported=%d, skipped=%d, rejected=%d, failed=%d, collisionRetries=%d, time=%.1fs, throughput=%.0f rows/sec",
+            imported, skipped, rejected, failed, collisionRetries, elapsedNanos / 1e9, getRowsPerSecond());
+    }
+}
@@ -0,0 +1,239 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts redirects per short key and per time bucket without adding a write to the redirect path.
+ *
+ * Each resolution only increments an in-memory LongAdder. A background task periodically
+ * takes the accumulated deltas and adds them to the url_stats table with one batched MERGE,
+ * so the database sees one row update per (key, bucket) per flush no matter how many clicks.
+ * Counts are approximate in one narrow case: a click that races with its (key, bucket)
+ * counter being retired after an idle flush can be missed.
+ */
+public class ClickTracker implements AutoCloseable {
+
+    static final String CREATE_STATS_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS url_stats (" +
+        "    short_key VARCHAR(" + Aliases.MAX_KEY_LENGTH + ") NOT NULL," +
+        "    bucket_start TIMESTAMP NOT NULL," +
+        "    hits BIGINT NOT NULL," +
+        "    PRIMARY KEY (short_key, bucket_start)" +
+        ")";
+
+    private static final String MERGE_STATS_SQL =
+        "MERGE INTO url_stats t " +
+        "USING (VALUES (CAST(? AS VARCHAR(" + Aliases.MAX_KEY_LENGTH + ")), CAST(? AS TIMESTAMP), CAST(? AS BIGINT))) s (k, b, h) " +
+        "ON t.short_key = s.k AND t.bucket_start = s.b " +
+        "WHEN MATCHED THEN UPDATE SET hits = t.hits + s.h " +
+        "WHEN NOT MATCHED THEN INSERT (short_key, bucket_start, hits) VALUES (s.k, s.b, s.h)";
+
+    private static final String TOP_KEYS_SQL =
+        "SELECT short_key, SUM(hits) AS total FROM url_stats GROUP BY short_key ORDER BY total DESC LIMIT ?";
+
+    private static final String KEY_HITS_SQL =
+        "SELECT COALESCE(SUM(hits), 0) FROM url_stats WHERE short_key = ?";
+
+    private final ConnectionPool pool;
+    private final long bucketMillis;
+    private final int maxTrackedKeys;
+
+    // bucket start (epoch millis) -> short key -> clicks not yet flushed
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<String, LongAdder>> buckets = new ConcurrentHashMap<>();
+    private volatile long currentBucket = -1;
+    private volatile ConcurrentHashMap<String, LongAdder> currentCounts;
+
+    private final ScheduledExecutorService flusher;
+
+    // Metrics
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder flushedRows = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * @param flushSeconds How often deltas are written to url_stats; 0 means only on flush()/close().
+     * @param bucketSeconds Width of each time bucket in url_stats.
+     * @param maxTrackedKeys Distinct keys held per bucket between flushes; clicks on further keys are dropped.
+     */
+    public ClickTracker(ConnectionPool pool, long flushSeconds, long bucketSeconds, int maxTrackedKeys) throws SQLException {
+        this.pool = pool;
+        this.bucketMillis = TimeUnit.SECONDS.toMillis(bucketSeconds);
+        this.maxTrackedKeys = maxTrackedKeys;
+
+        try (ConnectionPool.PooledConnection pc = pool.acquire();
+             Statement stmt = pc.getConnection().createStatement()) {
+            stmt.execute(CREATE_STATS_TABLE_SQL);
+        }
+
+        if (flushSeconds > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "click-flush");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    /**
+     * Builds a tracker from the analytics.* settings.
+     */
+    public static ClickTracker fromConfig(AppConfig config, ConnectionPool pool) throws SQLException {
+        return new ClickTracker(pool,
+            config.getLong("analytics.flushSeconds", 10),
+            config.getLong("analytics.bucketSeconds", 3600),
+            config.getInt("analytics.maxTrackedKeys", 1_000_000));
+    }
+
+    /**
+     * Counts one resolution of the key. Lock-free for keys that already have a counter in this bucket.
+     */
+    public void record(String shortKey) {
+        long now = System.currentTimeMillis();
+        long bucket = now - now % bucketMillis;
+        ConcurrentHashMap<String, LongAdder> counts = currentCounts;
+        if (bucket != currentBucket || counts == null) {
+            counts = buckets.computeIfAbsent(bucket, b -> new ConcurrentHashMap<>());
+            currentCounts = counts;
+            currentBucket = bucket;
+        }
+
+        LongAdder adder = counts.get(shortKey);
+        if (adder == null) {
+            if (counts.size() >= maxTrackedKeys) {
+                dropped.increment();
+                return;
+            }
+            adder = counts.computeIfAbsent(shortKey, k -> new LongAdder());
+        }
+        adder.increment();
+        recorded.increment();
+    }
+
+    /**
+     * Writes all accumulated deltas to url_stats in one transaction.
+     * @return The number of (key, bucket) rows merged.
+     */
+    public synchronized int flush() throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        for (Map.Entry<Long, ConcurrentHashMap<String, LongAdder>> bucket : buckets.entrySet()) {
+            ConcurrentHashMap<String, LongAdder> counts = bucket.getValue();
+            for (Map.Entry<String, LongAdder> entry : counts.entrySet()) {
+                LongAdder adder = entry.getValue();
+                long delta = adder.sumThenReset();
+                if (delta == 0 && counts.remove(entry.getKey(), adder)) {
+                    // Idle since the last flush: retire the counter so the map doesn't grow forever.
+                    // A click that slipped in just before the removal is picked up here.
+                    delta = adder.sumThenReset();
+                }
+                if (delta > 0) {
+                    rows.add(new Object[] { entry.getKey(), bucket.getKey(), delta });
+                }
+            }
+            if (counts.isEmpty() && bucket.getKey() != currentBucket) {
+                buckets.remove(bucket.getKey(), counts);
+            }
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            pc.getConnection().setAutoCommit(false);
+            PreparedStatement pstmt = pc.prepare(MERGE_STATS_SQL);
+            for (Object[] row : rows) {
+                pstmt.setString(1, (String) row[0]);
+                pstmt.setTimestamp(2, new Timestamp((Long) row[1]));
+                pstmt.setLong(3, (Long) row[2]);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+            pc.getConnection().commit();
+            pc.getConnection().setAutoCommit(true);
+        } catch (SQLException e) {
+            // Put the deltas back so they are retried on the next flush
+            for (Object[] row : rows) {
+                buckets.computeIfAbsent((Long) row[1], b -> new ConcurrentHashMap<>())
+                    .computeIfAbsent((String) row[0], k -> new LongAdder())
+                    .add((Long) row[2]);
+            }
+            throw e;
+        }
+        flushes.increment();
+        flushedRows.add(rows.size());
+        return rows.size();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (SQLException e) {
+            System.err.println("❌ Click stats flush failed, will retry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the most-clicked keys, most clicks first. Pending deltas are flushed first.
+     */
+    public List<Map.Entry<String, Long>> topKeys(int limit) throws SQLException {
+        flush();
+        List<Map.Entry<String, Long>> top = new ArrayList<>(limit);
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            PreparedStatement pstmt = pc.prepare(TOP_KEYS_SQL);
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    top.add(new AbstractMap.SimpleImmutableEntry<>(rs.getString(1), rs.getLong(2)));
+                }
+            }
+        }
+        return top;
+    }
+
+    /**
+     * Returns the total clicks recorded for one key. Pending deltas are flushed first.
+     */
+    public long getHits(String shortKey) throws SQLException {
+        flush();
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            PreparedStatement pstmt = pc.prepare(KEY_HITS_SQL);
+            pstmt.setString(1, shortKey);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Stops the background task and writes out whatever is still pending.
+     */
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flushQuietly();
+    }
+
+    public long getRecordedCount() { return recorded.sum(); }
+    public long getDroppedCount() { return dropped.sum(); }
+    public long getFlushCount() { return flushes.sum(); }
+    public long getFlushedRowCount() { return flushedRows.sum(); }
+}
@@ -0,0 +1,293 @@
+package com.yourcompany.urlshortener;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A small bounded JDBC connection pool.
+ * Connections are opened once and handed out again and again, and each one
+ * keeps its own cache of prepared statements so the hot SQL is only parsed once.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long acquireTimeoutMillis;
+    private final boolean validateOnBorrow;
+    private final int validationTimeoutSeconds;
+
+    private final ArrayBlockingQueue<PooledConnection> idle;
+    private final Semaphore permits;
+    private volatile boolean closed = false;
+
+    // Metrics
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger opened = new AtomicInteger();
+    private final LongAdder acquireCount = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder validationFailures = new LongAdder();
+    private final LatencyHistogram acquireLatency = new LatencyHistogram();
+
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize,
+                          long acquireTimeoutMillis, boolean validateOnBorrow, int validationTimeoutSeconds) {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.acquireTimeoutMillis = acquireTimeoutMillis;
+        this.validateOnBorrow = validateOnBorrow;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.idle = new ArrayBlockingQueue<>(maxSize);
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            try {
+                idle.offer(open());
+            } catch (SQLException e) {
+                System.err.println("❌ Error pre-filling connection pool: " + e.getMessage());
+                break;
+            }
+        }
+    }
+
+    /**
+     * Builds a pool from the db.* and db.pool.* settings in application.properties.
+     */
+    public static ConnectionPool fromConfig(AppConfig config) {
+        return fromConfig(config, config.getString("db.url", "jdbc:h2:mem:shortenerdb"));
+    }
+
+    /**
+     * Same as {@link #fromConfig(AppConfig)} but for an explicit JDBC URL.
+     */
+    public static ConnectionPool fromConfig(AppConfig config, String url) {
+        return new ConnectionPool(
+            url,
+            config.getString("db.username", "sa"),
+            config.getString("db.password", ""),
+            config.getInt("db.pool.minSize", 2),
+            config.getInt("db.pool.maxSize", 10),
+            config.getLong("db.pool.acquireTimeoutMs", 5000),
+            config.getBoolean("db.pool.validateOnBorrow", false),
+            config.getInt("db.pool.validationTimeoutSeconds", 2));
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection conn = DriverManager.getConnection(url, user, password);
+        opened.incrementAndGet();
+        return new PooledConnection(this, conn);
+    }
+
+    /**
+     * Borrows a connection, waiting up to the acquire timeout if the pool is exhausted.
+     * @throws SQLException if no connection became available in time or a new one could not be opened.
+     */
+    public PooledConnection acquire() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed");
+        }
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a connection", e);
+        }
+        waitNanos.add(System.nanoTime() - start);
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLException("Timed out after " + acquireTimeoutMillis + " ms waiting for a database connection");
+        }
+
+        try {
+            PooledConnection pc = idle.poll();
+            while (pc != null && !isUsable(pc)) {
+                pc.closeQuietly();
+                pc = idle.poll();
+            }
+            if (pc == null) {
+                pc = open();
+            }
+            pc.checkedOut = true;
+            pc.lease++;
+            active.incrementAndGet();
+            acquireCount.increment();
+            acquireLatency.recordSince(start);
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        if (!validateOnBorrow) {
+            return true;
+        }
+        try {
+            if (pc.connection.isValid(validationTimeoutSeconds)) {
+                return true;
+            }
+        } catch (SQLException ignored) {
+            // treated as invalid below
+        }
+        validationFailures.increment();
+        return false;
+    }
+
+    /**
+     * Returns a borrowed connection. Connections left in a transaction are rolled back,
+     * and connections that are already closed are dropped instead of being reused.
+     */
+    void release(PooledConnection pc) {
+        if (!pc.checkedOut) {
+            return;
+        }
+        pc.checkedOut = false;
+        active.decrementAndGet();
+        try {
+            boolean reusable = !closed && !pc.connection.isClosed();
+            if (reusable && !pc.connection.getAutoCommit()) {
+                pc.connection.rollback();
+                pc.connection.setAutoCommit(true);
+            }
+            if (!reusable || !idle.offer(pc)) {
+                pc.closeQuietly();
+            }
+        } catch (SQLException e) {
+            pc.closeQuietly();
+        } finally {
+            permits.release();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        PooledConnection pc;
+        while ((pc = idle.poll()) != null) {
+            pc.closeQuietly();
+        }
+    }
+
+    public int getMaxSize() { return maxSize; }
+    public int getActiveCount() { return active.get(); }
+    public int getIdleCount() { return idle.size(); }
+    public int getOpenedCount() { return opened.get(); }
+    public long getAcquireCount() { return acquireCount.sum(); }
+    public long getTotalWaitNanos() { return waitNanos.sum(); }
+    public long getTimeoutCount() { return timeouts.sum(); }
+    public long getValidationFailureCount() { return validationFailures.sum(); }
+    public LatencyHistogram getAcquireLatency() { return acquireLatency; }
+
+    @Override
+    public String toString() {
+        long acquires = getAcquireCount();
+        double avgWaitMicros = acquires == 0 ? 0 : getTotalWaitNanos() / 1000.0 / acquires;
+        return String.format("pool[active=%d, idle=%d, max=%d, opened=%d, acquires=%d, avgWait=%.1fus, timeouts=%d]",
+            getActiveCount(), getIdleCount(), maxSize, getOpenedCount(), acquires, avgWaitMicros, getTimeoutCount());
+    }
+
+    /**
+     * A physical connection owned by the pool, plus its prepared statement cache.
+     * Only the thread that borrowed it may use it until it is released.
+     */
+    public static final class PooledConnection implements AutoCloseable {
+
+        private final ConnectionPool pool;
+        private final Connection connection;
+        private final Map<String, PreparedStatement> statements = new HashMap<>();
+        private volatile boolean checkedOut;
+        private volatile int lease;
+
+        private PooledConnection(ConnectionPool pool, Connection connection) {
+            this.pool = pool;
+            this.connection = connection;
+        }
+
+        public Connection getConnection() {
+            return connection;
+        }
+
+        /**
+         * Returns a cached prepared statement for the SQL, preparing it on first use.
+         * The statement belongs to the pool, so callers must not close it.
+         */
+        public PreparedStatement prepare(String sql) throws SQLException {
+            PreparedStatement pstmt = statements.get(sql);
+            if (pstmt == null || pstmt.isClosed()) {
+                pstmt = connection.prepareStatement(sql);
+                statements.put(sql, pstmt);
+            } else {
+                pstmt.clearParameters();
+            }
+            return pstmt;
+        }
+
+        /**
+         * Wraps this pooled connection in a plain {@link Connection} whose close()
+         * hands it back to the pool instead of closing the socket.
+         */
+        Connection asConnection() {
+            final int borrowedLease = lease;
+            return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            if (lease == borrowedLease) {
+                                pool.release(this);
+                            }
+                            return null;
+                        case "isClosed":
+                            return lease != borrowedLease || !checkedOut || connection.isClosed();
+                        case "unwrap":
+                            if (((Class<?>) args[0]).isInstance(proxy)) {
+                                return proxy;
+                            }
+                            break;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        }
+
+        @Override
+        public void close() {
+            pool.release(this);
+        }
+
+        private void closeQuietly() {
+            try {
+                connection.close();
+            } catch (SQLException ignored) {
+                // nothing useful to do with a failing close
+            }
+            statements.clear();
+        }
+    }
+}
@@ -1,11 +1,26 @@
 package com.yourcompany.urlshortener;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * PR 5 & PR 6: Handles database connection, table creation, saving (shortening), 
@@ -13,53 +28,467 @@ import java.sql.Statement;
  */
 public class DatabaseManager {
 
-    private static final String DB_URL = "jdbc:h2:mem:shortenerdb";
-    private static final String DB_USER = "sa";
-    private static final String DB_PASSWORD = ""; 
+    // Connection settings (db.url, db.username, db.password, db.pool.*) come from application.properties.
+    // Links are spread over db.shards databases; pool is shard 0, which also holds the non-link tables.
+    private static volatile ShardRouter shards;
+    static volatile ConnectionPool pool;
+
+    // Layout of the urls table (db.schema); set together with shards
+    private static volatile UrlSchema schema;
+
+    // Read-through cache in front of findLongUrl (cache.* settings); null when disabled
+    private static final UrlCache cache = UrlCache.fromConfig(AppConfig.get());
+
+    // SQLState H2 (and the SQL standard) report for a UNIQUE / PRIMARY KEY violation
+    private static final String DUPLICATE_KEY_SQLSTATE = "23505";
+
+    private static volatile KeyAllocator keyAllocator;
+
+    // Optional write-behind persistence for new links (writeBehind.* settings); null when disabled
+    static volatile WriteBehindQueue writeBehind;
+
+    // Optional "same URL, same key" mode (dedupe.* settings); null when disabled
+    private static volatile UrlDeduplicator deduplicator;
+
+    // Optional memory-mapped snapshot of the urls table consulted before the cache (index.* settings)
+    private static volatile MappedUrlIndex urlIndex;
+    private static ScheduledExecutorService indexRefresher;
+    // index.authoritative, read when the index is set up rather than on every lookup
+    private static volatile boolean indexAuthoritative;
+
+    // Optional per-key click counting for redirects (analytics.* settings); null when disabled
+    private static volatile ClickTracker clickTracker;
+    // analytics.enabled, read once per initialization rather than on every lookup; null until read
+    private static volatile Boolean analyticsEnabled;
+
+    // Optional background deletion of expired links (purge.* settings); null when disabled
+    private static volatile ExpiredLinkPurger expiryPurger;
+
+    // Optional read replicas that serve lookups (db.replicas settings); null when db.replicas=0
+    static volatile ReadReplicas replicas;
 
     private static final String CREATE_TABLE_SQL = 
         "CREATE TABLE IF NOT EXISTS urls (" +
         "    id INT AUTO_INCREMENT PRIMARY KEY," +
-        "    short_key VARCHAR(10) NOT NULL UNIQUE," +
+        "    short_key VARCHAR(" + Aliases.MAX_KEY_LENGTH + ") NOT NULL UNIQUE," +
         "    long_url VARCHAR(2048) NOT NULL," +
         "    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
         ");";
 
-    // PR 5: SQL statement for inserting a new URL pair
-    private static final String INSERT_URL_SQL = 
-        "INSERT INTO urls (short_key, long_url) VALUES (?, ?)";
+    // Fixed-size hash of long_url, maintained by H2 on every insert, so a URL can be found
+    // through a BIGINT index instead of an index on VARCHAR(2048). Java computes the same value in UrlHash.
+    private static final String ADD_URL_HASH_SQL =
+        "ALTER TABLE urls ADD COLUMN IF NOT EXISTS url_hash BIGINT " +
+        "GENERATED ALWAYS AS (CAST(SUBSTRING(HASH('SHA-256', long_url) FROM 1 FOR 8) AS BIGINT))";
+
+    private static final String CREATE_URL_HASH_INDEX_SQL =
+        "CREATE INDEX IF NOT EXISTS idx_urls_url_hash ON urls (url_hash)";
+
+    // Optional expiry time; NULL means the link never expires. The index drives the purger.
+    private static final String ADD_EXPIRES_AT_SQL =
+        "ALTER TABLE urls ADD COLUMN IF NOT EXISTS expires_at TIMESTAMP";
+
+    private static final String CREATE_EXPIRES_AT_INDEX_SQL =
+        "CREATE INDEX IF NOT EXISTS idx_urls_expires_at ON urls (expires_at)";
+
+    // Tables created before aliases have short_key VARCHAR(10)
+    private static final String KEY_WIDTH_SQL =
+        "SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS " +
+        "WHERE TABLE_SCHEMA = CURRENT_SCHEMA AND TABLE_NAME = ? AND COLUMN_NAME = 'SHORT_KEY'";
+
+    // PR 5 / PR 6: the insert and lookup statements depend on the table layout, see UrlSchema
+
+
+    /**
+     * Returns the shard routing table, creating one pool per shard from application.properties on first use.
+     */
+    public static ShardRouter getShards() {
+        ShardRouter router = shards;
+        if (router == null) {
+            synchronized (DatabaseManager.class) {
+                router = shards;
+                if (router == null) {
+                    router = ShardRouter.fromConfig(AppConfig.get());
+                    schema = UrlSchema.fromConfig(AppConfig.get());
+                    pool = router.pool(0);
+                    shards = router;
+                }
+            }
+        }
+        return router;
+    }
+
+    /**
+     * Returns the pool of shard 0, which holds the non-link tables (url_stats, the key_blocks sequence).
+     * Unsharded, this is the one and only database.
+     */
+    public static ConnectionPool getPool() {
+        return getShards().pool(0);
+    }
+
+    /**
+     * Returns the layout of the urls table selected by db.schema.
+     */
+    static UrlSchema getSchema() {
+        UrlSchema current = schema;
+        if (current == null) {
+            getShards();
+            current = schema;
+        }
+        return current;
+    }
 
-    // PR 6: SQL statement for looking up the original URL by key
-    private static final String SELECT_URL_SQL =
-        "SELECT long_url FROM urls WHERE short_key = ?";
+    /**
+     * Returns the pool of the shard that owns the key.
+     */
+    static ConnectionPool poolFor(String shortKey) {
+        return getShards().poolFor(shortKey);
+    }
 
+    /**
+     * Builds the JDBC URL for the storage mode selected by db.mode:
+     *   memory - db.url, kept alive until the JVM exits rather than until the last connection closes
+     *   file   - a persistent H2 (MVStore) file at db.file.path, tuned by the db.file.* settings
+     */
+    static String buildJdbcUrl(AppConfig config) {
+        return buildJdbcUrl(config, "");
+    }
+
+    /**
+     * Same as {@link #buildJdbcUrl(AppConfig)}, with {@code suffix} appended to the database name (one per shard).
+     */
+    static String buildJdbcUrl(AppConfig config, String suffix) {
+        String mode = config.getString("db.mode", "memory");
+        switch (mode) {
+            case "memory": {
+                String url = config.getString("db.url", "jdbc:h2:mem:shortenerdb");
+                int options = url.indexOf(';');
+                url = options < 0 ? url + suffix : url.substring(0, options) + suffix + url.substring(options);
+                return url.toUpperCase().contains("DB_CLOSE_DELAY") ? url : url + ";DB_CLOSE_DELAY=-1";
+            }
+            case "file":
+                return "jdbc:h2:file:" + config.getString("db.file.path", "./data/shortenerdb") + suffix
+                    + ";CACHE_SIZE=" + config.getInt("db.file.cacheSizeKb", 65536)
+                    + ";WRITE_DELAY=" + config.getInt("db.file.writeDelayMs", 500)
+                    + ";MAX_COMPACT_TIME=" + config.getInt("db.file.maxCompactTimeMs", 200);
+            default:
+                throw new IllegalArgumentException("Unknown db.mode: " + mode + " (expected memory or file)");
+        }
+    }
+
+    static boolean isFileMode() {
+        return "file".equals(AppConfig.get().getString("db.mode", "memory"));
+    }
 
+    /**
+     * Borrows a pooled connection. Closing the returned connection hands it back to the pool.
+     * With several shards this is a connection to shard 0; link queries go through the owning shard.
+     * @return A valid Connection object, or null if connection fails.
+     */
     public static Connection getConnection() {
+        long start = Metrics.start();
         try {
-            Class.forName("org.h2.Driver"); 
-            return DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-        } catch (ClassNotFoundException e) {
-            System.err.println("❌ Error: H2 JDBC Driver not found.");
-            return null;
+            Connection conn = getPool().acquire().asConnection();
+            Metrics.record(Metrics.GET_CONNECTION, start);
+            return conn;
         } catch (SQLException e) {
+            Metrics.count(Metrics.CONNECTION_ERRORS);
             System.err.println("❌ Error connecting to the database. Check settings.");
             e.printStackTrace();
             return null;
         }
     }
+
+    /**
+     * Closes all pooled connections. The next call to getConnection() builds a fresh pool.
+     */
+    public static synchronized void shutdown() {
+        if (indexRefresher != null) {
+            indexRefresher.shutdownNow();
+            indexRefresher = null;
+        }
+        // Mapped again (or rebuilt) by the next initializeDatabase(), if index.enabled is still set
+        urlIndex = null;
+        indexAuthoritative = false;
+        if (writeBehind != null) {
+            // Persist everything that was acknowledged but not yet written
+            writeBehind.close();
+            writeBehind = null;
+        }
+        if (expiryPurger != null) {
+            expiryPurger.close();
+            expiryPurger = null;
+        }
+        if (clickTracker != null) {
+            // Write out the clicks counted since the last periodic flush
+            clickTracker.close();
+            clickTracker = null;
+        }
+        analyticsEnabled = null;
+        if (replicas != null) {
+            // Before the primaries: the sync thread reads from them
+            replicas.close();
+            replicas = null;
+        }
+        if (shards != null) {
+            if (isFileMode() && AppConfig.get().getBoolean("db.file.compactOnShutdown", false)) {
+                // Rewrites the file without free space; slower shutdown, smaller and faster-to-read file
+                for (ConnectionPool shard : shards.pools()) {
+                    try (ConnectionPool.PooledConnection pc = shard.acquire();
+                         Statement stmt = pc.getConnection().createStatement()) {
+                        stmt.execute("SHUTDOWN COMPACT");
+                    } catch (SQLException e) {
+                        System.err.println("❌ Database compaction failed: " + e.getMessage());
+                    }
+                }
+            }
+            shards.close();
+            shards = null;
+            pool = null;
+            schema = null;
+            UrlSchema.clearCaches();
+        }
+        // A range allocator and the deduplicator hold on to the old pools
+        keyAllocator = null;
+        deduplicator = null;
+    }
     
-    public static void initializeDatabase() {
-        try (Connection conn = getConnection();
-             Statement stmt = conn.createStatement()) {
-            
-            if (conn != null) {
-                stmt.execute(CREATE_TABLE_SQL);
-                System.out.println("✅ Schema status: 'urls' table initialized successfully.");
+    /**
+     * Creates the schema if needed and, when db.warmup.enabled is set, preloads the
+     * newest db.warmup.keys links into the lookup cache so the first redirects after
+     * a restart don't all wait on cold disk reads.
+     * @return false if the database could not be opened or its schema created.
+     */
+    public static boolean initializeDatabase() {
+        try {
+            ShardRouter router = getShards();
+            for (int i = 0; i < router.shardCount(); i++) {
+                try (ConnectionPool.PooledConnection pc = router.pool(i).acquire()) {
+                    initializeSchema(pc.getConnection(), i == 0);
+                }
             }
-            
+            String where = isFileMode()
+                ? "file '" + AppConfig.get().getString("db.file.path", "./data/shortenerdb") + "'"
+                : "in-memory";
+            if (router.shardCount() > 1) {
+                where += ", " + router.shardCount() + " shards";
+            }
+            System.out.println("✅ Schema status: 'urls' table initialized successfully (" + where + ").");
         } catch (SQLException e) {
             System.err.println("❌ Error initializing database table: " + e.getMessage());
+            return false;
+        }
+
+        initializeReplicas();
+        analyticsEnabled = AppConfig.get().getBoolean("analytics.enabled", false);
+
+        if (AppConfig.get().getBoolean("index.enabled", false)) {
+            initializeIndex();
+        }
+
+        if (Metrics.isEnabled() && AppConfig.get().getBoolean("metrics.jmx.enabled", true)) {
+            Metrics.registerMBean();
+        }
+
+        if (AppConfig.get().getBoolean("purge.enabled", false)) {
+            synchronized (DatabaseManager.class) {
+                if (expiryPurger == null) {
+                    expiryPurger = ExpiredLinkPurger.fromConfig(AppConfig.get(), getShards().pools());
+                }
+            }
         }
+
+        if (AppConfig.get().getBoolean("db.warmup.enabled", false)) {
+            long start = System.nanoTime();
+            int loaded = warmUp(AppConfig.get().getInt("db.warmup.keys", 10_000));
+            System.out.printf("✅ Warmup status: %d links preloaded in %d ms.%n",
+                loaded, (System.nanoTime() - start) / 1_000_000);
+        }
+        return true;
+    }
+
+    /**
+     * Creates the urls table in the db.schema layout (and, on shard 0, the url_stats table)
+     * in one database if needed.
+     * @throws SQLException if the database already has a urls table in the other layout.
+     */
+    static void initializeSchema(Connection conn, boolean withStats) throws SQLException {
+        UrlSchema wanted = UrlSchema.fromConfig(AppConfig.get());
+        UrlSchema existing = UrlSchema.of(conn);
+        try (Statement stmt = conn.createStatement()) {
+            if (wanted == UrlSchema.COMPACT) {
+                // A fresh database reports STANDARD until the table exists
+                try (ResultSet rs = conn.getMetaData().getTables(null, null, "URLS", null)) {
+                    if (rs.next() && existing != wanted) {
+                        throw new SQLException("The urls table uses the standard layout; db.schema=compact needs a new database");
+                    }
+                }
+                UrlSchema.createCompact(stmt);
+            } else {
+                if (existing != wanted) {
+                    throw new SQLException("The urls table uses the compact layout; set db.schema=compact");
+                }
+                stmt.execute(CREATE_TABLE_SQL);
+                widenKeyColumn(conn, "urls");
+                stmt.execute(ADD_URL_HASH_SQL);
+                stmt.execute(CREATE_URL_HASH_INDEX_SQL);
+                stmt.execute(ADD_EXPIRES_AT_SQL);
+                stmt.execute(CREATE_EXPIRES_AT_INDEX_SQL);
+            }
+            if (withStats) {
+                stmt.execute(ClickTracker.CREATE_STATS_TABLE_SQL);
+                widenKeyColumn(conn, "url_stats");
+            }
+        }
+    }
+
+    /**
+     * Widens the short_key column of a table created before aliases to Aliases.MAX_KEY_LENGTH.
+     * H2 keeps the column's unique index (or primary key) through the change.
+     */
+    private static void widenKeyColumn(Connection conn, String table) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(KEY_WIDTH_SQL)) {
+            pstmt.setString(1, table.toUpperCase());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next() || rs.getLong(1) >= Aliases.MAX_KEY_LENGTH) {
+                    return;
+                }
+            }
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("ALTER TABLE " + table + " ALTER COLUMN short_key SET DATA TYPE VARCHAR(" + Aliases.MAX_KEY_LENGTH + ")");
+        }
+    }
+
+    /**
+     * Starts the db.replicas read replicas, or removes a change feed left behind when they are off.
+     */
+    private static synchronized void initializeReplicas() {
+        if (replicas != null) {
+            return;
+        }
+        try {
+            if (AppConfig.get().getInt("db.replicas", 0) > 0) {
+                replicas = ReadReplicas.fromConfig(AppConfig.get(), getShards(), getSchema());
+                System.out.println("✅ Replica status: " + replicas.getHealthyCount() + " of "
+                    + replicas.getReplicaCount() + " read replicas in sync.");
+            } else {
+                ReadReplicas.dropFeed(getShards());
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Could not start read replicas, lookups use the primary: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads (or builds) the memory-mapped index and schedules periodic rebuilds if configured.
+     */
+    private static synchronized void initializeIndex() {
+        AppConfig config = AppConfig.get();
+        indexAuthoritative = config.getBoolean("index.authoritative", false);
+        Path path = Paths.get(config.getString("index.path", "./data/urls.idx"));
+        try {
+            if (config.getBoolean("index.buildOnStartup", true) || !Files.exists(path)) {
+                refreshIndex();
+            } else {
+                urlIndex = MappedUrlIndex.open(path);
+                System.out.println("✅ Index status: " + urlIndex.size() + " links mapped from " + path + ".");
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Could not open URL index " + path + ": " + e.getMessage());
+        }
+
+        long refreshSeconds = config.getLong("index.refreshSeconds", 0);
+        if (refreshSeconds > 0 && indexRefresher == null) {
+            indexRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "index-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            indexRefresher.scheduleWithFixedDelay(DatabaseManager::refreshIndex, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Rebuilds the index file from the urls table and swaps it in atomically.
+     * Lookups keep using the previous index until the new one is fully written and mapped.
+     * @return The number of links in the new index, or -1 if the rebuild failed.
+     */
+    public static synchronized long refreshIndex() {
+        AppConfig config = AppConfig.get();
+        Path path = Paths.get(config.getString("index.path", "./data/urls.idx"));
+        long start = System.nanoTime();
+        List<ConnectionPool.PooledConnection> borrowed = new ArrayList<>();
+        try {
+            List<Connection> connections = new ArrayList<>();
+            for (ConnectionPool shard : getShards().pools()) {
+                ConnectionPool.PooledConnection pc = shard.acquire();
+                borrowed.add(pc);
+                connections.add(pc.getConnection());
+            }
+            long entries = MappedUrlIndex.build(connections, path, config.getInt("index.keyWidth", 10));
+            urlIndex = MappedUrlIndex.open(path);
+            System.out.printf("✅ Index status: %d links written to %s in %d ms.%n",
+                entries, path, (System.nanoTime() - start) / 1_000_000);
+            return entries;
+        } catch (SQLException | IOException e) {
+            System.err.println("❌ URL index rebuild failed: " + e.getMessage());
+            return -1;
+        } finally {
+            borrowed.forEach(ConnectionPool.PooledConnection::close);
+        }
+    }
+
+    /**
+     * Returns the currently mapped index, or null if the index is disabled or not built yet.
+     */
+    public static MappedUrlIndex getUrlIndex() {
+        return urlIndex;
+    }
+
+    /**
+     * Loads up to {@code limit} links into the lookup cache: the most-clicked ones when
+     * analytics.enabled is set, otherwise the most recently created ones of each shard.
+     * @return The number of links loaded (0 if the cache is disabled).
+     */
+    public static int warmUp(int limit) {
+        if (cache == null || limit <= 0) {
+            return 0;
+        }
+        int loaded = 0;
+        try {
+            ClickTracker tracker = getClickTracker();
+            if (tracker != null) {
+                // Stats live on shard 0 and links on any shard, so load the hottest keys one by one
+                for (Map.Entry<String, Long> hot : tracker.topKeys(limit)) {
+                    UrlCache.Loaded link = loadLink(hot.getKey());
+                    if (link != null && !isExpired(link.expiresAtMillis)) {
+                        cache.put(hot.getKey(), link.value, link.expiresAtMillis);
+                        loaded++;
+                    }
+                }
+                return loaded;
+            }
+            ShardRouter router = getShards();
+            UrlSchema layout = getSchema();
+            int perShard = (limit + router.shardCount() - 1) / router.shardCount();
+            for (ConnectionPool shard : router.pools()) {
+                try (ConnectionPool.PooledConnection pc = shard.acquire()) {
+                    PreparedStatement pstmt = pc.prepare(layout.selectRecentSql);
+                    pstmt.setInt(1, perShard);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            cache.put(layout.readKey(rs, 1), layout.readUrl(pc.getConnection(), rs, 2),
+                                toMillis(rs.getTimestamp(layout.selectWidth + 1)));
+                            loaded++;
+                        }
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Cache warmup failed: " + e.getMessage());
+        }
+        return loaded;
     }
 
     /**
@@ -69,47 +498,646 @@ public class DatabaseManager {
      * @return true if the save was successful, false otherwise.
      */
     public static boolean saveUrl(String shortKey, String longUrl) {
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(INSERT_URL_SQL)) {
-
-            pstmt.setString(1, shortKey); 
-            pstmt.setString(2, longUrl); 
-
-            int affectedRows = pstmt.executeUpdate();
-            return affectedRows > 0;
+        return saveUrl(shortKey, longUrl, null);
+    }
 
+    /**
+     * Saves a link that stops resolving at {@code expiresAt}.
+     * @param expiresAt When the link expires, or null for never.
+     * @return true if the save was successful, false otherwise.
+     */
+    public static boolean saveUrl(String shortKey, String longUrl, Instant expiresAt) {
+        try {
+            insertUrl(shortKey, longUrl, toMillis(expiresAt), false);
+            return true;
         } catch (SQLException e) {
-            // This is where we'll focus on collision errors later (PR 9)
+            Metrics.count(Metrics.SAVE_ERRORS);
             System.err.println("❌ Database save failed for key '" + shortKey + "': " + e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Claims a user-chosen alias for a URL, see {@link Aliases}. The claim is a plain insert that
+     * the unique key index rejects when the alias is taken, so of several concurrent claims exactly
+     * one wins, without a separate availability check. Claims are always written synchronously,
+     * even with write-behind on, because the caller has to know whether the alias is theirs.
+     * @param namespace The tenant namespace, or null for the root.
+     * @param expiresAt When the link expires, or null for never.
+     */
+    public static Aliases.Result claimAlias(String namespace, String alias, String longUrl, Instant expiresAt) {
+        String shortKey = Aliases.qualify(namespace, alias);
+        if (shortKey == null) {
+            return Aliases.Result.INVALID;
+        }
+        try {
+            getSchema().checkKey(shortKey);
+        } catch (SQLException e) {
+            return Aliases.Result.UNSUPPORTED;
+        }
+        // A collision-free allocator never checks whether its keys are taken
+        KeyAllocator allocator = getKeyAllocator();
+        if (!Aliases.isNamespaced(shortKey) && allocator.isCollisionFree() && allocator.canGenerate(shortKey)) {
+            return Aliases.Result.RESERVED;
+        }
+        long start = Metrics.start();
+        try {
+            // A generated key still waiting in the write-behind queue is taken too
+            WriteBehindQueue queue = writeBehind;
+            if (queue != null && queue.get(shortKey) != null) {
+                return Aliases.Result.TAKEN;
+            }
+            insertNow(shortKey, longUrl, toMillis(expiresAt));
+            return Aliases.Result.CLAIMED;
+        } catch (SQLException e) {
+            if (isDuplicateKey(e)) {
+                return Aliases.Result.TAKEN;
+            }
+            Metrics.count(Metrics.SAVE_ERRORS);
+            System.err.println("❌ Database save failed for alias '" + shortKey + "': " + e.getMessage());
+            return Aliases.Result.FAILED;
+        } finally {
+            Metrics.record(Metrics.SAVE, start);
+        }
+    }
+
+    /**
+     * Shortens a URL with a key from the configured KeyAllocator (keys.* settings).
+     * If a random key is already taken, a new key is tried, up to keys.maxRetries times.
+     * With dedupe.enabled, a URL that was shortened before gets its existing key back.
+     * @param longUrl The original long URL.
+     * @return The new short key, or null if the URL could not be saved.
+     */
+    public static String shortenUrl(String longUrl) {
+        return shortenUrl(longUrl, null);
+    }
+
+    /**
+     * Shortens a URL into a link that expires at {@code expiresAt} (null for never).
+     * Expiring links always get a fresh key, even in dedupe mode, so one share's expiry
+     * never cuts off another's link.
+     */
+    public static String shortenUrl(String longUrl, Instant expiresAt) {
+        UrlDeduplicator dedupe = expiresAt == null ? getDeduplicator() : null;
+        if (dedupe != null) {
+            try {
+                String existingKey = dedupe.findExistingKey(longUrl);
+                if (existingKey != null) {
+                    return existingKey;
+                }
+            } catch (SQLException e) {
+                // Not fatal: fall through and create a new key
+                System.err.println("❌ Duplicate check failed for '" + longUrl + "': " + e.getMessage());
+            }
+        }
+
+        int maxAttempts = 1 + Math.max(0, AppConfig.get().getInt("keys.maxRetries", 5));
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            String shortKey = null;
+            try {
+                long start = Metrics.start();
+                shortKey = getKeyAllocator().nextKey();
+                Metrics.record(Metrics.KEY_GENERATION, start);
+                insertUrl(shortKey, longUrl, toMillis(expiresAt), getKeyAllocator().isCollisionFree());
+                return shortKey;
+            } catch (SQLException e) {
+                if (!isDuplicateKey(e) || getKeyAllocator().isCollisionFree()) {
+                    Metrics.count(Metrics.SAVE_ERRORS);
+                    System.err.println(shortKey == null
+                        ? "❌ Key allocation failed: " + e.getMessage()
+                        : "❌ Database save failed for key '" + shortKey + "': " + e.getMessage());
+                    return null;
+                }
+                // Key collision: loop round and try a fresh key
+                Metrics.count(Metrics.KEY_COLLISIONS);
+            }
+        }
+        Metrics.count(Metrics.SAVE_ERRORS);
+        System.err.println("❌ Could not find a free key after " + maxAttempts + " attempts.");
+        return null;
+    }
+
+    /**
+     * Shortens a stream of URLs with JDBC batch inserts, committing once per batch.
+     * Each saved pair is written to {@code out} as "key&lt;TAB&gt;url" after its batch commits.
+     * Only one batch is held in memory at a time, so memory use doesn't depend on the input size.
+     * Rows whose key turns out to be taken are given a fresh key and retried (up to keys.maxRetries rounds).
+     * Imported links are not pushed into the lookup cache, so a large import doesn't evict hot keys.
+     * @param longUrls URLs to shorten; blank lines are skipped. Validation is up to the caller.
+     * @param out Receives the key-to-URL mapping.
+     * @param batchSize Rows per batch insert and per transaction.
+     * @return Counts and throughput for the run.
+     * @throws SQLException on a database error other than a key collision. Earlier batches stay committed.
+     */
+    public static BulkImportResult bulkImport(Stream<String> longUrls, Writer out, int batchSize)
+            throws SQLException, IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        int maxRetries = Math.max(0, AppConfig.get().getInt("keys.maxRetries", 5));
+        long progressEvery = AppConfig.get().getLong("bulk.progressEvery", 100_000);
+        KeyAllocator allocator = getKeyAllocator();
+
+        String[] urls = new String[batchSize];
+        String[] keys = new String[batchSize];
+        int[] pending = new int[batchSize];
+        long[] counters = new long[3]; // imported, failed, collision retries
+        long skipped = 0;
+        long nextProgress = progressEvery;
+        long start = System.nanoTime();
+
+        ShardRouter router = getShards();
+        ShardBatch[] shardBatches = new ShardBatch[router.shardCount()];
+        try {
+            for (int i = 0; i < shardBatches.length; i++) {
+                shardBatches[i] = new ShardBatch(router.pool(i), getSchema(), batchSize);
+            }
+
+            Iterator<String> it = longUrls.iterator();
+            int n = 0;
+            while (it.hasNext()) {
+                String url = it.next();
+                if (url == null || (url = url.trim()).isEmpty()) {
+                    skipped++;
+                    continue;
+                }
+                urls[n++] = url;
+                if (n == batchSize) {
+                    writeBatch(shardBatches, router, allocator, urls, keys, pending, n, maxRetries, out, counters);
+                    n = 0;
+                    if (progressEvery > 0 && counters[0] >= nextProgress) {
+                        nextProgress += progressEvery;
+                        long elapsed = System.nanoTime() - start;
+                        System.out.printf("   ... %d rows imported (%.0f rows/sec)%n", counters[0], counters[0] * 1e9 / elapsed);
+                    }
+                }
+            }
+            if (n > 0) {
+                writeBatch(shardBatches, router, allocator, urls, keys, pending, n, maxRetries, out, counters);
+            }
+            for (ShardBatch shard : shardBatches) {
+                shard.pc.getConnection().setAutoCommit(true);
+            }
+        } finally {
+            for (ShardBatch shard : shardBatches) {
+                if (shard != null) {
+                    shard.pc.close();
+                }
+            }
+        }
+        out.flush();
+        return new BulkImportResult(counters[0], skipped, counters[1], counters[2], System.nanoTime() - start);
+    }
+
+    /**
+     * One shard's connection, insert statement and the batch rows routed to it in the current round.
+     */
+    private static final class ShardBatch {
+        final ConnectionPool pool;
+        final UrlSchema layout;
+        final ConnectionPool.PooledConnection pc;
+        final PreparedStatement pstmt;
+        final int[] rows;
+        int size;
+
+        ShardBatch(ConnectionPool pool, UrlSchema layout, int batchSize) throws SQLException {
+            this.pool = pool;
+            this.layout = layout;
+            this.pc = pool.acquire();
+            pc.getConnection().setAutoCommit(false);
+            this.pstmt = pc.prepare(layout.insertSql);
+            this.rows = new int[batchSize];
+        }
+
+        void add(int row, String shortKey, String longUrl) throws SQLException {
+            rows[size++] = row;
+            int next = layout.bindLink(pool, pstmt, 1, shortKey, longUrl);
+            pstmt.setTimestamp(next, null);
+            pstmt.addBatch();
+        }
+    }
+
+    /**
+     * Inserts and commits one batch, split by shard. Rows rejected for a duplicate key are
+     * re-keyed (which may route them to another shard) and re-batched until they all succeed
+     * or the retry rounds run out. Each shard commits separately.
+     */
+    private static void writeBatch(ShardBatch[] shardBatches, ShardRouter router, KeyAllocator allocator,
+                                   String[] urls, String[] keys, int[] pending, int n, int maxRetries,
+                                   Writer out, long[] counters) throws SQLException, IOException {
+        int pendingCount = n;
+        for (int i = 0; i < n; i++) {
+            pending[i] = i;
+        }
+
+        for (int round = 0; pendingCount > 0; round++) {
+            if (round > maxRetries) {
+                for (int j = 0; j < pendingCount; j++) {
+                    keys[pending[j]] = null;
+                }
+                counters[1] += pendingCount;
+                break;
+            }
+            for (int j = 0; j < pendingCount; j++) {
+                int row = pending[j];
+                keys[row] = allocator.nextKey();
+                shardBatches[router.shardOf(keys[row])].add(row, keys[row], urls[row]);
+            }
+            int kept = 0;
+            for (ShardBatch shard : shardBatches) {
+                if (shard.size == 0) {
+                    continue;
+                }
+                try {
+                    shard.pstmt.executeBatch();
+                } catch (BatchUpdateException e) {
+                    if (!onlyDuplicateKeys(e)) {
+                        for (ShardBatch s : shardBatches) {
+                            s.size = 0;
+                            s.pstmt.clearBatch();
+                            s.pc.getConnection().rollback();
+                        }
+                        throw e;
+                    }
+                    // Keep only the rows that failed; the rest are already part of this shard's transaction
+                    int[] counts = e.getUpdateCounts();
+                    for (int j = 0; j < shard.size; j++) {
+                        if (j >= counts.length || counts[j] == Statement.EXECUTE_FAILED) {
+                            pending[kept++] = shard.rows[j];
+                        }
+                    }
+                    shard.pstmt.clearBatch();
+                }
+                shard.size = 0;
+            }
+            counters[2] += kept;
+            if (kept > 0 && Metrics.isEnabled()) {
+                Metrics.KEY_COLLISIONS.add(kept);
+            }
+            pendingCount = kept;
+        }
+        for (ShardBatch shard : shardBatches) {
+            shard.pc.getConnection().commit();
+        }
+
+        UrlDeduplicator dedupe = deduplicator;
+        ReadReplicas readers = replicas;
+        for (int i = 0; i < n; i++) {
+            if (keys[i] != null) {
+                if (dedupe != null) {
+                    dedupe.remember(urls[i]);
+                }
+                if (readers != null) {
+                    readers.recordWrite(keys[i]);
+                }
+                out.write(keys[i]);
+                out.write('\t');
+                out.write(urls[i]);
+                out.write('\n');
+                counters[0]++;
+            }
+        }
+    }
+
+    private static boolean onlyDuplicateKeys(BatchUpdateException e) {
+        SQLException next = e.getNextException();
+        if (next == null) {
+            return isDuplicateKey(e);
+        }
+        for (; next != null; next = next.getNextException()) {
+            if (!isDuplicateKey(next)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Stores one link, either synchronously or through the write-behind queue.
+     * Expiring links are always written synchronously; the write-behind queue only carries permanent ones.
+     * @param expiresAtMillis Expiry as epoch millis, or 0 for never.
+     * @param keyKnownFree true when the key came from a collision-free allocator, which lets
+     *                     write-behind mode skip the "is this key taken?" check.
+     */
+    private static void insertUrl(String shortKey, String longUrl, long expiresAtMillis, boolean keyKnownFree) throws SQLException {
+        long start = Metrics.start();
+        try {
+            storeUrl(shortKey, longUrl, expiresAtMillis, keyKnownFree);
+        } finally {
+            Metrics.record(Metrics.SAVE, start);
+        }
+    }
+
+    private static void storeUrl(String shortKey, String longUrl, long expiresAtMillis, boolean keyKnownFree) throws SQLException {
+        getSchema().checkKey(shortKey);
+        WriteBehindQueue queue = expiresAtMillis == 0 ? getWriteBehind() : null;
+        if (queue != null) {
+            // The insert happens later, so a taken key has to be caught now
+            if (!keyKnownFree && ((cache != null && cache.getIfPresent(shortKey) != null) || loadLink(shortKey) != null)) {
+                throw new SQLException("Key '" + shortKey + "' already exists", DUPLICATE_KEY_SQLSTATE);
+            }
+            queue.enqueue(shortKey, longUrl);
+            if (cache != null) {
+                cache.put(shortKey, longUrl);
+            }
+            if (deduplicator != null) {
+                deduplicator.remember(longUrl);
+            }
+            return;
+        }
+        insertNow(shortKey, longUrl, expiresAtMillis);
+    }
+
+    /**
+     * Inserts one link into its shard; a taken key fails with the duplicate key SQLState.
+     */
+    private static void insertNow(String shortKey, String longUrl, long expiresAtMillis) throws SQLException {
+        ConnectionPool shard = poolFor(shortKey);
+        try (ConnectionPool.PooledConnection pc = shard.acquire()) {
+            UrlSchema layout = getSchema();
+            PreparedStatement pstmt = pc.prepare(layout.insertSql);
+
+            int next = layout.bindLink(shard, pstmt, 1, shortKey, longUrl);
+            pstmt.setTimestamp(next, expiresAtMillis == 0 ? null : new Timestamp(expiresAtMillis));
+
+            int affectedRows = pstmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new SQLException("Insert affected no rows");
+            }
+            ReadReplicas readers = replicas;
+            if (readers != null) {
+                readers.recordWrite(shortKey);
+            }
+            if (cache != null) {
+                cache.put(shortKey, longUrl, expiresAtMillis);
+            }
+            if (deduplicator != null) {
+                deduplicator.remember(longUrl);
+            }
+        }
+    }
+
+    /**
+     * Returns the write-behind queue when writeBehind.enabled is set, creating it on first use; otherwise null.
+     */
+    public static WriteBehindQueue getWriteBehind() {
+        WriteBehindQueue queue = writeBehind;
+        if (queue == null && AppConfig.get().getBoolean("writeBehind.enabled", false)) {
+            synchronized (DatabaseManager.class) {
+                queue = writeBehind;
+                if (queue == null) {
+                    UrlSchema layout = getSchema();
+                    WriteBehindQueue.Binder binder = (shard, pstmt, shortKey, longUrl) -> {
+                        pstmt.setTimestamp(layout.bindLink(shard, pstmt, 1, shortKey, longUrl), null);
+                        // Recorded just before the batch commits; db.replicas.readYourWritesMillis covers the gap
+                        ReadReplicas readers = replicas;
+                        if (readers != null) {
+                            readers.recordWrite(shortKey);
+                        }
+                    };
+                    queue = WriteBehindQueue.fromConfig(AppConfig.get(), getShards()::poolFor, layout.insertSql, binder, shortKey -> {
+                        if (cache != null) {
+                            cache.invalidate(shortKey);
+                        }
+                    });
+                    writeBehind = queue;
+                }
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Returns the deduplicator when dedupe.enabled is set, creating and seeding it on first use; otherwise null.
+     */
+    public static UrlDeduplicator getDeduplicator() {
+        UrlDeduplicator dedupe = deduplicator;
+        if (dedupe == null && AppConfig.get().getBoolean("dedupe.enabled", false)) {
+            synchronized (DatabaseManager.class) {
+                dedupe = deduplicator;
+                if (dedupe == null) {
+                    try {
+                        dedupe = UrlDeduplicator.fromConfig(AppConfig.get(), getShards().pools(), getSchema());
+                        deduplicator = dedupe;
+                    } catch (SQLException e) {
+                        System.err.println("❌ Could not load URL hashes for dedupe: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return dedupe;
+    }
+
+    static boolean isDuplicateKey(SQLException e) {
+        return DUPLICATE_KEY_SQLSTATE.equals(e.getSQLState());
+    }
+
+    /**
+     * Returns the allocator selected by keys.strategy, creating it on first use.
+     */
+    public static KeyAllocator getKeyAllocator() {
+        KeyAllocator allocator = keyAllocator;
+        if (allocator == null) {
+            synchronized (DatabaseManager.class) {
+                allocator = keyAllocator;
+                if (allocator == null) {
+                    allocator = KeyAllocator.fromConfig(AppConfig.get(), getPool());
+                    keyAllocator = allocator;
+                }
+            }
+        }
+        return allocator;
+    }
+
+    /**
+     * Returns the click tracker when analytics.enabled is set, creating it on first use; otherwise null.
+     */
+    public static ClickTracker getClickTracker() {
+        ClickTracker tracker = clickTracker;
+        if (tracker == null && isAnalyticsEnabled()) {
+            synchronized (DatabaseManager.class) {
+                tracker = clickTracker;
+                if (tracker == null) {
+                    try {
+                        tracker = ClickTracker.fromConfig(AppConfig.get(), getPool());
+                        clickTracker = tracker;
+                    } catch (SQLException e) {
+                        System.err.println("❌ Could not start click analytics: " + e.getMessage());
+                    }
+                }
+            }
+        }
+        return tracker;
+    }
+
+    private static boolean isAnalyticsEnabled() {
+        Boolean enabled = analyticsEnabled;
+        if (enabled == null) {
+            enabled = AppConfig.get().getBoolean("analytics.enabled", false);
+            analyticsEnabled = enabled;
+        }
+        return enabled;
+    }
+
     /**
      * PR 6 Feature: Retrieves the original long URL associated with a short key.
+     * Expired links are reported as not found, even before the purger deletes them.
+     * With analytics.enabled, every successful lookup is counted as a click.
      * @param shortKey The key to look up.
      * @return The original long URL, or null if the key is not found.
      */
     public static String findLongUrl(String shortKey) {
-        try (Connection conn = getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(SELECT_URL_SQL)) {
+        long start = Metrics.start();
+        String longUrl = resolve(shortKey);
+        Metrics.record(Metrics.LOOKUP, start);
+        if (longUrl != null) {
+            ClickTracker tracker = getClickTracker();
+            if (tracker != null) {
+                tracker.record(shortKey);
+            }
+        } else {
+            Metrics.count(Metrics.LOOKUP_NOT_FOUND);
+        }
+        return longUrl;
+    }
+
+    private static String resolve(String shortKey) {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            String pendingUrl = queue.get(shortKey);
+            if (pendingUrl != null) {
+                return pendingUrl;
+            }
+        }
+        MappedUrlIndex index = urlIndex;
+        if (index != null) {
+            String indexedUrl = index.get(shortKey);
+            if (indexedUrl != null) {
+                return indexedUrl;
+            }
+            // A pure redirect node trusts the index alone and never falls through to H2,
+            // except for keys too long to have been indexed (long custom aliases)
+            if (indexAuthoritative && shortKey.length() <= index.getKeyWidth()) {
+                return null;
+            }
+        }
+        try {
+            if (cache != null) {
+                return cache.getWithExpiry(shortKey, DatabaseManager::readLink);
+            }
+            UrlCache.Loaded link = readLink(shortKey);
+            return link == null || isExpired(link.expiresAtMillis) ? null : link.value;
+        } catch (SQLException e) {
+            Metrics.count(Metrics.LOOKUP_ERRORS);
+            System.err.println("❌ Database lookup failed for key '" + shortKey + "': " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Resolves a key without the cache, metrics or click counting, for warming up the lookup path.
+     * @return The long URL, or null if the key is unknown, expired or the lookup failed.
+     */
+    static String lookupUncached(String shortKey) {
+        try {
+            UrlCache.Loaded link = readLink(shortKey);
+            return link == null || isExpired(link.expiresAtMillis) ? null : link.value;
+        } catch (SQLException e) {
+            return null;
+        }
+    }
 
-            pstmt.setString(1, shortKey); 
+    /**
+     * Reads a key for a lookup: from a healthy read replica when db.replicas is set, otherwise
+     * like loadLink. A replica miss for a key this process wrote recently, and a replica error,
+     * are answered by the primary.
+     */
+    private static UrlCache.Loaded readLink(String shortKey) throws SQLException {
+        ReadReplicas readers = replicas;
+        ConnectionPool replica = readers == null ? null : readers.route(shortKey);
+        if (replica != null) {
+            try {
+                UrlCache.Loaded link = loadLink(replica, shortKey);
+                if (link != null || !readers.missNeedsPrimary(shortKey)) {
+                    return link;
+                }
+            } catch (SQLException e) {
+                readers.reportFailure(replica, e);
+            }
+        }
+        return loadLink(shortKey);
+    }
+
+    /**
+     * Reads a key straight from its primary database, bypassing the cache.
+     * Expired rows that have not been purged yet are returned too; callers check the expiry.
+     */
+    private static UrlCache.Loaded loadLink(String shortKey) throws SQLException {
+        return loadLink(poolFor(shortKey), shortKey);
+    }
+
+    private static UrlCache.Loaded loadLink(ConnectionPool database, String shortKey) throws SQLException {
+        try (ConnectionPool.PooledConnection pc = database.acquire()) {
+            UrlSchema layout = getSchema();
+            PreparedStatement pstmt = pc.prepare(layout.selectUrlSql);
+
+            if (!layout.setKey(pstmt, 1, shortKey)) {
+                return null;
+            }
 
             try (ResultSet rs = pstmt.executeQuery()) {
                 
                 if (rs.next()) {
-                    // Get the 'long_url' value from the result row
-                    return rs.getString("long_url");
+                    // The long URL, then expires_at
+                    return new UrlCache.Loaded(layout.readUrl(pc.getConnection(), rs, 2),
+                        toMillis(rs.getTimestamp(layout.selectWidth + 1)));
                 }
             }
             
             // If the key wasn't found, return null
             return null;
+        }
+    }
 
-        } catch (SQLException e) {
-            System.err.println("❌ Database lookup failed for key '" + shortKey + "': " + e.getMessage());
-            return null;
+    private static boolean isExpired(long expiresAtMillis) {
+        return expiresAtMillis != 0 && expiresAtMillis <= System.currentTimeMillis();
+    }
+
+    private static long toMillis(Timestamp expiresAt) {
+        return expiresAt == null ? 0 : expiresAt.getTime();
+    }
+
+    private static long toMillis(Instant expiresAt) {
+        return expiresAt == null ? 0 : expiresAt.toEpochMilli();
+    }
+
+    /**
+     * Returns the expired-link purger when purge.enabled is set and the schema has been initialized; otherwise null.
+     */
+    public static ExpiredLinkPurger getExpiryPurger() {
+        return expiryPurger;
+    }
+
+    /**
+     * Returns the read replicas when db.replicas is set and the schema has been initialized; otherwise null.
+     */
+    public static ReadReplicas getReplicas() {
+        return replicas;
+    }
+
+    /**
+     * Returns the lookup cache for inspecting hit/miss/eviction counters, or null if disabled.
+     */
+    public static UrlCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Drops every cached lookup. Needed after changing the urls table behind DatabaseManager's back.
+     */
+    public static void clearCache() {
+        if (cache != null) {
+            cache.clear();
         }
     }
 
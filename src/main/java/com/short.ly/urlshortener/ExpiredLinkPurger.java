@@ -0,0 +1,189 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes expired links in the background.
+ *
+ * Each run deletes rows whose expires_at has passed in small batches, walking the
+ * expires_at index, with every batch in its own short transaction and a pause between
+ * batches. Lookups never wait behind a large delete, and a big backlog is worked off
+ * over several runs instead of in one long one. Expired links are already treated as
+ * missing by findLongUrl, so purging only reclaims space.
+ */
+public class ExpiredLinkPurger implements AutoCloseable {
+
+    private static final String DELETE_EXPIRED_SQL =
+        "DELETE FROM urls WHERE expires_at <= ? FETCH FIRST ? ROWS ONLY";
+
+    private static final String COUNT_EXPIRED_SQL =
+        "SELECT COUNT(*) FROM urls WHERE expires_at <= ?";
+
+    private final List<ConnectionPool> pools;
+    private final int batchSize;
+    private final long pauseMillis;
+    private final int maxBatchesPerRun;
+    private final ScheduledExecutorService scheduler;
+
+    // Metrics
+    private final LongAdder purged = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder purgeNanos = new LongAdder();
+    private volatile double lastRunRowsPerSecond;
+
+    /**
+     * @param intervalSeconds Delay between runs; 0 means only when {@link #purge()} is called.
+     * @param batchSize Rows deleted per transaction.
+     * @param pauseMillis Pause between batches so lookups get the database in between.
+     * @param maxBatchesPerRun Upper bound on the work done in one run.
+     */
+    public ExpiredLinkPurger(ConnectionPool pool, long intervalSeconds, int batchSize, long pauseMillis, int maxBatchesPerRun) {
+        this(List.of(pool), intervalSeconds, batchSize, pauseMillis, maxBatchesPerRun);
+    }
+
+    /**
+     * Purges every shard in turn; the per-run limits apply to each shard.
+     */
+    public ExpiredLinkPurger(List<ConnectionPool> pools, long intervalSeconds, int batchSize, long pauseMillis, int maxBatchesPerRun) {
+        if (batchSize < 1 || maxBatchesPerRun < 1) {
+            throw new IllegalArgumentException("batchSize and maxBatchesPerRun must be positive");
+        }
+        this.pools = pools;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+
+        if (intervalSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "expiry-purge");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleWithFixedDelay(this::purgeQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Builds a purger from the purge.* settings.
+     */
+    public static ExpiredLinkPurger fromConfig(AppConfig config, List<ConnectionPool> pools) {
+        return new ExpiredLinkPurger(pools,
+            config.getLong("purge.intervalSeconds", 60),
+            config.getInt("purge.batchSize", 500),
+            config.getLong("purge.pauseMillis", 10),
+            config.getInt("purge.maxBatchesPerRun", 100));
+    }
+
+    /**
+     * Runs one purge pass: deletes batches until none is full or maxBatchesPerRun is reached.
+     * @return The number of links deleted.
+     */
+    public synchronized long purge() throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long start = System.nanoTime();
+        long deleted = 0;
+        for (ConnectionPool pool : pools) {
+            deleted += purgeShard(pool, now);
+        }
+        long elapsed = System.nanoTime() - start;
+        runs.increment();
+        purged.add(deleted);
+        purgeNanos.add(elapsed);
+        lastRunRowsPerSecond = elapsed == 0 ? 0.0 : deleted * 1e9 / elapsed;
+        return deleted;
+    }
+
+    private long purgeShard(ConnectionPool pool, Timestamp now) throws SQLException {
+        long deleted = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int n;
+            try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+                PreparedStatement pstmt = pc.prepare(DELETE_EXPIRED_SQL);
+                pstmt.setTimestamp(1, now);
+                pstmt.setInt(2, batchSize);
+                n = pstmt.executeUpdate();
+            }
+            deleted += n;
+            batches.increment();
+            if (n < batchSize) {
+                break;
+            }
+            if (pauseMillis > 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private void purgeQuietly() {
+        try {
+            long deleted = purge();
+            if (deleted > 0) {
+                System.out.printf("✅ Purge status: %d expired links deleted (%.0f rows/sec).%n", deleted, lastRunRowsPerSecond);
+            }
+        } catch (SQLException e) {
+            System.err.println("❌ Expired link purge failed, will retry: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Counts links that have expired but are not deleted yet. Uses the expires_at index.
+     */
+    public long getBacklog() throws SQLException {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        long backlog = 0;
+        for (ConnectionPool pool : pools) {
+            try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+                PreparedStatement pstmt = pc.prepare(COUNT_EXPIRED_SQL);
+                pstmt.setTimestamp(1, now);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    backlog += rs.getLong(1);
+                }
+            }
+        }
+        return backlog;
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    public long getPurgedCount() { return purged.sum(); }
+    public long getBatchCount() { return batches.sum(); }
+    public long getRunCount() { return runs.sum(); }
+    public double getLastRunRowsPerSecond() { return lastRunRowsPerSecond; }
+
+    /**
+     * Average delete rate over all runs, pauses included.
+     */
+    public double getPurgeRate() {
+        long nanos = purgeNanos.sum();
+        return nanos == 0 ? 0.0 : purged.sum() * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("purge[purged=%d, runs=%d, batches=%d, rate=%.0f rows/sec, lastRun=%.0f rows/sec]",
+            getPurgedCount(), getRunCount(), getBatchCount(), getPurgeRate(), getLastRunRowsPerSecond());
+    }
+}
@@ -0,0 +1,631 @@
+package com.yourcompany.urlshortener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process link store for nodes that run without a database (store.engine=memory).
+ *
+ * Keys are packed into a long (KeyGenerator.pack) and kept in open-addressing tables split
+ * into store.memory.stripes segments. Lookups take no lock and allocate nothing: a slot's URL
+ * and expiry are written before its key is published, so a reader that sees the key also sees
+ * the rest. A write locks only its segment. Keys that don't pack (not base62, or longer than
+ * 10 characters) live in a ConcurrentHashMap on the side.
+ *
+ * With store.memory.dir set, each save is appended to append.log before it becomes visible,
+ * and the log is flushed every store.memory.logFlushMs, which bounds what a crash can lose.
+ * Every store.memory.snapshotSeconds, and on close, the live links are written to snapshot.bin
+ * and the logs it covers are deleted. Startup loads the snapshot and replays the logs.
+ * Keys are always random (keys.length, keys.maxRetries); there is no dedupe or click tracking.
+ */
+public class InMemoryUrlStore implements UrlStore {
+
+    private static final VarHandle KEYS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private static final long EMPTY = 0; // KeyGenerator.pack never returns 0
+
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String LOG_FILE = "append.log";
+    private static final String ROTATED_LOG_GLOB = "append-*.log";
+    private static final int SNAPSHOT_MAGIC = 0x55524C53;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final Map<String, Link> unpacked = new ConcurrentHashMap<>();
+    private final RandomKeyAllocator keyAllocator;
+    private final int maxRetries;
+
+    // Persistence; dir is null for a purely in-memory store
+    private final Path dir;
+    private final long logFlushMillis;
+    private final long snapshotSeconds;
+    private final Object logLock = new Object();
+    private DataOutputStream log;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * A store without persistence.
+     */
+    public InMemoryUrlStore(int initialCapacity, int stripes) {
+        this(initialCapacity, stripes, 6, 5, null, 0, 0);
+    }
+
+    /**
+     * @param initialCapacity Expected number of links; tables grow past it as needed.
+     * @param stripes Number of independently locked segments (rounded up to a power of two).
+     * @param dir Directory for the snapshot and append log, or null for none.
+     * @param logFlushMillis How often the append log is flushed; 0 flushes on every save.
+     * @param snapshotSeconds Delay between snapshots; 0 means only on close and {@link #snapshot()}.
+     */
+    public InMemoryUrlStore(int initialCapacity, int stripes, int keyLength, int maxRetries,
+                            Path dir, long logFlushMillis, long snapshotSeconds) {
+        if (initialCapacity < 0 || stripes < 1) {
+            throw new IllegalArgumentException("Invalid store size: capacity=" + initialCapacity + ", stripes=" + stripes);
+        }
+        int segmentCount = Integer.highestOneBit(Math.min(stripes, 1 << 16) * 2 - 1);
+        int perSegment = Math.max(16, Integer.highestOneBit(Math.max(1, initialCapacity / segmentCount * 4 / 3) * 2 - 1));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.segmentMask = segmentCount - 1;
+        this.keyAllocator = new RandomKeyAllocator(keyLength);
+        this.maxRetries = Math.max(0, maxRetries);
+        this.dir = dir;
+        this.logFlushMillis = logFlushMillis;
+        this.snapshotSeconds = snapshotSeconds;
+    }
+
+    /**
+     * Builds a store from the store.memory.* and keys.* settings.
+     */
+    public static InMemoryUrlStore fromConfig(AppConfig config) {
+        String dir = config.getString("store.memory.dir", "");
+        return new InMemoryUrlStore(
+            config.getInt("store.memory.initialCapacity", 65536),
+            config.getInt("store.memory.stripes", 16),
+            config.getInt("keys.length", 6),
+            config.getInt("keys.maxRetries", 5),
+            dir == null || dir.isBlank() ? null : Paths.get(dir),
+            config.getLong("store.memory.logFlushMs", 100),
+            config.getLong("store.memory.snapshotSeconds", 300));
+    }
+
+    /**
+     * Loads the snapshot and replays the append logs, then starts logging new saves.
+     */
+    @Override
+    public boolean initialize() {
+        if (dir == null) {
+            return true;
+        }
+        synchronized (logLock) {
+            if (log != null) {
+                return true;
+            }
+            try {
+                long start = System.nanoTime();
+                Files.createDirectories(dir);
+                long loaded = 0;
+                Path snapshot = dir.resolve(SNAPSHOT_FILE);
+                if (Files.exists(snapshot)) {
+                    loaded += load(snapshot, true);
+                }
+                for (Path rotated : rotatedLogs()) {
+                    loaded += load(rotated, false);
+                }
+                Path current = dir.resolve(LOG_FILE);
+                if (Files.exists(current)) {
+                    loaded += load(current, false);
+                }
+                log = openLog();
+                System.out.printf("✅ Store status: %d links loaded from %s in %d ms.%n",
+                    loaded, dir, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException e) {
+                System.err.println("❌ Could not load the in-memory store from " + dir + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        if (logFlushMillis > 0 || snapshotSeconds > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "memstore-persist");
+                t.setDaemon(true);
+                return t;
+            });
+            if (logFlushMillis > 0) {
+                scheduler.scheduleWithFixedDelay(this::flushLogQuietly, logFlushMillis, logFlushMillis, TimeUnit.MILLISECONDS);
+            }
+            if (snapshotSeconds > 0) {
+                scheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotSeconds, snapshotSeconds, TimeUnit.SECONDS);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean save(String shortKey, String longUrl, Instant expiresAt) {
+        long start = Metrics.start();
+        try {
+            return insert(shortKey, longUrl, expiresAt == null ? 0 : expiresAt.toEpochMilli(), true);
+        } catch (IOException e) {
+            Metrics.count(Metrics.SAVE_ERRORS);
+            System.err.println("❌ Store save failed for key '" + shortKey + "': " + e.getMessage());
+            return false;
+        } finally {
+            Metrics.record(Metrics.SAVE, start);
+        }
+    }
+
+    @Override
+    public Aliases.Result claim(String namespace, String alias, String longUrl, Instant expiresAt) {
+        String shortKey = Aliases.qualify(namespace, alias);
+        if (shortKey == null) {
+            return Aliases.Result.INVALID;
+        }
+        long start = Metrics.start();
+        try {
+            return insert(shortKey, longUrl, expiresAt == null ? 0 : expiresAt.toEpochMilli(), true)
+                ? Aliases.Result.CLAIMED : Aliases.Result.TAKEN;
+        } catch (IOException e) {
+            Metrics.count(Metrics.SAVE_ERRORS);
+            System.err.println("❌ Store save failed for alias '" + shortKey + "': " + e.getMessage());
+            return Aliases.Result.FAILED;
+        } finally {
+            Metrics.record(Metrics.SAVE, start);
+        }
+    }
+
+    @Override
+    public String shorten(String longUrl, Instant expiresAt) {
+        long expiresAtMillis = expiresAt == null ? 0 : expiresAt.toEpochMilli();
+        for (int attempt = 0; attempt <= maxRetries; attempt++) {
+            long start = Metrics.start();
+            String shortKey = keyAllocator.nextKey();
+            Metrics.record(Metrics.KEY_GENERATION, start);
+
+            start = Metrics.start();
+            try {
+                if (insert(shortKey, longUrl, expiresAtMillis, true)) {
+                    return shortKey;
+                }
+                Metrics.count(Metrics.KEY_COLLISIONS);
+            } catch (IOException e) {
+                Metrics.count(Metrics.SAVE_ERRORS);
+                System.err.println("❌ Store save failed for key '" + shortKey + "': " + e.getMessage());
+                return null;
+            } finally {
+                Metrics.record(Metrics.SAVE, start);
+            }
+        }
+        Metrics.count(Metrics.SAVE_ERRORS);
+        System.err.println("❌ Could not find a free key after " + (maxRetries + 1) + " attempts.");
+        return null;
+    }
+
+    @Override
+    public String find(String shortKey) {
+        long start = Metrics.start();
+        String longUrl = lookup(shortKey);
+        Metrics.record(Metrics.LOOKUP, start);
+        if (longUrl == null) {
+            Metrics.count(Metrics.LOOKUP_NOT_FOUND);
+        }
+        return longUrl;
+    }
+
+    private String lookup(String shortKey) {
+        long packed = KeyGenerator.pack(shortKey);
+        if (packed < 0) {
+            Link link = unpacked.get(shortKey);
+            return link == null || isExpired(link.expiresAt) ? null : link.url;
+        }
+        long h = mix(packed);
+        Table t = segments[(int) (h >>> 32) & segmentMask].table;
+        int mask = t.keys.length - 1;
+        for (int i = (int) h & mask; ; i = (i + 1) & mask) {
+            long k = (long) KEYS.getAcquire(t.keys, i);
+            if (k == packed) {
+                return isExpired(t.expires[i]) ? null : t.urls[i];
+            }
+            if (k == EMPTY) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Adds a link unless the key is taken (expired links still hold their key).
+     * @param logged Whether to append the link to the log first (false while replaying).
+     */
+    private boolean insert(String shortKey, String longUrl, long expiresAtMillis, boolean logged) throws IOException {
+        long packed = KeyGenerator.pack(shortKey);
+        if (packed < 0) {
+            synchronized (unpacked) {
+                if (unpacked.containsKey(shortKey)) {
+                    return false;
+                }
+                if (logged) {
+                    append(shortKey, longUrl, expiresAtMillis);
+                }
+                unpacked.put(shortKey, new Link(longUrl, expiresAtMillis));
+                return true;
+            }
+        }
+
+        long h = mix(packed);
+        Segment seg = segments[(int) (h >>> 32) & segmentMask];
+        seg.lock.lock();
+        try {
+            Table t = seg.table;
+            if (seg.size + 1 > t.keys.length / 4 * 3) {
+                t = t.grow();
+                seg.table = t;
+            }
+            int mask = t.keys.length - 1;
+            int i = (int) h & mask;
+            for (long k; (k = t.keys[i]) != EMPTY; i = (i + 1) & mask) {
+                if (k == packed) {
+                    return false;
+                }
+            }
+            // Logged while holding the segment lock, so the log never holds two links for one key
+            if (logged) {
+                append(shortKey, longUrl, expiresAtMillis);
+            }
+            t.publish(i, packed, longUrl, expiresAtMillis);
+            seg.size++;
+            return true;
+        } finally {
+            seg.lock.unlock();
+        }
+    }
+
+    private static boolean isExpired(long expiresAtMillis) {
+        return expiresAtMillis != 0 && expiresAtMillis <= System.currentTimeMillis();
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Number of stored links, expired ones included.
+     */
+    public long size() {
+        long size = unpacked.size();
+        for (Segment seg : segments) {
+            size += seg.size;
+        }
+        return size;
+    }
+
+    // ----------------------------------------------------------------------
+    // Persistence
+    // ----------------------------------------------------------------------
+
+    private DataOutputStream openLog() throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dir.resolve(LOG_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.APPEND), 1 << 16));
+    }
+
+    private List<Path> rotatedLogs() throws IOException {
+        List<Path> logs = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, ROTATED_LOG_GLOB)) {
+            files.forEach(logs::add);
+        }
+        return logs;
+    }
+
+    private void append(String shortKey, String longUrl, long expiresAtMillis) throws IOException {
+        if (dir == null) {
+            return;
+        }
+        synchronized (logLock) {
+            if (log == null) {
+                throw new IOException("The store is not open");
+            }
+            writeRecord(log, shortKey, longUrl, expiresAtMillis);
+            if (logFlushMillis == 0) {
+                log.flush();
+            }
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, String shortKey, String longUrl, long expiresAtMillis)
+            throws IOException {
+        out.writeUTF(shortKey);
+        out.writeUTF(longUrl);
+        out.writeLong(expiresAtMillis);
+    }
+
+    /**
+     * Reads a snapshot or log into the tables. A record cut short by a crash ends the file;
+     * in a log it is cut off, so records appended after this start don't follow a torn one.
+     */
+    private long load(Path file, boolean snapshot) throws IOException {
+        long loaded = 0;
+        long complete;
+        boolean torn = false;
+        CountingInputStream counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        try (DataInputStream in = new DataInputStream(counter)) {
+            if (snapshot && in.readInt() != SNAPSHOT_MAGIC) {
+                throw new IOException(file + " is not a store snapshot");
+            }
+            while (true) {
+                complete = counter.count;
+                String shortKey;
+                String longUrl;
+                long expiresAtMillis;
+                try {
+                    shortKey = in.readUTF();
+                    longUrl = in.readUTF();
+                    expiresAtMillis = in.readLong();
+                } catch (EOFException e) {
+                    torn = counter.count > complete;
+                    break;
+                }
+                if (!isExpired(expiresAtMillis) && insert(shortKey, longUrl, expiresAtMillis, false)) {
+                    loaded++;
+                }
+            }
+        }
+        if (torn && !snapshot) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(complete);
+            }
+            System.err.println("❗ Dropped an incomplete record at the end of " + file + " (left by a crash).");
+        }
+        return loaded;
+    }
+
+    /**
+     * Counts the bytes read through it. DataInputStream never reads ahead, so this is the
+     * number of bytes it has consumed.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+
+    /**
+     * Writes all live links to the snapshot file and deletes the append logs it makes redundant.
+     * Saves carry on while it runs; they go to a fresh log.
+     * @return The number of links written.
+     */
+    public synchronized long snapshot() throws IOException {
+        if (dir == null) {
+            throw new IllegalStateException("store.memory.dir is not set");
+        }
+        List<Path> covered;
+        synchronized (logLock) {
+            if (log == null) {
+                throw new IOException("The store is not open");
+            }
+            log.close();
+            Files.move(dir.resolve(LOG_FILE), Files.createTempFile(dir, "append-", ".log"),
+                StandardCopyOption.REPLACE_EXISTING);
+            log = openLog();
+            covered = rotatedLogs();
+        }
+
+        long start = System.nanoTime();
+        long written = 0;
+        long now = System.currentTimeMillis();
+        Path tmp = dir.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            for (Segment seg : segments) {
+                // A save that went to the rotated log may still be publishing its slot; wait for it
+                seg.lock.lock();
+                seg.lock.unlock();
+                Table t = seg.table;
+                for (int i = 0; i < t.keys.length; i++) {
+                    long k = (long) KEYS.getAcquire(t.keys, i);
+                    long expiresAtMillis = t.expires[i];
+                    if (k != EMPTY && (expiresAtMillis == 0 || expiresAtMillis > now)) {
+                        writeRecord(out, KeyGenerator.unpack(k), t.urls[i], expiresAtMillis);
+                        written++;
+                    }
+                }
+            }
+            synchronized (unpacked) {
+                for (Map.Entry<String, Link> entry : unpacked.entrySet()) {
+                    Link link = entry.getValue();
+                    if (link.expiresAt == 0 || link.expiresAt > now) {
+                        writeRecord(out, entry.getKey(), link.url, link.expiresAt);
+                        written++;
+                    }
+                }
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        for (Path rotated : covered) {
+            Files.deleteIfExists(rotated);
+        }
+        System.out.printf("✅ Store status: snapshot of %d links written in %d ms.%n",
+            written, (System.nanoTime() - start) / 1_000_000);
+        return written;
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException e) {
+            System.err.println("❌ Store snapshot failed, the append log is kept: " + e.getMessage());
+        }
+    }
+
+    private void flushLogQuietly() {
+        synchronized (logLock) {
+            try {
+                if (log != null) {
+                    log.flush();
+                }
+            } catch (IOException e) {
+                System.err.println("❌ Append log flush failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stops background work and, with persistence on, writes a final snapshot.
+     */
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (dir == null) {
+            return;
+        }
+        synchronized (logLock) {
+            if (log == null) {
+                return;
+            }
+        }
+        snapshotQuietly();
+        synchronized (logLock) {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("❌ Could not close the append log: " + e.getMessage());
+            }
+            log = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("memstore[links=%d, segments=%d, persistent=%s]", size(), segments.length, dir != null);
+    }
+
+    /**
+     * One independently locked part of the key space. Readers only read {@link #table}.
+     */
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        volatile Table table;
+        volatile int size;
+
+        Segment(int capacity) {
+            this.table = new Table(capacity);
+        }
+    }
+
+    /**
+     * Open-addressing arrays (linear probing, power-of-two capacity). Slots are filled
+     * once and never change, so a reader only has to see the key to trust the slot.
+     */
+    private static final class Table {
+        final long[] keys;
+        final String[] urls;
+        final long[] expires;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            urls = new String[capacity];
+            expires = new long[capacity];
+        }
+
+        void publish(int i, long packed, String longUrl, long expiresAtMillis) {
+            urls[i] = longUrl;
+            expires[i] = expiresAtMillis;
+            KEYS.setRelease(keys, i, packed);
+        }
+
+        /**
+         * Copies into a table twice the size. The copy is only seen by readers once it is
+         * assigned to the volatile Segment.table, so plain writes are enough here.
+         */
+        Table grow() {
+            Table bigger = new Table(keys.length * 2);
+            int mask = bigger.keys.length - 1;
+            for (int j = 0; j < keys.length; j++) {
+                long k = keys[j];
+                if (k != EMPTY) {
+                    int i = (int) mix(k) & mask;
+                    while (bigger.keys[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    bigger.keys[i] = k;
+                    bigger.urls[i] = urls[j];
+                    bigger.expires[i] = expires[j];
+                }
+            }
+            return bigger;
+        }
+    }
+
+    private static final class Link {
+        final String url;
+        final long expiresAt;
+
+        Link(String url, long expiresAt) {
+            this.url = url;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
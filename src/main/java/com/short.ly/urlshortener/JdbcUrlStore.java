@@ -0,0 +1,69 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+/**
+ * The H2 store: a thin adapter over DatabaseManager, so pooling, caching, sharding,
+ * write-behind, dedupe, analytics and expiry all apply exactly as configured.
+ * DatabaseManager is process-wide, so every instance shares the same database.
+ */
+public class JdbcUrlStore implements UrlStore {
+
+    /**
+     * Opens the pools and creates the schema in one step; there is no separate connection check.
+     */
+    @Override
+    public boolean initialize() {
+        return DatabaseManager.initializeDatabase();
+    }
+
+    @Override
+    public boolean save(String shortKey, String longUrl, Instant expiresAt) {
+        return DatabaseManager.saveUrl(shortKey, longUrl, expiresAt);
+    }
+
+    @Override
+    public String shorten(String longUrl, Instant expiresAt) {
+        return DatabaseManager.shortenUrl(longUrl, expiresAt);
+    }
+
+    @Override
+    public Aliases.Result claim(String namespace, String alias, String longUrl, Instant expiresAt) {
+        return DatabaseManager.claimAlias(namespace, alias, longUrl, expiresAt);
+    }
+
+    @Override
+    public String find(String shortKey) {
+        return DatabaseManager.findLongUrl(shortKey);
+    }
+
+    /**
+     * Uses DatabaseManager.bulkImport: JDBC batch inserts, one transaction per batch.
+     */
+    @Override
+    public BulkImportResult importUrls(Stream<String> longUrls, Writer out, int batchSize) throws IOException {
+        try {
+            return DatabaseManager.bulkImport(longUrls, out, batchSize);
+        } catch (SQLException e) {
+            throw new IOException("Database error during import: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public ClickTracker getClickTracker() {
+        return DatabaseManager.getClickTracker();
+    }
+
+    /**
+     * Saves the cache snapshot for the next start (startup.snapshot.path), then shuts the database down.
+     */
+    @Override
+    public void close() {
+        WarmStart.saveSnapshot(AppConfig.get());
+        DatabaseManager.shutdown();
+    }
+}
@@ -0,0 +1,44 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.SQLException;
+
+/**
+ * Strategy for handing out new short keys.
+ * Implementations must be safe to call from many threads at once.
+ */
+public interface KeyAllocator {
+
+    /**
+     * Returns the next key to try for a new URL.
+     * @throws SQLException if the allocator needs the database and it is unavailable.
+     */
+    String nextKey() throws SQLException;
+
+    /**
+     * Whether two calls can ever return the same key.
+     * Callers only need to retry on a duplicate key when this is false.
+     */
+    boolean isCollisionFree();
+
+    /**
+     * Whether {@link #nextKey()} could ever return this key.
+     */
+    boolean canGenerate(String key);
+
+    /**
+     * Builds the allocator selected by keys.strategy (random or range).
+     */
+    static KeyAllocator fromConfig(AppConfig config, ConnectionPool pool) {
+        int length = config.getInt("keys.length", 6);
+        String strategy = config.getString("keys.strategy", "random");
+        switch (strategy) {
+            case "random":
+                return new RandomKeyAllocator(length);
+            case "range":
+                return new RangeKeyAllocator(pool, length, config.getInt("keys.blockSize", 1000),
+                    config.getInt("keys.stripes", 16));
+            default:
+                throw new IllegalArgumentException("Unknown keys.strategy: " + strategy);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.yourcompany.urlshortener;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * PR 2: Implements the core logic for generating short, unique-looking keys.
+ * This class is responsible for creating the random alphanumeric strings
+ * that will be used as the shortened URL identifiers.
+ *
+ * It also holds the base62 helpers shared by the key allocators.
+ */
+public class KeyGenerator {
+
+    // Define the set of characters allowed in the short key (alphanumeric: A-Z, a-z, 0-9)
+    static final char[] ALPHABET =
+        "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789".toCharArray();
+
+    static final int BASE = ALPHABET.length;
+
+    // Longest key whose whole key space (62^length) still fits comfortably in a long
+    static final int MAX_ENCODED_LENGTH = 10;
+
+    /**
+     * Generates a random alphanumeric key of a specified length.
+     * * We'll stick to a length of 6 characters for our mini-shortener.
+     * * Each thread draws from its own ThreadLocalRandom, so concurrent callers never
+     *   contend on a shared seed, and the key is filled straight into a char array.
+     * * @param length The desired length of the short key (e.g., 6).
+     * @return A randomly generated alphanumeric string.
+     */
+    public static String generateKey(int length) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        char[] key = new char[length];
+
+        long bits = 0;
+        int bitsLeft = 0;
+        int i = 0;
+        while (i < length) {
+            if (bitsLeft < 6) {
+                bits = random.nextLong();
+                bitsLeft = 64;
+            }
+            // Take 6 random bits at a time; 62 and 63 are rejected so every character is equally likely
+            int index = (int) (bits & 63);
+            bits >>>= 6;
+            bitsLeft -= 6;
+            if (index < BASE) {
+                key[i++] = ALPHABET[index];
+            }
+        }
+        return new String(key);
+    }
+
+    /**
+     * Returns 62^length, the number of distinct keys of the given length.
+     */
+    static long keySpace(int length) {
+        if (length < 1 || length > MAX_ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Key length must be between 1 and " + MAX_ENCODED_LENGTH);
+        }
+        long space = 1;
+        for (int i = 0; i < length; i++) {
+            space *= BASE;
+        }
+        return space;
+    }
+
+    /**
+     * Encodes a non-negative number as a fixed-width base62 key, padding with the first alphabet character.
+     */
+    static String encode(long value, int length) {
+        char[] key = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            key[i] = ALPHABET[(int) (value % BASE)];
+            value /= BASE;
+        }
+        if (value != 0) {
+            throw new IllegalArgumentException("Value does not fit in " + length + " base62 characters");
+        }
+        return new String(key);
+    }
+
+    /**
+     * Maps a base62 character to its digit value, or -1 if it is not in the alphabet.
+     */
+    static int digit(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a';
+        if (c >= 'A' && c <= 'Z') return c - 'A' + 26;
+        if (c >= '0' && c <= '9') return c - '0' + 52;
+        return -1;
+    }
+
+    /**
+     * Whether the key is exactly {@code length} base62 characters, i.e. one generateKey(length) could return.
+     */
+    static boolean isKey(String key, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (digit(key.charAt(i)) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Packs a base62 key of 1 to MAX_ENCODED_LENGTH characters into a positive long.
+     * Keys of different lengths never share a value ("a" and "aa" differ), so the mapping
+     * is one-to-one and {@link #unpack} restores the exact key.
+     * @return The packed key, or -1 if the key is empty, too long or not base62.
+     */
+    static long pack(String key) {
+        int length = key.length();
+        if (length < 1 || length > MAX_ENCODED_LENGTH) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            int d = digit(key.charAt(i));
+            if (d < 0) {
+                return -1;
+            }
+            value = value * BASE + d;
+        }
+        return lengthOffset(length) + value;
+    }
+
+    /**
+     * Reverses {@link #pack}.
+     */
+    static String unpack(long packed) {
+        for (int length = MAX_ENCODED_LENGTH; length >= 1; length--) {
+            long offset = lengthOffset(length);
+            if (packed >= offset) {
+                return encode(packed - offset, length);
+            }
+        }
+        throw new IllegalArgumentException("Not a packed key: " + packed);
+    }
+
+    /**
+     * Number of keys shorter than {@code length}, plus one so no key packs to 0.
+     */
+    private static long lengthOffset(int length) {
+        long offset = 1;
+        long space = 1;
+        for (int i = 1; i < length; i++) {
+            space *= BASE;
+            offset += space;
+        }
+        return offset;
+    }
+    
+    // ----------------------------------------------------------------------
+    // Note: The main method below is just for quick testing!
+    // ----------------------------------------------------------------------
+    public static void main(String[] args) {
+        int keyLength = 6;
+        System.out.println("--- Key Generator Test ---");
+        System.out.println("Generated Key 1: " + generateKey(keyLength));
+        System.out.println("Generated Key 2: " + generateKey(keyLength));
+        System.out.println("Generated Key (Length 8): " + generateKey(8));
+    }
+}
@@ -0,0 +1,112 @@
+package com.yourcompany.urlshortener;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free, fixed-memory latency histogram in the style of HdrHistogram.
+ *
+ * Values (nanoseconds) are counted in log-linear buckets: every power of two is split
+ * into 32 equal sub-buckets, so any recorded value is reported within about 3% of its
+ * true value, from nanoseconds up to hours, in under 2,000 counters. Recording is one
+ * array increment plus two adders and never allocates, so it is cheap enough for the
+ * redirect path. Percentiles are computed from a snapshot of the counters on read.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;       // 32
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;           // values below 64 get their own bucket
+    private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records one latency. Negative values (clock steps) are recorded as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        if (value > max.get()) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Records the time elapsed since {@code startNanos}, a value from System.nanoTime().
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int sub = (int) (value >>> shift);                              // in [32, 64)
+        return (shift + 1) * SUB_BUCKETS + (sub - SUB_BUCKETS);
+    }
+
+    /** The largest value that lands in the bucket; percentiles report this, so they never understate. */
+    static long highestValueIn(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long sub = index % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Returns the value at the given percentile (0-100) in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentile(double percentile) {
+        long count = total.sum();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    public long getCount() { return total.sum(); }
+    public long getSumNanos() { return sum.sum(); }
+    public long getMax() { return max.get(); }
+
+    public double getMeanNanos() {
+        long count = total.sum();
+        return count == 0 ? 0.0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * Clears all counts. Values recorded concurrently with a reset may be partly kept.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        total.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("count=%d, p50=%.1fus, p99=%.1fus, p999=%.1fus, max=%.1fus",
+            getCount(), getPercentile(50) / 1e3, getPercentile(99) / 1e3, getPercentile(99.9) / 1e3, getMax() / 1e3);
+    }
+}
@@ -0,0 +1,113 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Batched upserts of whole link rows (key, URL, created_at, expires_at) into every shard of
+ * a layout, in the db.schema layout. Each shard has one connection held for the writer's
+ * lifetime and gets a commit every batchSize rows. Rows are upserted by key, so writing the
+ * same rows again is harmless. Used by --reshard and --restore.
+ */
+final class LinkBatchWriter implements AutoCloseable {
+
+    private final ShardRouter router;
+    private final UrlSchema schema;
+    private final String upsertSql;
+    private final int batchSize;
+    private final ConnectionPool.PooledConnection[] out;
+    private final int[] pending;
+
+    /**
+     * Creates the tables where needed and takes one connection from each shard's pool.
+     */
+    LinkBatchWriter(ShardRouter router, UrlSchema schema, int batchSize) throws SQLException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        this.router = router;
+        this.schema = schema;
+        this.upsertSql = "MERGE INTO urls (" + schema.insertColumns + ", created_at, expires_at) KEY ("
+            + schema.keyColumn + ") VALUES (" + "?, ".repeat(schema.insertColumns.split(",").length) + "?, ?)";
+        this.batchSize = batchSize;
+        this.out = new ConnectionPool.PooledConnection[router.shardCount()];
+        this.pending = new int[out.length];
+        try {
+            for (int i = 0; i < out.length; i++) {
+                out[i] = router.pool(i).acquire();
+                DatabaseManager.initializeSchema(out[i].getConnection(), i == 0);
+                out[i].getConnection().setAutoCommit(false);
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Queues one row on its shard, writing that shard's batch once it is full.
+     * @param createdAt null means now.
+     */
+    void add(String shortKey, String longUrl, Timestamp createdAt, Timestamp expiresAt) throws SQLException {
+        int shard = router.shardOf(shortKey);
+        PreparedStatement pstmt = out[shard].prepare(upsertSql);
+        int next = schema.bindLink(router.pool(shard), pstmt, 1, shortKey, longUrl);
+        pstmt.setTimestamp(next, createdAt != null ? createdAt : new Timestamp(System.currentTimeMillis()));
+        pstmt.setTimestamp(next + 1, expiresAt);
+        pstmt.addBatch();
+        if (++pending[shard] >= batchSize) {
+            flush(shard);
+        }
+    }
+
+    /**
+     * Writes and commits everything queued so far.
+     */
+    void flush() throws SQLException {
+        for (int i = 0; i < out.length; i++) {
+            flush(i);
+        }
+    }
+
+    private void flush(int shard) throws SQLException {
+        if (pending[shard] == 0) {
+            return;
+        }
+        out[shard].prepare(upsertSql).executeBatch();
+        out[shard].getConnection().commit();
+        pending[shard] = 0;
+    }
+
+    /**
+     * The connection held for a shard, inside the writer's transaction.
+     */
+    Connection connection(int shard) {
+        return out[shard].getConnection();
+    }
+
+    /**
+     * Drops anything not flushed and hands the connections back in autocommit mode.
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < out.length; i++) {
+            if (out[i] == null) {
+                continue;
+            }
+            try {
+                Connection conn = out[i].getConnection();
+                if (!conn.getAutoCommit()) {
+                    out[i].prepare(upsertSql).clearBatch();
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+            } catch (SQLException e) {
+                System.err.println("❌ Could not reset a shard connection: " + e.getMessage());
+            }
+            out[i].close();
+            out[i] = null;
+        }
+    }
+}
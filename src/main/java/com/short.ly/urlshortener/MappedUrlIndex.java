@@ -0,0 +1,309 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Read-only, memory-mapped short key -> long URL index.
+ *
+ * The file holds an open-addressing hash table of fixed-width keys followed by a region
+ * of UTF-8 URL bytes. Lookups read straight from the mapped file, so the index lives in
+ * the OS page cache instead of the Java heap, and several processes mapping the same
+ * file share those pages. Files are built from the urls table with {@link #build} and
+ * replaced with an atomic rename, so readers never see a half-written index.
+ *
+ * Layout (big-endian):
+ *   header:  magic (8) | keyWidth (4) | slotCount (4) | entryCount (8) | blobStart (8) | blobSize (8)
+ *   slots:   slotCount x [ key bytes, zero padded (keyWidth) | url offset (8) | url length (4) | expires at (8) ]
+ *   blob:    URL bytes; no URL crosses a CHUNK_SIZE boundary so each one is readable from one mapping
+ *
+ * Expiring links are indexed with their expiry (epoch millis, 0 for never) and stop resolving
+ * when it passes, like they do in the database. Files from before the expiry field (SURLIDX1)
+ * can still be opened; they hold only permanent links.
+ */
+public final class MappedUrlIndex {
+
+    private static final long MAGIC = 0x5355524C49445832L; // "SURLIDX2"
+    private static final long MAGIC_V1 = 0x5355524C49445831L; // "SURLIDX1", no expiry field
+    private static final int HEADER_SIZE = 40;
+    private static final int CHUNK_SIZE = 1 << 30;          // one mapping per GiB of URL data
+    private static final double MAX_LOAD = 0.5;
+
+    // Links that have already expired are left out
+    private static final String LIVE_LINKS = " FROM urls WHERE expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP";
+    private static final String COUNT_SQL = "SELECT COUNT(*)" + LIVE_LINKS;
+
+    private final Path path;
+    private final int keyWidth;
+    private final int slotSize;
+    private final boolean hasExpiry;
+    private final int slotMask;
+    private final long entryCount;
+    private final MappedByteBuffer slots;
+    private final MappedByteBuffer[] blobChunks;
+
+    private MappedUrlIndex(Path path, int keyWidth, boolean hasExpiry, int slotCount, long entryCount,
+                           MappedByteBuffer slots, MappedByteBuffer[] blobChunks) {
+        this.path = path;
+        this.keyWidth = keyWidth;
+        this.hasExpiry = hasExpiry;
+        this.slotSize = slotSize(keyWidth, hasExpiry);
+        this.slotMask = slotCount - 1;
+        this.entryCount = entryCount;
+        this.slots = slots;
+        this.blobChunks = blobChunks;
+    }
+
+    /**
+     * Maps an index file written by {@link #build}.
+     */
+    public static MappedUrlIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) > 0) {
+                // keep reading
+            }
+            header.flip();
+            long magic = header.remaining() < HEADER_SIZE ? 0 : header.getLong();
+            if (magic != MAGIC && magic != MAGIC_V1) {
+                throw new IOException("Not a URL index file: " + path);
+            }
+            boolean hasExpiry = magic == MAGIC;
+            int keyWidth = header.getInt();
+            int slotCount = header.getInt();
+            long entryCount = header.getLong();
+            long blobStart = header.getLong();
+            long blobSize = header.getLong();
+
+            // Mappings stay valid after the channel is closed
+            MappedByteBuffer slots = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, (long) slotCount * slotSize(keyWidth, hasExpiry));
+            int chunks = (int) ((blobSize + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            MappedByteBuffer[] blobChunks = new MappedByteBuffer[chunks];
+            for (int i = 0; i < chunks; i++) {
+                long start = (long) i * CHUNK_SIZE;
+                blobChunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, blobStart + start, Math.min(CHUNK_SIZE, blobSize - start));
+            }
+            return new MappedUrlIndex(path, keyWidth, hasExpiry, slotCount, entryCount, slots, blobChunks);
+        }
+    }
+
+    private static int slotSize(int keyWidth, boolean hasExpiry) {
+        return keyWidth + (hasExpiry ? 20 : 12);
+    }
+
+    /**
+     * Returns the URL for the key, or null if the key is not in the index or its link has expired.
+     * Safe to call from any number of threads; the only allocation is the returned String.
+     */
+    public String get(String shortKey) {
+        int length = shortKey.length();
+        if (length == 0 || length > keyWidth) {
+            return null;
+        }
+        int slot = (int) hash(shortKey) & slotMask;
+        while (true) {
+            int base = slot * slotSize;
+            byte first = slots.get(base);
+            if (first == 0) {
+                return null; // empty slot: key is not present
+            }
+            if (keyMatches(base, shortKey, length)) {
+                if (hasExpiry) {
+                    long expiresAtMillis = slots.getLong(base + keyWidth + 12);
+                    if (expiresAtMillis != 0 && expiresAtMillis <= System.currentTimeMillis()) {
+                        return null;
+                    }
+                }
+                long offset = slots.getLong(base + keyWidth);
+                int urlLength = slots.getInt(base + keyWidth + 8);
+                byte[] bytes = new byte[urlLength];
+                MappedByteBuffer chunk = blobChunks[(int) (offset / CHUNK_SIZE)];
+                chunk.get((int) (offset % CHUNK_SIZE), bytes);
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            slot = (slot + 1) & slotMask;
+        }
+    }
+
+    private boolean keyMatches(int base, String shortKey, int length) {
+        for (int i = 0; i < length; i++) {
+            if (slots.get(base + i) != (byte) shortKey.charAt(i)) {
+                return false;
+            }
+        }
+        return length == keyWidth || slots.get(base + length) == 0;
+    }
+
+    // FNV-1a over the key characters; keys are ASCII so chars and bytes agree
+    private static long hash(CharSequence key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i) & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return h ^ (h >>> 32);
+    }
+
+    public long size() {
+        return entryCount;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * The longest key the index can hold; longer keys were skipped when it was built.
+     */
+    public int getKeyWidth() {
+        return keyWidth;
+    }
+
+    /**
+     * Writes an index of every row in the urls table that has not expired to {@code target}.
+     * The file is built next to the target and renamed over it when complete.
+     * @param keyWidth The longest key to index; longer keys are skipped.
+     * @return The number of links written.
+     */
+    public static long build(Connection conn, Path target, int keyWidth) throws SQLException, IOException {
+        return build(List.of(conn), target, keyWidth);
+    }
+
+    /**
+     * Same as {@link #build(Connection, Path, int)}, for links spread over several shard databases.
+     */
+    public static long build(List<Connection> shards, Path target, int keyWidth) throws SQLException, IOException {
+        long rowCount = 0;
+        for (Connection conn : shards) {
+            try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(COUNT_SQL)) {
+                rs.next();
+                rowCount += rs.getLong(1);
+            }
+        }
+        // Leave room for rows inserted while we scan
+        long wanted = Math.max(1024, (long) ((rowCount + 1024) / MAX_LOAD) + 1);
+        if (wanted > (1 << 30)) {
+            throw new IOException("Too many links for one index file: " + rowCount);
+        }
+        int slotCount = Integer.highestOneBit((int) wanted - 1) << 1;
+        int slotSize = slotSize(keyWidth, true);
+        long slotBytes = (long) slotCount * slotSize;
+        if (slotBytes > Integer.MAX_VALUE) {
+            throw new IOException("Index slot table would exceed 2 GiB: " + rowCount + " links");
+        }
+        long blobStart = HEADER_SIZE + slotBytes;
+        long maxEntries = (long) (slotCount * 0.9);
+
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, target.getFileName().toString(), ".tmp");
+        long entries = 0;
+        long blobSize = 0;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE, slotBytes);
+            int mask = slotCount - 1;
+            channel.position(blobStart);
+            ByteBuffer out = ByteBuffer.allocateDirect(1 << 16);
+
+            for (Connection conn : shards) {
+                UrlSchema schema = UrlSchema.of(conn);
+                try (Statement stmt = conn.createStatement()) {
+                    stmt.setFetchSize(1000);
+                    try (ResultSet rs = stmt.executeQuery(
+                            "SELECT " + schema.selectColumns + ", expires_at" + LIVE_LINKS)) {
+                        while (rs.next()) {
+                            String shortKey = schema.readKey(rs, 1);
+                            if (shortKey.length() > keyWidth || !isAscii(shortKey)) {
+                                continue;
+                            }
+                            if (++entries > maxEntries) {
+                                throw new IOException("Table grew too much while building the index; try again");
+                            }
+                            byte[] url = schema.readUrl(conn, rs, 2).getBytes(StandardCharsets.UTF_8);
+
+                            // Keep every URL inside a single chunk
+                            long chunkRemaining = CHUNK_SIZE - (blobSize % CHUNK_SIZE);
+                            if (url.length > chunkRemaining) {
+                                writeFully(channel, out, new byte[(int) chunkRemaining]);
+                                blobSize += chunkRemaining;
+                            }
+                            long offset = blobSize;
+                            writeFully(channel, out, url);
+                            blobSize += url.length;
+
+                            int slot = (int) hash(shortKey) & mask;
+                            while (table.get(slot * slotSize) != 0) {
+                                slot = (slot + 1) & mask;
+                            }
+                            int base = slot * slotSize;
+                            for (int i = 0; i < shortKey.length(); i++) {
+                                table.put(base + i, (byte) shortKey.charAt(i));
+                            }
+                            table.putLong(base + keyWidth, offset);
+                            table.putInt(base + keyWidth + 8, url.length);
+                            Timestamp expiresAt = rs.getTimestamp(schema.selectWidth + 1);
+                            table.putLong(base + keyWidth + 12, expiresAt == null ? 0 : expiresAt.getTime());
+                        }
+                    }
+                }
+            }
+            out.flip();
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+            header.putLong(MAGIC).putInt(keyWidth).putInt(slotCount).putLong(entries).putLong(blobStart).putLong(blobSize);
+            header.flip();
+            channel.write(header, 0);
+            table.force();
+            channel.force(true);
+        } catch (SQLException | IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return entries;
+    }
+
+    // Appends through a reusable direct buffer so URL bytes are written in large sequential chunks
+    private static void writeFully(FileChannel channel, ByteBuffer out, byte[] bytes) throws IOException {
+        int written = 0;
+        while (written < bytes.length) {
+            if (!out.hasRemaining()) {
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                out.clear();
+            }
+            int n = Math.min(out.remaining(), bytes.length - written);
+            out.put(bytes, written, n);
+            written += n;
+        }
+    }
+
+    private static boolean isAscii(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == 0 || c > 127) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,312 @@
+package com.yourcompany.urlshortener;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Timings and counters for the DatabaseManager hot paths (metrics.* settings).
+ *
+ * Call sites take {@code long start = Metrics.start()} and later
+ * {@code Metrics.record(Metrics.LOOKUP, start)}; both are no-ops when metrics are off,
+ * and neither allocates when they are on. Everything is readable three ways:
+ * the getters below, the JMX MBean registered by {@link #registerMBean()}, and the
+ * Prometheus text format from {@link #toPrometheus()} (served at server.metricsPath).
+ */
+public final class Metrics {
+
+    private static volatile boolean enabled = AppConfig.get().getBoolean("metrics.enabled", true);
+
+    public static final LatencyHistogram LOOKUP = new LatencyHistogram();
+    public static final LatencyHistogram SAVE = new LatencyHistogram();
+    public static final LatencyHistogram KEY_GENERATION = new LatencyHistogram();
+    public static final LatencyHistogram GET_CONNECTION = new LatencyHistogram();
+
+    public static final LongAdder LOOKUP_NOT_FOUND = new LongAdder();
+    public static final LongAdder LOOKUP_ERRORS = new LongAdder();
+    public static final LongAdder SAVE_ERRORS = new LongAdder();
+    public static final LongAdder KEY_COLLISIONS = new LongAdder();
+    public static final LongAdder CONNECTION_ERRORS = new LongAdder();
+    public static final LongAdder RATE_LIMITED_SHORTEN = new LongAdder();
+    public static final LongAdder RATE_LIMITED_RESOLVE = new LongAdder();
+
+    private static final LatencyHistogram EMPTY = new LatencyHistogram();
+    private static final String MBEAN_NAME = "com.yourcompany.urlshortener:type=Metrics";
+
+    private static final List<Timer> TIMERS = new ArrayList<>();
+    private static final List<Value> COUNTERS = new ArrayList<>();
+    private static final List<Value> GAUGES = new ArrayList<>();
+
+    static {
+        TIMERS.add(new Timer("lookup", "Latency of findLongUrl", () -> LOOKUP));
+        TIMERS.add(new Timer("save", "Latency of storing one link", () -> SAVE));
+        TIMERS.add(new Timer("key_generation", "Latency of allocating one short key", () -> KEY_GENERATION));
+        TIMERS.add(new Timer("get_connection", "Latency of DatabaseManager.getConnection", () -> GET_CONNECTION));
+        TIMERS.add(new Timer("pool_acquire", "Latency of borrowing a pooled connection, including waiting",
+            () -> DatabaseManager.pool == null ? EMPTY : DatabaseManager.pool.getAcquireLatency()));
+
+        COUNTERS.add(new Value("lookup_not_found", "Lookups for unknown or expired keys", LOOKUP_NOT_FOUND::sum));
+        COUNTERS.add(new Value("lookup_errors", "Lookups that failed with a database error", LOOKUP_ERRORS::sum));
+        COUNTERS.add(new Value("save_errors", "Links that could not be stored", SAVE_ERRORS::sum));
+        COUNTERS.add(new Value("key_collisions", "Generated keys that were already taken", KEY_COLLISIONS::sum));
+        COUNTERS.add(new Value("connection_errors", "Failed attempts to get a database connection", CONNECTION_ERRORS::sum));
+        COUNTERS.add(new Value("rate_limited_shorten", "Shorten requests rejected by the rate limiter",
+            RATE_LIMITED_SHORTEN::sum));
+        COUNTERS.add(new Value("rate_limited_resolve", "Redirects rejected by the rate limiter",
+            RATE_LIMITED_RESOLVE::sum));
+        COUNTERS.add(new Value("cache_hits", "Lookup cache hits, including cached misses",
+            () -> DatabaseManager.getCache() == null ? 0 : DatabaseManager.getCache().getHitCount() + DatabaseManager.getCache().getNegativeHitCount()));
+        COUNTERS.add(new Value("cache_misses", "Lookup cache misses",
+            () -> DatabaseManager.getCache() == null ? 0 : DatabaseManager.getCache().getMissCount()));
+        COUNTERS.add(new Value("replica_primary_fallbacks", "Replica misses for recently written keys re-read from the primary",
+            () -> DatabaseManager.replicas == null ? 0 : DatabaseManager.replicas.getPrimaryFallbackCount()));
+        COUNTERS.add(new Value("pool_timeouts", "Connection requests that timed out waiting for the pool",
+            () -> DatabaseManager.pool == null ? 0 : DatabaseManager.pool.getTimeoutCount()));
+
+        GAUGES.add(new Value("pool_active_connections", "Connections currently borrowed",
+            () -> DatabaseManager.pool == null ? 0 : DatabaseManager.pool.getActiveCount()));
+        GAUGES.add(new Value("pool_idle_connections", "Open connections waiting in the pool",
+            () -> DatabaseManager.pool == null ? 0 : DatabaseManager.pool.getIdleCount()));
+        GAUGES.add(new Value("cache_entries", "Entries in the lookup cache",
+            () -> DatabaseManager.getCache() == null ? 0 : DatabaseManager.getCache().size()));
+        GAUGES.add(new Value("write_behind_queue_depth", "Links waiting to be written",
+            () -> DatabaseManager.writeBehind == null ? 0 : DatabaseManager.writeBehind.getQueueDepth()));
+        GAUGES.add(new Value("replicas_healthy", "Read replicas in sync and within the allowed lag",
+            () -> DatabaseManager.replicas == null ? 0 : DatabaseManager.replicas.getHealthyCount()));
+        GAUGES.add(new Value("replica_lag_ms", "How far the furthest-behind read replica trails the primary",
+            () -> DatabaseManager.replicas == null ? 0 : DatabaseManager.replicas.getLagMillis()));
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns a start time for {@link #record}, or 0 when metrics are off.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since {@code start} unless metrics were off when it was taken.
+     */
+    public static void record(LatencyHistogram histogram, long start) {
+        if (start != 0) {
+            histogram.recordSince(start);
+        }
+    }
+
+    /**
+     * Counts one event when metrics are on.
+     */
+    public static void count(LongAdder counter) {
+        if (enabled) {
+            counter.increment();
+        }
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Clears all timings and counters owned by this class.
+     */
+    public static void reset() {
+        for (LatencyHistogram h : new LatencyHistogram[] { LOOKUP, SAVE, KEY_GENERATION, GET_CONNECTION }) {
+            h.reset();
+        }
+        for (LongAdder a : new LongAdder[] { LOOKUP_NOT_FOUND, LOOKUP_ERRORS, SAVE_ERRORS, KEY_COLLISIONS, CONNECTION_ERRORS,
+                RATE_LIMITED_SHORTEN, RATE_LIMITED_RESOLVE }) {
+            a.reset();
+        }
+    }
+
+    /**
+     * Renders every metric in the Prometheus text exposition format (version 0.0.4).
+     * Timers are summaries in seconds with 0.5, 0.99 and 0.999 quantiles.
+     */
+    public static String toPrometheus() {
+        StringBuilder out = new StringBuilder(4096);
+        for (Timer timer : TIMERS) {
+            LatencyHistogram h = timer.histogram.get();
+            String name = "shortener_" + timer.name + "_seconds";
+            out.append("# HELP ").append(name).append(' ').append(timer.help).append(".\n");
+            out.append("# TYPE ").append(name).append(" summary\n");
+            for (double q : new double[] { 0.5, 0.99, 0.999 }) {
+                out.append(name).append("{quantile=\"").append(q).append("\"} ")
+                    .append(seconds(h.getPercentile(q * 100))).append('\n');
+            }
+            out.append(name).append("_sum ").append(seconds(h.getSumNanos())).append('\n');
+            out.append(name).append("_count ").append(h.getCount()).append('\n');
+        }
+        for (Value counter : COUNTERS) {
+            String name = "shortener_" + counter.name + "_total";
+            out.append("# HELP ").append(name).append(' ').append(counter.help).append(".\n");
+            out.append("# TYPE ").append(name).append(" counter\n");
+            out.append(name).append(' ').append(counter.value.getAsLong()).append('\n');
+        }
+        for (Value gauge : GAUGES) {
+            String name = "shortener_" + gauge.name;
+            out.append("# HELP ").append(name).append(' ').append(gauge.help).append(".\n");
+            out.append("# TYPE ").append(name).append(" gauge\n");
+            out.append(name).append(' ').append(gauge.value.getAsLong()).append('\n');
+        }
+        return out.toString();
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * Flat name -> value view used by the MBean, e.g. lookupP99Micros or keyCollisions.
+     */
+    static Map<String, Object> snapshot() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Timer timer : TIMERS) {
+            LatencyHistogram h = timer.histogram.get();
+            String prefix = camelCase(timer.name);
+            values.put(prefix + "Count", h.getCount());
+            values.put(prefix + "P50Micros", h.getPercentile(50) / 1e3);
+            values.put(prefix + "P99Micros", h.getPercentile(99) / 1e3);
+            values.put(prefix + "P999Micros", h.getPercentile(99.9) / 1e3);
+            values.put(prefix + "MaxMicros", h.getMax() / 1e3);
+            values.put(prefix + "MeanMicros", h.getMeanNanos() / 1e3);
+        }
+        for (Value counter : COUNTERS) {
+            values.put(camelCase(counter.name), counter.value.getAsLong());
+        }
+        for (Value gauge : GAUGES) {
+            values.put(camelCase(gauge.name), gauge.value.getAsLong());
+        }
+        return values;
+    }
+
+    private static String camelCase(String snake) {
+        StringBuilder out = new StringBuilder(snake.length());
+        boolean upper = false;
+        for (char c : snake.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                out.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return out.toString();
+    }
+
+    /**
+     * Registers the read-only "com.yourcompany.urlshortener:type=Metrics" MBean with the
+     * platform MBean server, so jconsole / VisualVM / JMX exporters can read the metrics.
+     * Does nothing if it is already registered.
+     */
+    public static synchronized void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(MBEAN_NAME);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(new MetricsMBean(), name);
+            }
+        } catch (JMException e) {
+            System.err.println("❌ Could not register the metrics MBean: " + e.getMessage());
+        }
+    }
+
+    private static final class Timer {
+        final String name;
+        final String help;
+        final Supplier<LatencyHistogram> histogram;
+
+        Timer(String name, String help, Supplier<LatencyHistogram> histogram) {
+            this.name = name;
+            this.help = help;
+            this.histogram = histogram;
+        }
+    }
+
+    private static final class Value {
+        final String name;
+        final String help;
+        final LongSupplier value;
+
+        Value(String name, String help, LongSupplier value) {
+            this.name = name;
+            this.help = help;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Exposes {@link #snapshot()} as read-only JMX attributes.
+     */
+    private static final class MetricsMBean implements DynamicMBean {
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            Object value = snapshot().get(attribute);
+            if (value == null) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            return value;
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            Map<String, Object> values = snapshot();
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                if (values.containsKey(attribute)) {
+                    list.add(new Attribute(attribute, values.get(attribute)));
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) {
+            throw new UnsupportedOperationException("Metrics are read-only");
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            throw new UnsupportedOperationException("No operations");
+        }
+
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (Map.Entry<String, Object> entry : snapshot().entrySet()) {
+                attributes.add(new MBeanAttributeInfo(entry.getKey(), entry.getValue().getClass().getName(),
+                    entry.getKey(), true, false, false));
+            }
+            return new MBeanInfo(Metrics.class.getName(), "URL shortener hot-path metrics",
+                attributes.toArray(new MBeanAttributeInfo[0]), null, null, null);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.yourcompany.urlshortener;
+
+/**
+ * Hands out random keys from KeyGenerator. Collisions are possible but rare,
+ * so DatabaseManager retries a bounded number of times on a duplicate key.
+ */
+public class RandomKeyAllocator implements KeyAllocator {
+
+    private final int length;
+
+    public RandomKeyAllocator(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("Key length must be positive");
+        }
+        this.length = length;
+    }
+
+    @Override
+    public String nextKey() {
+        return KeyGenerator.generateKey(length);
+    }
+
+    @Override
+    public boolean isCollisionFree() {
+        return false;
+    }
+
+    @Override
+    public boolean canGenerate(String key) {
+        return KeyGenerator.isKey(key, length);
+    }
+}
@@ -0,0 +1,172 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Counter-based key allocator that never produces the same key twice.
+ *
+ * Blocks of ids are leased from a database sequence, so only one round trip is
+ * needed per block rather than per key. Ids are handed out from several independent
+ * stripes (picked by thread id) to keep concurrent writers off a single counter.
+ * Each id is passed through a fixed bijection of the key space before base62
+ * encoding, so consecutive ids don't produce guessable consecutive keys.
+ *
+ * Block n covers ids n * blockSize to (n + 1) * blockSize - 1, so the block size a database
+ * was used with is stored next to the sequence. When keys.blockSize changes, the sequence is
+ * moved on to the first block of the new size that starts past every id already leased.
+ * All processes sharing a database must use the same keys.blockSize.
+ */
+public class RangeKeyAllocator implements KeyAllocator {
+
+    static final String CREATE_SEQUENCE_SQL =
+        "CREATE SEQUENCE IF NOT EXISTS key_blocks START WITH 0 MINVALUE 0";
+
+    private static final String NEXT_BLOCK_SQL =
+        "SELECT NEXT VALUE FOR key_blocks";
+
+    static final String CREATE_BLOCK_SIZE_SQL =
+        "CREATE TABLE IF NOT EXISTS key_block_size (id INT PRIMARY KEY, block_size INT NOT NULL)";
+
+    static final String SELECT_BLOCK_SIZE_SQL =
+        "SELECT block_size FROM key_block_size WHERE id = 0";
+
+    static final String SELECT_NEXT_BLOCK_SQL =
+        "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = 'KEY_BLOCKS'";
+
+    // Multiplier for the key-space permutation: odd and not a multiple of 31, so coprime with 62^n
+    private static final long MULTIPLIER = 25214903917L;
+    private static final long OFFSET = 0x2545F4914F6CDD1DL;
+
+    private final ConnectionPool pool;
+    private final int length;
+    private final int blockSize;
+    private final long keySpace;
+    private final long offset;
+    private final Stripe[] stripes;
+    private volatile boolean sequenceReady = false;
+
+    public RangeKeyAllocator(ConnectionPool pool, int length, int blockSize, int stripeCount) {
+        if (blockSize < 1 || stripeCount < 1) {
+            throw new IllegalArgumentException("blockSize and stripeCount must be positive");
+        }
+        this.pool = pool;
+        this.length = length;
+        this.blockSize = blockSize;
+        this.keySpace = KeyGenerator.keySpace(length);
+        this.offset = OFFSET % keySpace;
+        int count = 1;
+        while (count < stripeCount) {
+            count <<= 1;
+        }
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public String nextKey() throws SQLException {
+        Stripe stripe = stripes[(int) (Thread.currentThread().getId() & (stripes.length - 1))];
+        long id;
+        synchronized (stripe) {
+            if (stripe.next >= stripe.end) {
+                long start = leaseBlock() * blockSize;
+                stripe.next = start;
+                stripe.end = start + blockSize;
+            }
+            id = stripe.next++;
+        }
+        if (id >= keySpace) {
+            // A SQLException, so callers treat it like any other failed save instead of crashing
+            throw new SQLException("Key space of length " + length + " is exhausted; raise keys.length");
+        }
+        return KeyGenerator.encode(permute(id), length);
+    }
+
+    @Override
+    public boolean isCollisionFree() {
+        return true;
+    }
+
+    @Override
+    public boolean canGenerate(String key) {
+        return KeyGenerator.isKey(key, length);
+    }
+
+    /**
+     * x -> (x * MULTIPLIER + offset) mod 62^length. Because the multiplier is coprime
+     * with the key space this is a bijection: distinct ids always give distinct keys.
+     */
+    long permute(long id) {
+        long scrambled = mulMod(id, MULTIPLIER % keySpace, keySpace) + offset;
+        return scrambled >= keySpace ? scrambled - keySpace : scrambled;
+    }
+
+    // (a * b) mod m without overflow; m is below 2^62 so doubling never overflows
+    private static long mulMod(long a, long b, long m) {
+        long result = 0;
+        a %= m;
+        while (b > 0) {
+            if ((b & 1) != 0) {
+                result += a;
+                if (result >= m) result -= m;
+            }
+            a <<= 1;
+            if (a >= m) a -= m;
+            b >>= 1;
+        }
+        return result;
+    }
+
+    private long leaseBlock() throws SQLException {
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            if (!sequenceReady) {
+                ensureSequence(pc);
+            }
+            PreparedStatement pstmt = pc.prepare(NEXT_BLOCK_SQL);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    // H2 can report "already exists" when two sessions run CREATE ... IF NOT EXISTS at the same moment
+    private synchronized void ensureSequence(ConnectionPool.PooledConnection pc) throws SQLException {
+        if (!sequenceReady) {
+            try (Statement stmt = pc.getConnection().createStatement()) {
+                stmt.execute(CREATE_SEQUENCE_SQL);
+                stmt.execute(CREATE_BLOCK_SIZE_SQL);
+                Integer leasedSize = null;
+                try (ResultSet rs = stmt.executeQuery(SELECT_BLOCK_SIZE_SQL)) {
+                    if (rs.next()) {
+                        leasedSize = rs.getInt(1);
+                    }
+                }
+                if (leasedSize != null && leasedSize != blockSize) {
+                    long nextBlock;
+                    try (ResultSet rs = stmt.executeQuery(SELECT_NEXT_BLOCK_SQL)) {
+                        rs.next();
+                        nextBlock = rs.getLong(1);
+                    }
+                    // Moved first: if the size update below is lost, the next start only skips further ahead
+                    long realigned = Math.floorDiv(Math.multiplyExact(nextBlock, (long) leasedSize) + blockSize - 1, blockSize);
+                    stmt.execute("ALTER SEQUENCE key_blocks RESTART WITH " + realigned);
+                }
+                if (leasedSize == null || leasedSize != blockSize) {
+                    // A database from before the size was stored is assumed to have used this one
+                    stmt.execute("MERGE INTO key_block_size (id, block_size) KEY (id) VALUES (0, " + blockSize + ")");
+                }
+            }
+            sequenceReady = true;
+        }
+    }
+
+    private static final class Stripe {
+        long next;
+        long end;
+    }
+}
@@ -0,0 +1,144 @@
+package com.yourcompany.urlshortener;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token-bucket limits for one kind of request (ratelimit.* settings): a bucket per client,
+ * plus one bucket shared by all clients.
+ *
+ * Each bucket is a single AtomicLong holding the time at which it is full again (the
+ * "theoretical arrival time" form of a token bucket). Taking a token is one read and one
+ * compareAndSet, with no locks and no allocation once a client has a bucket.
+ *
+ * Client buckets are kept in a ConcurrentHashMap bounded by maxClients. A bucket that has
+ * refilled completely behaves exactly like a missing one, so a sweep drops those every
+ * sweepMillis, or up to once a second while the map is full. If it is still full of active
+ * clients, new clients share one overflow bucket until space frees up. A token taken from a
+ * bucket while the sweep drops it is lost, so a client gets at most one extra request per sweep.
+ */
+public class RateLimiter {
+
+    private static final long FULL_SWEEP_GAP_NANOS = 1_000_000_000L;
+
+    private final long clientInterval;
+    private final long clientTolerance;
+    private final long globalInterval;
+    private final long globalTolerance;
+    private final int maxClients;
+    private final long sweepNanos;
+
+    private final ConcurrentHashMap<String, AtomicLong> clients = new ConcurrentHashMap<>();
+    private final AtomicLong overflow = new AtomicLong();
+    private final AtomicLong global = new AtomicLong();
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final long origin = System.nanoTime();
+
+    /**
+     * @param clientRate Requests per second allowed per client, or 0 for no per-client limit.
+     * @param clientBurst Requests a client may make at once after being idle.
+     * @param globalRate Requests per second allowed for all clients together, or 0 for no global limit.
+     * @param globalBurst Requests all clients together may make at once.
+     * @param maxClients Most client buckets kept at a time.
+     * @param sweepMillis How often buckets that have refilled are dropped.
+     */
+    public RateLimiter(double clientRate, int clientBurst, double globalRate, int globalBurst,
+                       int maxClients, long sweepMillis) {
+        if (clientRate < 0 || globalRate < 0 || clientBurst < 1 || globalBurst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("Rates must not be negative; bursts and maxClients must be positive");
+        }
+        this.clientInterval = intervalNanos(clientRate);
+        this.clientTolerance = clientInterval * clientBurst;
+        this.globalInterval = intervalNanos(globalRate);
+        this.globalTolerance = globalInterval * globalBurst;
+        this.maxClients = maxClients;
+        this.sweepNanos = sweepMillis * 1_000_000L;
+    }
+
+    private static long intervalNanos(double perSecond) {
+        return perSecond == 0 ? 0 : Math.max(1, (long) (1e9 / perSecond));
+    }
+
+    /**
+     * Builds a limiter from the ratelimit.&lt;kind&gt;.* settings (kind is shorten or resolve),
+     * or returns null when ratelimit.enabled=false or neither rate is set.
+     */
+    public static RateLimiter fromConfig(AppConfig config, String kind) {
+        if (!config.getBoolean("ratelimit.enabled", false)) {
+            return null;
+        }
+        String prefix = "ratelimit." + kind + ".";
+        double clientRate = Double.parseDouble(config.getString(prefix + "clientRate", "0"));
+        double globalRate = Double.parseDouble(config.getString(prefix + "globalRate", "0"));
+        if (clientRate == 0 && globalRate == 0) {
+            return null;
+        }
+        return new RateLimiter(
+            clientRate,
+            config.getInt(prefix + "clientBurst", 10),
+            globalRate,
+            config.getInt(prefix + "globalBurst", 100),
+            config.getInt("ratelimit.maxClients", 100_000),
+            config.getLong("ratelimit.sweepSeconds", 60) * 1000);
+    }
+
+    /**
+     * Takes a token for {@code client} and one from the global bucket.
+     * @return 0 if the request may go ahead, otherwise the nanoseconds until it would be allowed.
+     */
+    public long acquire(String client) {
+        return acquire(client, System.nanoTime() - origin);
+    }
+
+    long acquire(String client, long now) {
+        if (clientInterval > 0) {
+            long wait = take(bucketFor(client, now), now, clientInterval, clientTolerance);
+            if (wait > 0) {
+                return wait;
+            }
+        }
+        // A client token spent on a globally rejected request is not given back
+        return globalInterval > 0 ? take(global, now, globalInterval, globalTolerance) : 0;
+    }
+
+    /**
+     * One token-bucket step: {@code tat} is when the bucket is full again, and each token
+     * moves it {@code interval} further out, at most {@code tolerance} past now.
+     */
+    private static long take(AtomicLong tat, long now, long interval, long tolerance) {
+        while (true) {
+            long current = tat.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (tat.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong bucketFor(String client, long now) {
+        AtomicLong bucket = clients.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        long last = lastSweep.get();
+        long gap = clients.size() >= maxClients ? Math.min(sweepNanos, FULL_SWEEP_GAP_NANOS) : sweepNanos;
+        if (now - last >= gap && lastSweep.compareAndSet(last, now)) {
+            clients.values().removeIf(b -> b.get() <= now);
+        }
+        if (clients.size() >= maxClients) {
+            return overflow;
+        }
+        return clients.computeIfAbsent(client, k -> new AtomicLong());
+    }
+
+    /**
+     * Number of clients currently holding a bucket.
+     */
+    public int getClientCount() {
+        return clients.size();
+    }
+}
@@ -0,0 +1,569 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.h2.api.Trigger;
+
+/**
+ * Read replicas of every shard (db.replicas setting) that answer findLongUrl lookups while
+ * all writes still go to the primary.
+ *
+ * Replica j of a shard is another H2 database named like the shard plus "-replica-j", rebuilt
+ * from the primary at startup. On the primary, a row trigger appends the key of every inserted,
+ * updated or deleted link to a url_changes table, in the same transaction as the change. A
+ * background thread reads that feed every db.replicas.pollMillis, copies the current primary
+ * row of each changed key to the replicas (or deletes it there) in batches, and then deletes
+ * the feed rows it applied. Because it copies rows as they are now instead of replaying each
+ * change, applying a key twice or late is harmless.
+ *
+ * Lookups go round-robin over the healthy replicas of the key's shard. A replica is healthy
+ * while its last sync succeeded and it is at most db.replicas.maxLagMillis behind; one whose
+ * sync or lookup failed is rebuilt with a full copy on the next poll. With no healthy replica
+ * the primary answers.
+ *
+ * Read-your-writes: keys written by this process are remembered until every replica in sync
+ * has polled past the write, plus db.replicas.readYourWritesMillis. A replica miss for such a
+ * key is asked again on the primary, so a link that was just created is never reported missing.
+ */
+public class ReadReplicas implements AutoCloseable {
+
+    private static final String TRIGGER_NAME = "urls_change_feed";
+    private static final String FEED_PAGE_SQL = "SELECT seq, k FROM url_changes ORDER BY seq LIMIT ?";
+    private static final String TRIM_FEED_SQL = "DELETE FROM url_changes WHERE seq <= ?";
+
+    private final ShardRouter primaries;
+    private final UrlSchema schema;
+    private final Replica[][] replicas;
+    private final long maxLagMillis;
+    private final long readYourWritesMillis;
+    private final int batchSize;
+    private final String selectRowSql;
+    private final String deleteRowSql;
+    private final ConcurrentHashMap<String, Long> recentWrites = new ConcurrentHashMap<>();
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ScheduledExecutorService scheduler;
+    private volatile boolean closed;
+
+    // Metrics
+    private final LongAdder applied = new LongAdder();
+    private final LongAdder resyncs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder primaryFallbacks = new LongAdder();
+
+    /**
+     * Installs the change feed on every primary, copies each primary to its replicas and,
+     * if {@code pollMillis} is positive, starts syncing in the background.
+     * @param replicaPools For each shard, the pools of its replicas (the same number for every shard).
+     * @param pollMillis Delay between sync passes; 0 means only when {@link #replicate()} is called.
+     * @param maxLagMillis Replicas further behind than this are not read from.
+     * @param readYourWritesMillis How long past the replicas' catch-up a recent write still goes to the primary.
+     * @param batchSize Rows per batch when copying to a replica, and changes read per page of the feed.
+     */
+    public ReadReplicas(ShardRouter primaries, UrlSchema schema, List<List<ConnectionPool>> replicaPools,
+                        long pollMillis, long maxLagMillis, long readYourWritesMillis, int batchSize) throws SQLException {
+        if (replicaPools.size() != primaries.shardCount() || replicaPools.get(0).isEmpty() || batchSize < 1) {
+            throw new IllegalArgumentException("Every shard needs at least one replica, and batchSize must be positive");
+        }
+        this.primaries = primaries;
+        this.schema = schema;
+        this.maxLagMillis = maxLagMillis;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.batchSize = batchSize;
+        this.selectRowSql = "SELECT " + schema.selectColumns + ", created_at, expires_at FROM urls WHERE "
+            + schema.keyColumn + " = ?";
+        this.deleteRowSql = "DELETE FROM urls WHERE " + schema.keyColumn + " = ?";
+        this.replicas = new Replica[replicaPools.size()][];
+        for (int shard = 0; shard < replicas.length; shard++) {
+            List<ConnectionPool> pools = replicaPools.get(shard);
+            replicas[shard] = new Replica[pools.size()];
+            for (int j = 0; j < pools.size(); j++) {
+                replicas[shard][j] = new Replica(pools.get(j), "shard " + shard + " replica " + j);
+            }
+        }
+
+        for (ConnectionPool primary : primaries.pools()) {
+            installFeed(primary);
+        }
+        replicate();
+
+        if (pollMillis > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "replica-sync");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduler.scheduleWithFixedDelay(this::replicateQuietly, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Builds db.replicas replicas per shard from the db.replicas.* settings. Each replica gets the db.pool.* settings.
+     */
+    public static ReadReplicas fromConfig(AppConfig config, ShardRouter primaries, UrlSchema schema) throws SQLException {
+        int count = config.getInt("db.replicas", 0);
+        List<List<ConnectionPool>> pools = new ArrayList<>();
+        for (int shard = 0; shard < primaries.shardCount(); shard++) {
+            List<ConnectionPool> shardReplicas = new ArrayList<>();
+            for (int j = 0; j < count; j++) {
+                String suffix = ShardRouter.databaseSuffix(shard, primaries.shardCount()) + "-replica-" + j;
+                shardReplicas.add(ConnectionPool.fromConfig(config, DatabaseManager.buildJdbcUrl(config, suffix)));
+            }
+            pools.add(shardReplicas);
+        }
+        try {
+            return new ReadReplicas(primaries, schema, pools,
+                config.getLong("db.replicas.pollMillis", 100),
+                config.getLong("db.replicas.maxLagMillis", 5000),
+                config.getLong("db.replicas.readYourWritesMillis", 1000),
+                config.getInt("db.replicas.batchSize", 500));
+        } catch (SQLException | RuntimeException e) {
+            pools.forEach(shardReplicas -> shardReplicas.forEach(ConnectionPool::close));
+            throw e;
+        }
+    }
+
+    /**
+     * Removes the change feed from every primary, so a database that once had replicas
+     * stops recording changes nobody reads.
+     */
+    static void dropFeed(ShardRouter primaries) throws SQLException {
+        for (ConnectionPool primary : primaries.pools()) {
+            try (ConnectionPool.PooledConnection pc = primary.acquire();
+                 Statement stmt = pc.getConnection().createStatement()) {
+                stmt.execute("DROP TRIGGER IF EXISTS " + TRIGGER_NAME);
+                stmt.execute("DROP TABLE IF EXISTS url_changes");
+            }
+        }
+    }
+
+    private void installFeed(ConnectionPool primary) throws SQLException {
+        String keyType = schema == UrlSchema.COMPACT ? "BIGINT" : "VARCHAR(" + Aliases.MAX_KEY_LENGTH + ")";
+        try (ConnectionPool.PooledConnection pc = primary.acquire();
+             Statement stmt = pc.getConnection().createStatement()) {
+            // Changes from before this start are covered by the full copy every replica gets now,
+            // so the feed is recreated rather than kept (which also picks up a widened key column)
+            stmt.execute("DROP TABLE IF EXISTS url_changes");
+            stmt.execute("CREATE TABLE url_changes ("
+                + "seq BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, k " + keyType + " NOT NULL)");
+            stmt.execute("CREATE TRIGGER IF NOT EXISTS " + TRIGGER_NAME + " AFTER INSERT, UPDATE, DELETE ON urls "
+                + "FOR EACH ROW CALL '" + ChangeTrigger.class.getName() + "'");
+        }
+    }
+
+    /**
+     * Runs one sync pass: rebuilds every replica that is out of sync, then applies the
+     * change feed of each shard to its replicas.
+     * @return The number of changed keys applied.
+     * @throws SQLException if a primary could not be read; its replicas fall behind until a later pass works.
+     */
+    public synchronized long replicate() throws SQLException {
+        long keys = 0;
+        SQLException failure = null;
+        for (int shard = 0; shard < replicas.length && !closed; shard++) {
+            try {
+                keys += replicateShard(shard);
+            } catch (SQLException e) {
+                failure = e;
+            }
+        }
+        pruneRecentWrites();
+        if (failure != null) {
+            throw failure;
+        }
+        return keys;
+    }
+
+    private void replicateQuietly() {
+        try {
+            replicate();
+        } catch (SQLException e) {
+            System.err.println("❌ Replica sync failed, will retry: " + e.getMessage());
+        }
+    }
+
+    private long replicateShard(int shard) throws SQLException {
+        long passStart = System.currentTimeMillis();
+        Replica[] set = replicas[shard];
+        long keys = 0;
+        try (ConnectionPool.PooledConnection primary = primaries.pool(shard).acquire()) {
+            for (Replica replica : set) {
+                if (!replica.inSync) {
+                    resync(primary, replica);
+                }
+            }
+            while (!closed) {
+                PreparedStatement page = primary.prepare(FEED_PAGE_SQL);
+                page.setInt(1, batchSize);
+                Set<Object> changed = new LinkedHashSet<>();
+                long lastSeq = -1;
+                int rows = 0;
+                try (ResultSet rs = page.executeQuery()) {
+                    while (rs.next()) {
+                        lastSeq = rs.getLong(1);
+                        changed.add(rs.getObject(2));
+                        rows++;
+                    }
+                }
+                if (rows == 0) {
+                    break;
+                }
+                List<Link> links = readCurrent(primary, changed);
+                for (Replica replica : set) {
+                    if (replica.inSync) {
+                        try {
+                            apply(replica, links);
+                        } catch (SQLException e) {
+                            markFailed(replica, e);
+                        }
+                    }
+                }
+                PreparedStatement trim = primary.prepare(TRIM_FEED_SQL);
+                trim.setLong(1, lastSeq);
+                trim.executeUpdate();
+                keys += changed.size();
+                if (rows < batchSize) {
+                    break;
+                }
+            }
+        }
+        for (Replica replica : set) {
+            if (replica.inSync) {
+                replica.caughtUpAt = passStart;
+            }
+        }
+        applied.add(keys);
+        return keys;
+    }
+
+    /**
+     * Reads the primary's current row of each changed key; a key without one was deleted.
+     */
+    private List<Link> readCurrent(ConnectionPool.PooledConnection primary, Set<Object> changed) throws SQLException {
+        List<Link> links = new ArrayList<>(changed.size());
+        PreparedStatement select = primary.prepare(selectRowSql);
+        int createdAt = schema.selectWidth + 1;
+        for (Object rawKey : changed) {
+            select.setObject(1, rawKey);
+            Link link = new Link(rawKey);
+            try (ResultSet rs = select.executeQuery()) {
+                if (rs.next()) {
+                    link.shortKey = schema.readKey(rs, 1);
+                    link.longUrl = schema.readUrl(primary.getConnection(), rs, 2);
+                    link.createdAt = rs.getTimestamp(createdAt);
+                    link.expiresAt = rs.getTimestamp(createdAt + 1);
+                }
+            }
+            links.add(link);
+        }
+        return links;
+    }
+
+    private void apply(Replica replica, List<Link> links) throws SQLException {
+        try (LinkBatchWriter out = new LinkBatchWriter(replica.router, schema, batchSize)) {
+            for (Link link : links) {
+                if (link.longUrl != null) {
+                    out.add(link.shortKey, link.longUrl, link.createdAt, link.expiresAt);
+                }
+            }
+            out.flush();
+        }
+        try (ConnectionPool.PooledConnection pc = replica.pool.acquire()) {
+            PreparedStatement delete = pc.prepare(deleteRowSql);
+            for (Link link : links) {
+                if (link.longUrl == null) {
+                    delete.setObject(1, link.rawKey);
+                    delete.executeUpdate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Empties a replica and copies the whole primary into it, one page of keys at a time.
+     * Rows that change during the copy are in the feed, which is applied right after.
+     */
+    private void resync(ConnectionPool.PooledConnection primary, Replica replica) {
+        long start = System.nanoTime();
+        String columns = "SELECT " + schema.selectColumns + ", created_at, expires_at FROM urls";
+        String order = " ORDER BY " + schema.keyColumn + " LIMIT ?";
+        int createdAt = schema.selectWidth + 1;
+        long copied = 0;
+        try (LinkBatchWriter out = new LinkBatchWriter(replica.router, schema, batchSize)) {
+            try (Statement stmt = out.connection(0).createStatement()) {
+                stmt.execute("TRUNCATE TABLE urls");
+            }
+            Object lastKey = null;
+            while (true) {
+                PreparedStatement page = primary.prepare(lastKey == null
+                    ? columns + order
+                    : columns + " WHERE " + schema.keyColumn + " > ?" + order);
+                int index = 1;
+                if (lastKey != null) {
+                    page.setObject(index++, lastKey);
+                }
+                page.setInt(index, batchSize);
+                int rows = 0;
+                try (ResultSet rs = page.executeQuery()) {
+                    while (rs.next()) {
+                        lastKey = rs.getObject(1);
+                        out.add(schema.readKey(rs, 1), schema.readUrl(primary.getConnection(), rs, 2),
+                            rs.getTimestamp(createdAt), rs.getTimestamp(createdAt + 1));
+                        rows++;
+                    }
+                }
+                copied += rows;
+                if (rows < batchSize) {
+                    break;
+                }
+            }
+            out.flush();
+        } catch (SQLException e) {
+            markFailed(replica, e);
+            return;
+        }
+        replica.inSync = true;
+        resyncs.increment();
+        System.out.printf("✅ Replica status: %s rebuilt with %d links in %d ms.%n",
+            replica.name, copied, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void markFailed(Replica replica, SQLException e) {
+        if (replica.inSync) {
+            System.err.println("❌ Replica " + replica.name + " taken out of rotation: " + e.getMessage());
+        }
+        replica.inSync = false;
+        failures.increment();
+    }
+
+    /**
+     * Picks a healthy replica of the key's shard, round-robin.
+     * @return The replica's pool, or null if the primary has to answer.
+     */
+    public ConnectionPool route(String shortKey) {
+        Replica[] set = replicas[primaries.shardOf(shortKey)];
+        int first = Math.floorMod(nextReplica.getAndIncrement(), set.length);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < set.length; i++) {
+            Replica replica = set[(first + i) % set.length];
+            if (replica.isHealthy(now, maxLagMillis)) {
+                return replica.pool;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Takes a replica whose lookup failed out of rotation; the next sync pass rebuilds it.
+     */
+    public void reportFailure(ConnectionPool replicaPool, SQLException e) {
+        for (Replica[] set : replicas) {
+            for (Replica replica : set) {
+                if (replica.pool == replicaPool) {
+                    markFailed(replica, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Remembers that this process just wrote the key to the primary.
+     */
+    public void recordWrite(String shortKey) {
+        recentWrites.put(shortKey, System.currentTimeMillis());
+    }
+
+    /**
+     * Decides what a replica miss means.
+     * @return true if the key was written recently, so the primary has to be asked instead.
+     */
+    public boolean missNeedsPrimary(String shortKey) {
+        if (!recentWrites.containsKey(shortKey)) {
+            return false;
+        }
+        primaryFallbacks.increment();
+        return true;
+    }
+
+    /**
+     * Forgets writes that every replica in sync has already applied. Replicas that are out of
+     * sync don't count: they get a full copy, taken after this pass started, before being read again.
+     */
+    private void pruneRecentWrites() {
+        long caughtUp = System.currentTimeMillis();
+        for (Replica[] set : replicas) {
+            for (Replica replica : set) {
+                if (replica.inSync) {
+                    caughtUp = Math.min(caughtUp, replica.caughtUpAt);
+                }
+            }
+        }
+        long cutoff = caughtUp - readYourWritesMillis;
+        recentWrites.values().removeIf(writtenAt -> writtenAt < cutoff);
+    }
+
+    /**
+     * Stops syncing and closes the replica pools. Waits for a running pass instead of
+     * interrupting it mid-write.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdown();
+            try {
+                scheduler.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Replica[] set : replicas) {
+            for (Replica replica : set) {
+                replica.pool.close();
+            }
+        }
+    }
+
+    public int getReplicaCount() {
+        return replicas.length * replicas[0].length;
+    }
+
+    public int getHealthyCount() {
+        long now = System.currentTimeMillis();
+        int healthy = 0;
+        for (Replica[] set : replicas) {
+            for (Replica replica : set) {
+                if (replica.isHealthy(now, maxLagMillis)) {
+                    healthy++;
+                }
+            }
+        }
+        return healthy;
+    }
+
+    /**
+     * How far the furthest-behind replica in sync trails its primary, in milliseconds (0 if none is in sync).
+     */
+    public long getLagMillis() {
+        long now = System.currentTimeMillis();
+        long lag = 0;
+        for (Replica[] set : replicas) {
+            for (Replica replica : set) {
+                if (replica.inSync) {
+                    lag = Math.max(lag, now - replica.caughtUpAt);
+                }
+            }
+        }
+        return lag;
+    }
+
+    public int getRecentWriteCount() { return recentWrites.size(); }
+    public long getAppliedCount() { return applied.sum(); }
+    public long getResyncCount() { return resyncs.sum(); }
+    public long getFailureCount() { return failures.sum(); }
+    public long getPrimaryFallbackCount() { return primaryFallbacks.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("replicas[healthy=%d/%d, lag=%d ms, applied=%d, resyncs=%d, failures=%d, primaryFallbacks=%d]",
+            getHealthyCount(), getReplicaCount(), getLagMillis(), getAppliedCount(), getResyncCount(),
+            getFailureCount(), getPrimaryFallbackCount());
+    }
+
+    private static final class Replica {
+        final ConnectionPool pool;
+        // A one-shard layout for LinkBatchWriter; the pool is closed on its own
+        final ShardRouter router;
+        final String name;
+        // False until a full copy succeeds, and again after any failed sync or lookup
+        volatile boolean inSync;
+        // Wall-clock start of the last sync pass this replica completed
+        volatile long caughtUpAt;
+
+        Replica(ConnectionPool pool, String name) {
+            this.pool = pool;
+            this.router = new ShardRouter(List.of(pool));
+            this.name = name;
+        }
+
+        boolean isHealthy(long now, long maxLagMillis) {
+            return inSync && now - caughtUpAt <= maxLagMillis;
+        }
+    }
+
+    /**
+     * The primary's current row for a changed key; longUrl stays null if the row was deleted.
+     */
+    private static final class Link {
+        final Object rawKey;
+        String shortKey;
+        String longUrl;
+        Timestamp createdAt;
+        Timestamp expiresAt;
+
+        Link(Object rawKey) {
+            this.rawKey = rawKey;
+        }
+    }
+
+    /**
+     * Row trigger on the primary's urls table that appends the key of every changed row to
+     * url_changes. H2 creates it by class name, so it has to be public with a no-argument constructor.
+     */
+    public static final class ChangeTrigger implements Trigger {
+
+        private int keyIndex;
+
+        @Override
+        public void init(Connection conn, String schemaName, String triggerName, String tableName,
+                         boolean before, int type) throws SQLException {
+            String column = UrlSchema.of(conn).keyColumn.toUpperCase(Locale.ROOT);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT ORDINAL_POSITION FROM INFORMATION_SCHEMA.COLUMNS "
+                    + "WHERE TABLE_SCHEMA = ? AND TABLE_NAME = ? AND COLUMN_NAME = ?")) {
+                pstmt.setString(1, schemaName);
+                pstmt.setString(2, tableName);
+                pstmt.setString(3, column);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new SQLException("Column " + column + " not found in " + tableName);
+                    }
+                    keyIndex = rs.getInt(1) - 1;
+                }
+            }
+        }
+
+        @Override
+        public void fire(Connection conn, Object[] oldRow, Object[] newRow) throws SQLException {
+            Object key = (newRow != null ? newRow : oldRow)[keyIndex];
+            append(conn, key);
+            if (oldRow != null && newRow != null && !key.equals(oldRow[keyIndex])) {
+                append(conn, oldRow[keyIndex]);
+            }
+        }
+
+        private static void append(Connection conn, Object key) throws SQLException {
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO url_changes (k) VALUES (?)")) {
+                pstmt.setObject(1, key);
+                pstmt.executeUpdate();
+            }
+        }
+    }
+}
@@ -0,0 +1,386 @@
+package com.yourcompany.urlshortener;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-interactive HTTP mode for the shortener, built on the JDK's built-in HTTP server.
+ *
+ *   GET  /{shortKey}  -> 302 (or 301) redirect to the long URL, 404 if unknown
+ *   GET  /{namespace}/{alias} -> the same for an alias claimed in a tenant namespace
+ *   POST /shorten     -> 201 with the new short key; the body is the URL (or url=... form data).
+ *                        ?ttl=N makes the link expire N seconds from now. The URL is stored in
+ *                        its UrlCanonicalizer form; 400 if it is not a valid http(s) URL.
+ *                        ?alias=A (and optionally namespace=N) claims that key instead of a
+ *                        generated one: 201 with "A" or "N/A", 409 if it is taken, 400 if it
+ *                        breaks the {@link Aliases} rules.
+ *   GET  /metrics     -> Prometheus text format metrics (path set by server.metricsPath, blank to disable)
+ *
+ * With ratelimit.enabled, shortening (and optionally redirecting) is limited per client address
+ * and overall; requests over the limit get 429 with Retry-After before any database work.
+ * Links are read and written through a {@link UrlStore} (the H2 database unless another is given).
+ * Each request runs on its own virtual thread when the JVM supports them (Java 21+),
+ * otherwise on a bounded platform thread pool.
+ */
+public class RedirectServer {
+
+    private final UrlStore store;
+    private final int port;
+    private final int backlog;
+    private final int redirectStatus;
+    private final int maxBodyBytes;
+    private final int shutdownGraceSeconds;
+    private final String metricsPath;
+    private boolean trustForwardedFor;
+    private RateLimiter shortenLimiter;
+    private RateLimiter resolveLimiter;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    public RedirectServer(int port, int backlog, int redirectStatus, int maxBodyBytes, int shutdownGraceSeconds) {
+        this(port, backlog, redirectStatus, maxBodyBytes, shutdownGraceSeconds, "/metrics");
+    }
+
+    /**
+     * @param metricsPath Path that serves Prometheus metrics instead of a redirect, or null/blank for none.
+     *                    A short key with the same name is shadowed.
+     */
+    public RedirectServer(int port, int backlog, int redirectStatus, int maxBodyBytes, int shutdownGraceSeconds,
+                          String metricsPath) {
+        this(new JdbcUrlStore(), port, backlog, redirectStatus, maxBodyBytes, shutdownGraceSeconds, metricsPath);
+    }
+
+    /**
+     * @param store Where links are looked up and saved. The caller initializes and closes it.
+     */
+    public RedirectServer(UrlStore store, int port, int backlog, int redirectStatus, int maxBodyBytes,
+                          int shutdownGraceSeconds, String metricsPath) {
+        if (redirectStatus != 301 && redirectStatus != 302) {
+            throw new IllegalArgumentException("Redirect status must be 301 or 302");
+        }
+        this.store = store;
+        this.port = port;
+        this.backlog = backlog;
+        this.redirectStatus = redirectStatus;
+        this.maxBodyBytes = maxBodyBytes;
+        this.shutdownGraceSeconds = shutdownGraceSeconds;
+        this.metricsPath = metricsPath == null || metricsPath.isBlank() ? null : metricsPath;
+    }
+
+    /**
+     * Builds a server from the server.* settings in application.properties.
+     */
+    public static RedirectServer fromConfig(AppConfig config) {
+        return fromConfig(config, new JdbcUrlStore());
+    }
+
+    /**
+     * Builds a server from the server.* settings that serves links from {@code store}.
+     */
+    public static RedirectServer fromConfig(AppConfig config, UrlStore store) {
+        // The JDK server reads its keep-alive settings from system properties, so pass ours through
+        setIfAbsent("sun.net.httpserver.idleInterval", config.getString("server.keepAliveSeconds", "30"));
+        setIfAbsent("sun.net.httpserver.maxIdleConnections", config.getString("server.maxIdleConnections", "200"));
+
+        RedirectServer server = new RedirectServer(store,
+            config.getInt("server.port", 8080),
+            config.getInt("server.backlog", 128),
+            config.getInt("server.redirectStatus", 302),
+            config.getInt("server.maxBodyBytes", 4096),
+            config.getInt("server.shutdownGraceSeconds", 5),
+            config.getString("server.metricsPath", "/metrics"));
+        server.setRateLimiters(RateLimiter.fromConfig(config, "shorten"), RateLimiter.fromConfig(config, "resolve"),
+            config.getBoolean("ratelimit.trustForwardedFor", false));
+        return server;
+    }
+
+    /**
+     * Sets the limits applied to POST /shorten and to redirects; null means unlimited.
+     * Call before {@link #start()}.
+     * @param trustForwardedFor Identify clients by the first X-Forwarded-For address instead of
+     *                          the connection's, for when the server sits behind a proxy.
+     */
+    public void setRateLimiters(RateLimiter shorten, RateLimiter resolve, boolean trustForwardedFor) {
+        this.shortenLimiter = shorten;
+        this.resolveLimiter = resolve;
+        this.trustForwardedFor = trustForwardedFor;
+    }
+
+    private static void setIfAbsent(String key, String value) {
+        if (System.getProperty(key) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
+    /**
+     * Binds the port and starts serving. Returns immediately; use {@link #awaitStop()} to block.
+     */
+    public synchronized void start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), backlog);
+        server.createContext("/", this::handle);
+        executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.start();
+        System.out.println("✅ Server status: listening on port " + getPort() + ".");
+    }
+
+    /**
+     * One virtual thread per request on Java 21+, looked up reflectively so the
+     * project still compiles and runs on Java 17.
+     */
+    static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int threads = AppConfig.get().getInt("server.workerThreads", 4 * Runtime.getRuntime().availableProcessors());
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    /**
+     * Stops accepting connections, gives in-flight requests the grace period to finish,
+     * then releases the worker threads.
+     */
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        server.stop(shutdownGraceSeconds);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(shutdownGraceSeconds, TimeUnit.SECONDS)) {
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+        System.out.println("Server stopped.");
+        stopped.countDown();
+    }
+
+    public void awaitStop() throws InterruptedException {
+        stopped.await();
+    }
+
+    /**
+     * The bound port; differs from the configured one when that was 0 (any free port).
+     */
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+
+            if (path.equals(metricsPath) && ("GET".equals(method) || "HEAD".equals(method))) {
+                sendText(exchange, 200, Metrics.toPrometheus(), "text/plain; version=0.0.4; charset=utf-8");
+            } else if ("/shorten".equals(path)) {
+                if ("POST".equals(method)) {
+                    handleShorten(exchange);
+                } else {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    sendText(exchange, 405, "Use POST to shorten a URL.");
+                }
+            } else if ("GET".equals(method) || "HEAD".equals(method)) {
+                handleRedirect(exchange, path);
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendText(exchange, 405, "Method not allowed.");
+            }
+        } catch (RuntimeException e) {
+            System.err.println("❌ Error handling " + exchange.getRequestURI() + ": " + e.getMessage());
+            sendText(exchange, 500, "Internal error.");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleRedirect(HttpExchange exchange, String path) throws IOException {
+        String shortKey = path.length() > 1 ? path.substring(1) : "";
+        // At most one '/', between a namespace and an alias; anything else can't be a key
+        int slash = shortKey.indexOf('/');
+        if (shortKey.isEmpty() || shortKey.length() > Aliases.MAX_KEY_LENGTH
+                || (slash >= 0 && (slash == 0 || slash == shortKey.length() - 1 || shortKey.indexOf('/', slash + 1) >= 0))) {
+            sendText(exchange, 404, "Not found.");
+            return;
+        }
+
+        if (resolveLimiter != null && isLimited(exchange, resolveLimiter, Metrics.RATE_LIMITED_RESOLVE)) {
+            return;
+        }
+        String longUrl = store.find(shortKey);
+        if (longUrl == null) {
+            sendText(exchange, 404, "Key not found.");
+            return;
+        }
+        exchange.getResponseHeaders().set("Location", longUrl);
+        exchange.sendResponseHeaders(redirectStatus, -1);
+        WarmStart.firstRedirect();
+    }
+
+    private void handleShorten(HttpExchange exchange) throws IOException {
+        if (shortenLimiter != null && isLimited(exchange, shortenLimiter, Metrics.RATE_LIMITED_SHORTEN)) {
+            return;
+        }
+        String body = readBody(exchange);
+        if (body == null) {
+            sendText(exchange, 413, "URL is too long.");
+            return;
+        }
+        String longUrl = body.trim();
+        if (longUrl.startsWith("url=")) {
+            longUrl = URLDecoder.decode(longUrl.substring(4), StandardCharsets.UTF_8);
+        }
+
+        longUrl = UrlCanonicalizer.canonicalize(longUrl);
+        if (longUrl == null) {
+            sendText(exchange, 400, "Invalid URL. It must be an http:// or https:// address of at most "
+                + UrlCanonicalizer.MAX_LENGTH + " characters.");
+            return;
+        }
+
+        Instant expiresAt = null;
+        String alias = null;
+        String namespace = null;
+        String query = exchange.getRequestURI().getRawQuery();
+        for (String param : query == null ? new String[0] : query.split("&")) {
+            if (param.startsWith("ttl=")) {
+                try {
+                    long ttlSeconds = Long.parseLong(param.substring(4));
+                    if (ttlSeconds <= 0 || ttlSeconds > UrlStore.MAX_TTL_SECONDS) {
+                        throw new NumberFormatException();
+                    }
+                    expiresAt = Instant.now().plusSeconds(ttlSeconds);
+                } catch (NumberFormatException e) {
+                    sendText(exchange, 400, "ttl must be a positive number of seconds, at most " + UrlStore.MAX_TTL_SECONDS + ".");
+                    return;
+                }
+            } else if (param.startsWith("alias=")) {
+                alias = URLDecoder.decode(param.substring(6), StandardCharsets.UTF_8);
+            } else if (param.startsWith("namespace=")) {
+                namespace = URLDecoder.decode(param.substring(10), StandardCharsets.UTF_8);
+            }
+        }
+
+        if (alias != null || namespace != null) {
+            claimAlias(exchange, namespace, alias, longUrl, expiresAt);
+            return;
+        }
+        String shortKey = store.shorten(longUrl, expiresAt);
+        if (shortKey == null) {
+            sendText(exchange, 503, "Failed to shorten URL. Database error occurred.");
+            return;
+        }
+        sendText(exchange, 201, shortKey);
+    }
+
+    private void claimAlias(HttpExchange exchange, String namespace, String alias, String longUrl, Instant expiresAt)
+            throws IOException {
+        switch (store.claim(namespace, alias, longUrl, expiresAt)) {
+            case CLAIMED:
+                sendText(exchange, 201, Aliases.qualify(namespace, alias));
+                break;
+            case TAKEN:
+                sendText(exchange, 409, "Alias is already taken.");
+                break;
+            case INVALID:
+                sendText(exchange, 400, "Invalid alias. Use up to " + Aliases.MAX_ALIAS_LENGTH
+                    + " letters, digits, '-' or '_', and a namespace of up to " + Aliases.MAX_NAMESPACE_LENGTH
+                    + " lowercase letters, digits or '-'.");
+                break;
+            case RESERVED:
+                sendText(exchange, 400, "Alias looks like a generated key. Make it longer or shorter than "
+                    + AppConfig.get().getInt("keys.length", 6) + " characters, add '-' or '_', or use a namespace.");
+                break;
+            case UNSUPPORTED:
+                sendText(exchange, 400, "Alias not supported by this server's storage layout (db.schema=compact): "
+                    + "use up to " + KeyGenerator.MAX_ENCODED_LENGTH + " letters or digits, without a namespace.");
+                break;
+            default:
+                sendText(exchange, 503, "Failed to shorten URL. Database error occurred.");
+        }
+    }
+
+    /**
+     * Takes a token for the client, or answers 429 and counts the rejection.
+     * @return true if the request was rejected and needs no further handling.
+     */
+    private boolean isLimited(HttpExchange exchange, RateLimiter limiter, LongAdder rejected) throws IOException {
+        long waitNanos = limiter.acquire(clientOf(exchange));
+        if (waitNanos == 0) {
+            return false;
+        }
+        Metrics.count(rejected);
+        exchange.getResponseHeaders().set("Retry-After",
+            Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999))));
+        sendText(exchange, 429, "Too many requests.");
+        return true;
+    }
+
+    private String clientOf(HttpExchange exchange) {
+        if (trustForwardedFor) {
+            String forwarded = exchange.getRequestHeaders().getFirst("X-Forwarded-For");
+            if (forwarded != null && !forwarded.isBlank()) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return exchange.getRemoteAddress().getAddress().getHostAddress();
+    }
+
+    /**
+     * Reads the request body, or returns null if it is larger than server.maxBodyBytes.
+     */
+    private String readBody(HttpExchange exchange) throws IOException {
+        byte[] buffer = new byte[maxBodyBytes + 1];
+        int total = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            int n;
+            while (total < buffer.length && (n = in.read(buffer, total, buffer.length - total)) > 0) {
+                total += n;
+            }
+        }
+        if (total > maxBodyBytes) {
+            return null;
+        }
+        return new String(buffer, 0, total, StandardCharsets.UTF_8);
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String message) throws IOException {
+        sendText(exchange, status, message + "\n", "text/plain; charset=utf-8");
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String body, String contentType) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Offline tool that copies every link from a layout with one shard count into a layout
+ * with another (start the app with --reshard &lt;N&gt;).
+ *
+ * The source databases are only read, so they stay intact as a fallback until db.shards is
+ * switched over; the target databases get different names (see ShardRouter.databaseSuffix)
+ * and never overlap with the source. The application must not be writing while this runs.
+ * Rows are upserted by key, so a rebalance that was interrupted can simply be started again.
+ * The source layout is read from the tables and the target gets the db.schema one, so resharding
+ * is also how existing data moves to db.schema=compact.
+ * Shard 0 also carries over the non-link state: the url_stats click counts and the position
+ * of the key_blocks sequence with the block size it counts in, so a range allocator never hands
+ * out a key twice.
+ */
+public final class ShardRebalancer {
+
+    private static final String SELECT_STATS_SQL =
+        "SELECT short_key, bucket_start, hits FROM url_stats";
+
+    private static final String INSERT_STATS_SQL =
+        "MERGE INTO url_stats (short_key, bucket_start, hits) KEY (short_key, bucket_start) VALUES (?, ?, ?)";
+
+
+    private ShardRebalancer() {
+    }
+
+    /**
+     * Copies all links from {@code fromShards} databases into {@code toShards} databases.
+     * @return The number of links copied.
+     */
+    public static long rebalance(AppConfig config, int fromShards, int toShards, int batchSize) throws SQLException {
+        if (fromShards == toShards) {
+            throw new IllegalArgumentException("Already at " + toShards + " shard(s)");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        long start = System.nanoTime();
+        long copied = 0;
+        try (ShardRouter source = ShardRouter.fromConfig(config, fromShards);
+             ShardRouter target = ShardRouter.fromConfig(config, toShards);
+             LinkBatchWriter out = new LinkBatchWriter(target, UrlSchema.fromConfig(config), batchSize)) {
+
+            for (int s = 0; s < fromShards; s++) {
+                try (ConnectionPool.PooledConnection in = source.pool(s).acquire()) {
+                    copied += copyShard(in.getConnection(), out, batchSize);
+                }
+                System.out.printf("✅ Reshard status: source shard %d of %d copied (%d links so far).%n",
+                    s + 1, fromShards, copied);
+            }
+            out.flush();
+            try (ConnectionPool.PooledConnection in = source.pool(0).acquire()) {
+                copyShardZeroState(in.getConnection(), out.connection(0));
+            }
+        }
+        System.out.printf("✅ Reshard status: %d links moved from %d to %d shard(s) in %d ms.%n",
+            copied, fromShards, toShards, (System.nanoTime() - start) / 1_000_000);
+        return copied;
+    }
+
+    private static long copyShard(Connection in, LinkBatchWriter out, int batchSize) throws SQLException {
+        UrlSchema from = UrlSchema.of(in);
+        int createdAt = from.selectWidth + 1;
+        long copied = 0;
+        try (Statement stmt = in.createStatement()) {
+            stmt.setFetchSize(batchSize);
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT " + from.selectColumns + ", created_at, expires_at FROM urls")) {
+                while (rs.next()) {
+                    out.add(from.readKey(rs, 1), from.readUrl(in, rs, 2),
+                        rs.getTimestamp(createdAt), rs.getTimestamp(createdAt + 1));
+                    copied++;
+                }
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Copies url_stats and the key_blocks sequence position and block size from source shard 0 to target shard 0.
+     */
+    private static void copyShardZeroState(Connection in, Connection out) throws SQLException {
+        try (Statement select = in.createStatement();
+             PreparedStatement insert = out.prepareStatement(INSERT_STATS_SQL)) {
+            try (ResultSet rs = select.executeQuery(SELECT_STATS_SQL)) {
+                while (rs.next()) {
+                    insert.setString(1, rs.getString(1));
+                    insert.setTimestamp(2, rs.getTimestamp(2));
+                    insert.setLong(3, rs.getLong(3));
+                    insert.addBatch();
+                }
+            } catch (SQLException e) {
+                // No url_stats table: analytics were never enabled on the source
+            }
+            insert.executeBatch();
+
+            try (ResultSet rs = select.executeQuery(RangeKeyAllocator.SELECT_NEXT_BLOCK_SQL);
+                 Statement ddl = out.createStatement()) {
+                if (rs.next()) {
+                    long next = rs.getLong(1);
+                    ddl.execute(RangeKeyAllocator.CREATE_SEQUENCE_SQL);
+                    ddl.execute("ALTER SEQUENCE key_blocks RESTART WITH " + next);
+                }
+            }
+            try (ResultSet rs = select.executeQuery(RangeKeyAllocator.SELECT_BLOCK_SIZE_SQL);
+                 Statement ddl = out.createStatement()) {
+                if (rs.next()) {
+                    ddl.execute(RangeKeyAllocator.CREATE_BLOCK_SIZE_SQL);
+                    ddl.execute("MERGE INTO key_block_size (id, block_size) KEY (id) VALUES (0, " + rs.getInt(1) + ")");
+                }
+            } catch (SQLException e) {
+                // No key_block_size table: the range allocator was never used on the source
+            }
+        }
+        out.commit();
+    }
+}
@@ -0,0 +1,96 @@
+package com.yourcompany.urlshortener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Hash-partitions links across N independent H2 databases, each with its own connection pool.
+ *
+ * The shard for a key is a pure function of the key and the shard count, so a lookup goes
+ * straight to one database without a directory or a cross-shard query, and any key from any
+ * KeyAllocator is routable. Changing the shard count moves most keys, which is done offline
+ * with {@link ShardRebalancer}. With db.shards=1 (the default) there is a single database at
+ * the usual db.url / db.file.path, exactly as before sharding existed.
+ */
+public final class ShardRouter implements AutoCloseable {
+
+    private final ConnectionPool[] pools;
+
+    public ShardRouter(List<ConnectionPool> pools) {
+        if (pools.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.pools = pools.toArray(new ConnectionPool[0]);
+    }
+
+    /**
+     * Builds one pool per shard for the db.shards setting.
+     */
+    public static ShardRouter fromConfig(AppConfig config) {
+        return fromConfig(config, config.getInt("db.shards", 1));
+    }
+
+    /**
+     * Builds one pool per shard for an explicit shard count (used when rebalancing).
+     * Each shard gets the db.pool.* settings.
+     */
+    public static ShardRouter fromConfig(AppConfig config, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        List<ConnectionPool> pools = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            pools.add(ConnectionPool.fromConfig(config, DatabaseManager.buildJdbcUrl(config, databaseSuffix(i, shardCount))));
+        }
+        return new ShardRouter(pools);
+    }
+
+    /**
+     * Suffix appended to the database name of one shard: none for an unsharded database,
+     * otherwise "-{shard}-of-{count}", so layouts with different shard counts never share files.
+     */
+    static String databaseSuffix(int shard, int shardCount) {
+        return shardCount == 1 ? "" : "-" + shard + "-of-" + shardCount;
+    }
+
+    /**
+     * Returns the shard that owns the key. Uses String.hashCode, which the Java spec fixes,
+     * so the mapping is the same on every JVM and across restarts.
+     */
+    public static int shardOf(String shortKey, int shardCount) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        int h = shortKey.hashCode() * 0x9E3779B9;
+        return Math.floorMod(h ^ (h >>> 16), shardCount);
+    }
+
+    public int shardOf(String shortKey) {
+        return shardOf(shortKey, pools.length);
+    }
+
+    public ConnectionPool poolFor(String shortKey) {
+        return pools[shardOf(shortKey, pools.length)];
+    }
+
+    public ConnectionPool pool(int shard) {
+        return pools[shard];
+    }
+
+    public List<ConnectionPool> pools() {
+        return Collections.unmodifiableList(Arrays.asList(pools));
+    }
+
+    public int shardCount() {
+        return pools.length;
+    }
+
+    @Override
+    public void close() {
+        for (ConnectionPool pool : pools) {
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,379 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded, read-through LRU cache for short key -> long URL lookups.
+ *
+ * The cache is split into independently locked segments so concurrent redirects
+ * for different keys rarely contend. Each segment is an access-ordered LinkedHashMap
+ * bounded both by entry count and by an estimate of the bytes it holds.
+ * Misses can be cached too ("negative" entries) so scans for random keys
+ * don't all fall through to the database.
+ */
+public class UrlCache {
+
+    // Rough per-entry overhead: map node, entry object, two String headers
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * @param maxEntries Maximum number of entries across all segments.
+     * @param maxBytes Maximum estimated size in bytes across all segments.
+     * @param ttlMillis Time-to-live for found URLs, or 0 to keep them until evicted.
+     * @param negativeTtlMillis Time-to-live for cached misses, or 0 to not cache misses at all.
+     * @param segmentCount Number of lock stripes, rounded up to a power of two.
+     */
+    public UrlCache(long maxEntries, long maxBytes, long ttlMillis, long negativeTtlMillis, int segmentCount) {
+        if (maxEntries < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Cache bounds must be positive");
+        }
+        int count = 1;
+        while (count < segmentCount) {
+            count <<= 1;
+        }
+        while (count > 1 && count > maxEntries) {
+            count >>= 1;
+        }
+        this.segments = new Segment[count];
+        this.segmentMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(Math.max(1, maxEntries / count), Math.max(1, maxBytes / count));
+        }
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.negativeTtlNanos = negativeTtlMillis * 1_000_000L;
+    }
+
+    /**
+     * Builds a cache from the cache.* settings, or returns null when cache.enabled=false.
+     */
+    public static UrlCache fromConfig(AppConfig config) {
+        if (!config.getBoolean("cache.enabled", true)) {
+            return null;
+        }
+        return new UrlCache(
+            config.getLong("cache.maxEntries", 100_000),
+            config.getLong("cache.maxBytes", 64L * 1024 * 1024),
+            config.getLong("cache.ttlSeconds", 0) * 1000,
+            config.getLong("cache.negativeTtlSeconds", 30) * 1000,
+            config.getInt("cache.segments", 16));
+    }
+
+    private Segment segmentFor(String key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & segmentMask];
+    }
+
+    /**
+     * Returns the cached URL for the key, loading and caching it on a miss.
+     * Concurrent misses for the same key may each call the loader; the last result wins.
+     * @param loader Called with the key on a miss; may return null for "not found".
+     * @return The URL, or null if the key is unknown.
+     * @throws SQLException if the loader fails; failures are never cached.
+     */
+    public String get(String key, Loader loader) throws SQLException {
+        return getWithExpiry(key, k -> {
+            String value = loader.load(k);
+            return value == null ? null : new Loaded(value, 0);
+        });
+    }
+
+    /**
+     * Like {@link #get(String, Loader)}, for values that may have their own expiry time.
+     * A value is never served past its expiry, whatever the cache TTL.
+     */
+    public String getWithExpiry(String key, ExpiringLoader loader) throws SQLException {
+        Segment segment = segmentFor(key);
+        long now = System.nanoTime();
+
+        segment.lock.lock();
+        try {
+            Entry entry = segment.map.get(key);
+            if (entry != null) {
+                if (entry.expiresAt == 0 || now - entry.expiresAt < 0) {
+                    if (entry.value == null) {
+                        negativeHits.increment();
+                    } else {
+                        hits.increment();
+                    }
+                    return entry.value;
+                }
+                segment.remove(key);
+                expirations.increment();
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+
+        misses.increment();
+        Loaded loaded = loader.load(key);
+        if (loaded != null && loaded.expiresAtMillis != 0 && loaded.expiresAtMillis <= System.currentTimeMillis()) {
+            loaded = null;
+        }
+        if (loaded != null) {
+            put(key, loaded.value, loaded.expiresAtMillis);
+            return loaded.value;
+        }
+        if (negativeTtlNanos > 0) {
+            // Only if absent: a concurrent saveUrl may already have cached the real mapping
+            store(segment, key, null, deadline(negativeTtlNanos), true);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the cached URL without loading, or null if absent, expired or a cached miss.
+     */
+    public String getIfPresent(String key) {
+        Segment segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            Entry entry = segment.map.get(key);
+            if (entry == null || (entry.expiresAt != 0 && System.nanoTime() - entry.expiresAt >= 0)) {
+                return null;
+            }
+            return entry.value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    /**
+     * Caches a known mapping, replacing any earlier (including negative) entry.
+     */
+    public void put(String key, String value) {
+        store(segmentFor(key), key, value, ttlNanos == 0 ? 0 : deadline(ttlNanos), false);
+    }
+
+    /**
+     * Caches a mapping that stops being valid at a wall-clock time.
+     * @param expiresAtMillis Epoch millis after which the value must not be served, or 0 for never.
+     */
+    public void put(String key, String value, long expiresAtMillis) {
+        if (expiresAtMillis == 0) {
+            put(key, value);
+            return;
+        }
+        long remainingNanos = (expiresAtMillis - System.currentTimeMillis()) * 1_000_000L;
+        if (remainingNanos <= 0) {
+            invalidate(key);
+            return;
+        }
+        long ttl = ttlNanos == 0 ? remainingNanos : Math.min(ttlNanos, remainingNanos);
+        store(segmentFor(key), key, value, deadline(ttl), false);
+    }
+
+    private static long deadline(long ttl) {
+        long deadline = System.nanoTime() + ttl;
+        // 0 is reserved for "never expires"
+        return deadline == 0 ? 1 : deadline;
+    }
+
+    private void store(Segment segment, String key, String value, long expiresAt, boolean onlyIfAbsent) {
+        Entry entry = new Entry(value, expiresAt, weigh(key, value));
+        segment.lock.lock();
+        try {
+            if (onlyIfAbsent && segment.map.containsKey(key)) {
+                return;
+            }
+            segment.remove(key);
+            segment.map.put(key, entry);
+            segment.bytes += entry.weight;
+            evictions.add(segment.evictIfNeeded());
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void invalidate(String key) {
+        Segment segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.remove(key);
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.map.clear();
+                segment.bytes = 0;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Copies up to {@code limit} live found entries (no cached misses), the most recently used
+     * ones of each segment, in least-to-most recently used order, so putting them back in that
+     * order restores the recency. Expiry is returned as epoch millis (0 for never); for an entry
+     * with a cache TTL that is the TTL's end, which is never later than the link's own expiry.
+     */
+    public Map<String, Loaded> hottest(int limit) {
+        Map<String, Loaded> hot = new LinkedHashMap<>();
+        int perSegment = (limit + segments.length - 1) / segments.length;
+        for (Segment segment : segments) {
+            long nowNanos = System.nanoTime();
+            long nowMillis = System.currentTimeMillis();
+            segment.lock.lock();
+            try {
+                int skip = Math.max(0, segment.map.size() - perSegment);
+                for (Map.Entry<String, Entry> e : segment.map.entrySet()) {
+                    Entry entry = e.getValue();
+                    if (skip > 0) {
+                        skip--;
+                    } else if (entry.value != null && (entry.expiresAt == 0 || entry.expiresAt - nowNanos > 0)) {
+                        long expiresAtMillis = entry.expiresAt == 0
+                            ? 0 : nowMillis + Math.max(1, (entry.expiresAt - nowNanos) / 1_000_000);
+                        hot.put(e.getKey(), new Loaded(entry.value, expiresAtMillis));
+                    }
+                }
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return hot;
+    }
+
+    private static int weigh(String key, String value) {
+        return ENTRY_OVERHEAD_BYTES + 2 * key.length() + (value == null ? 0 : 2 * value.length());
+    }
+
+    public long size() {
+        long total = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                total += segment.map.size();
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    public long weightedBytes() {
+        long total = 0;
+        for (Segment segment : segments) {
+            segment.lock.lock();
+            try {
+                total += segment.bytes;
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+        return total;
+    }
+
+    public long getHitCount() { return hits.sum(); }
+    public long getNegativeHitCount() { return negativeHits.sum(); }
+    public long getMissCount() { return misses.sum(); }
+    public long getEvictionCount() { return evictions.sum(); }
+    public long getExpirationCount() { return expirations.sum(); }
+
+    public double getHitRate() {
+        long h = hits.sum() + negativeHits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("cache[size=%d, bytes=%d, hits=%d, negativeHits=%d, misses=%d, evictions=%d, hitRate=%.2f]",
+            size(), weightedBytes(), getHitCount(), getNegativeHitCount(), getMissCount(), getEvictionCount(), getHitRate());
+    }
+
+    /**
+     * Loads the URL for a key that is not in the cache.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        String load(String key) throws SQLException;
+    }
+
+    /**
+     * Loads a value that may carry its own expiry time; returns null for "not found".
+     */
+    @FunctionalInterface
+    public interface ExpiringLoader {
+        Loaded load(String key) throws SQLException;
+    }
+
+    /**
+     * A loaded value and its wall-clock expiry (epoch millis, 0 = never).
+     */
+    public static final class Loaded {
+        final String value;
+        final long expiresAtMillis;
+
+        public Loaded(String value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static final class Entry {
+        final String value;     // null for a cached miss
+        final long expiresAt;   // System.nanoTime() deadline, 0 = never
+        final int weight;
+
+        Entry(String value, long expiresAt, int weight) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.weight = weight;
+        }
+    }
+
+    private static final class Segment {
+        final ReentrantLock lock = new ReentrantLock();
+        final LinkedHashMap<String, Entry> map = new LinkedHashMap<>(16, 0.75f, true);
+        final long maxEntries;
+        final long maxBytes;
+        long bytes;
+
+        Segment(long maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        void remove(String key) {
+            Entry old = map.remove(key);
+            if (old != null) {
+                bytes -= old.weight;
+            }
+        }
+
+        /** Drops least-recently-used entries until the segment is within bounds. Caller holds the lock. */
+        int evictIfNeeded() {
+            int evicted = 0;
+            Iterator<Map.Entry<String, Entry>> it = map.entrySet().iterator();
+            while ((map.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+                Entry eldest = it.next().getValue();
+                it.remove();
+                bytes -= eldest.weight;
+                evicted++;
+            }
+            return evicted;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.yourcompany.urlshortener;
+
+import java.net.IDN;
+import java.util.Locale;
+
+/**
+ * Validates a URL and rewrites it into one canonical form before it is stored, so trivially
+ * different spellings of the same address share a key (with dedupe) and a cache entry.
+ *
+ *   - only http:// and https://, at most MAX_LENGTH (the long_url column) characters
+ *   - scheme and host lowercased; internationalized hosts converted to punycode
+ *   - default ports (80, 443) and empty ports dropped, leading zeros removed from others
+ *   - an empty path becomes "/"; the #fragment is dropped (browsers never send it)
+ *   - percent-escapes of unreserved characters decoded, all others given uppercase hex
+ *   - spaces, characters that are not allowed in URLs and non-ASCII text percent-encoded as UTF-8
+ *   - control characters, a missing or malformed host and invalid ports are rejected
+ *
+ * It is one pass over the string without java.net.URI or regular expressions. A URL that is
+ * already canonical is returned as the same instance, so the common case allocates nothing;
+ * otherwise the output is built in a single StringBuilder.
+ */
+public final class UrlCanonicalizer {
+
+    /** Longest URL that fits the long_url column. */
+    public static final int MAX_LENGTH = 2048;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private UrlCanonicalizer() {
+    }
+
+    /**
+     * Returns the canonical form of {@code url}, or null if it is not a valid http(s) URL.
+     */
+    public static String canonicalize(String url) {
+        if (url == null || url.length() > MAX_LENGTH) {
+            return null;
+        }
+        int length = url.length();
+        StringBuilder out = null;
+
+        int authorityStart;
+        boolean https;
+        if (url.regionMatches(true, 0, "http://", 0, 7)) {
+            authorityStart = 7;
+            https = false;
+        } else if (url.regionMatches(true, 0, "https://", 0, 8)) {
+            authorityStart = 8;
+            https = true;
+        } else {
+            return null;
+        }
+        if (!url.startsWith(https ? "https://" : "http://")) {
+            out = new StringBuilder(length + 16).append(https ? "https://" : "http://");
+        }
+
+        int authorityEnd = authorityStart;
+        while (authorityEnd < length && "/?#".indexOf(url.charAt(authorityEnd)) < 0) {
+            authorityEnd++;
+        }
+
+        // Userinfo is kept as written
+        int hostStart = url.lastIndexOf('@', authorityEnd - 1) + 1;
+        if (hostStart <= authorityStart) {
+            hostStart = authorityStart;
+        } else {
+            for (int i = authorityStart; i < hostStart; i++) {
+                char c = url.charAt(i);
+                if (c <= ' ' || c >= 0x7f) {
+                    return null;
+                }
+                if (out != null) {
+                    out.append(c);
+                }
+            }
+        }
+
+        int hostEnd;
+        if (hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+            hostEnd = url.indexOf(']', hostStart);
+            if (hostEnd < 0 || hostEnd >= authorityEnd) {
+                return null;
+            }
+            hostEnd++;
+            for (int i = hostStart; i < hostEnd; i++) {
+                char c = url.charAt(i);
+                boolean allowed = c == '[' || c == ']' || c == ':' || c == '.' || isHex(c);
+                if (!allowed) {
+                    return null;
+                }
+                out = appendLowercase(out, url, i, c);
+            }
+        } else {
+            hostEnd = url.indexOf(':', hostStart);
+            if (hostEnd < 0 || hostEnd > authorityEnd) {
+                hostEnd = authorityEnd;
+            }
+            if (hostEnd == hostStart) {
+                return null;
+            }
+            boolean ascii = true;
+            for (int i = hostStart; i < hostEnd && ascii; i++) {
+                ascii = url.charAt(i) < 0x80;
+            }
+            if (ascii) {
+                for (int i = hostStart; i < hostEnd; i++) {
+                    char c = url.charAt(i);
+                    boolean allowed = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                        || c == '-' || c == '.' || c == '_';
+                    if (!allowed) {
+                        return null;
+                    }
+                    out = appendLowercase(out, url, i, c);
+                }
+            } else {
+                String punycode;
+                try {
+                    punycode = IDN.toASCII(url.substring(hostStart, hostEnd));
+                } catch (IllegalArgumentException e) {
+                    return null;
+                }
+                if (punycode.isEmpty()) {
+                    return null;
+                }
+                out = diverge(out, url, hostStart).append(punycode.toLowerCase(Locale.ROOT));
+            }
+        }
+
+        if (hostEnd < authorityEnd) {
+            // ":port"
+            int portStart = hostEnd + 1;
+            int port = 0;
+            if (authorityEnd - portStart > 5) {
+                return null;
+            }
+            for (int i = portStart; i < authorityEnd; i++) {
+                char c = url.charAt(i);
+                if (c < '0' || c > '9') {
+                    return null;
+                }
+                port = port * 10 + (c - '0');
+            }
+            if (port > 65535) {
+                return null;
+            }
+            boolean keep = authorityEnd > portStart && port != (https ? 443 : 80);
+            boolean leadingZero = authorityEnd - portStart > 1 && url.charAt(portStart) == '0';
+            if (!keep) {
+                out = diverge(out, url, hostEnd);
+            } else if (out != null || leadingZero) {
+                out = diverge(out, url, hostEnd).append(':').append(port);
+            }
+        }
+
+        if (authorityEnd == length || url.charAt(authorityEnd) != '/') {
+            out = diverge(out, url, authorityEnd).append('/');
+        }
+
+        int end = length;
+        for (int i = authorityEnd; i < length; i++) {
+            char c = url.charAt(i);
+            if (c == '#') {
+                end = i;
+                break;
+            }
+            if (c == '%' && i + 2 < length && isHex(url.charAt(i + 1)) && isHex(url.charAt(i + 2))) {
+                char hi = url.charAt(i + 1);
+                char lo = url.charAt(i + 2);
+                int value = Character.digit(hi, 16) << 4 | Character.digit(lo, 16);
+                if (isUnreserved(value)) {
+                    out = diverge(out, url, i).append((char) value);
+                } else if (out != null || hi != HEX[value >> 4] || lo != HEX[value & 0xf]) {
+                    out = diverge(out, url, i).append('%').append(HEX[value >> 4]).append(HEX[value & 0xf]);
+                }
+                i += 2;
+            } else if (c < ' ' || c == 0x7f) {
+                return null;
+            } else if (c < 0x80 && " \"<>\\^`{|}".indexOf(c) < 0) {
+                if (out != null) {
+                    out.append(c);
+                }
+            } else {
+                out = diverge(out, url, i);
+                int codePoint = c;
+                if (Character.isHighSurrogate(c)) {
+                    if (i + 1 >= length || !Character.isLowSurrogate(url.charAt(i + 1))) {
+                        return null;
+                    }
+                    codePoint = Character.toCodePoint(c, url.charAt(++i));
+                } else if (Character.isLowSurrogate(c)) {
+                    return null;
+                }
+                appendUtf8Escaped(out, codePoint);
+            }
+        }
+
+        String canonical;
+        if (out != null) {
+            canonical = out.toString();
+        } else {
+            canonical = end == length ? url : url.substring(0, end);
+        }
+        return canonical.length() <= MAX_LENGTH ? canonical : null;
+    }
+
+    /**
+     * Starts the output copy at the first change: everything before {@code upTo} was unchanged.
+     */
+    private static StringBuilder diverge(StringBuilder out, String url, int upTo) {
+        return out != null ? out : new StringBuilder(url.length() + 16).append(url, 0, upTo);
+    }
+
+    private static StringBuilder appendLowercase(StringBuilder out, String url, int index, char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return diverge(out, url, index).append((char) (c + ('a' - 'A')));
+        }
+        if (out != null) {
+            out.append(c);
+        }
+        return out;
+    }
+
+    private static void appendUtf8Escaped(StringBuilder out, int codePoint) {
+        if (codePoint < 0x80) {
+            appendEscaped(out, codePoint);
+        } else if (codePoint < 0x800) {
+            appendEscaped(out, 0xc0 | codePoint >> 6);
+            appendEscaped(out, 0x80 | codePoint & 0x3f);
+        } else if (codePoint < 0x10000) {
+            appendEscaped(out, 0xe0 | codePoint >> 12);
+            appendEscaped(out, 0x80 | codePoint >> 6 & 0x3f);
+            appendEscaped(out, 0x80 | codePoint & 0x3f);
+        } else {
+            appendEscaped(out, 0xf0 | codePoint >> 18);
+            appendEscaped(out, 0x80 | codePoint >> 12 & 0x3f);
+            appendEscaped(out, 0x80 | codePoint >> 6 & 0x3f);
+            appendEscaped(out, 0x80 | codePoint & 0x3f);
+        }
+    }
+
+    private static void appendEscaped(StringBuilder out, int b) {
+        out.append('%').append(HEX[b >> 4]).append(HEX[b & 0xf]);
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isUnreserved(int c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+            || c == '-' || c == '.' || c == '_' || c == '~';
+    }
+}
@@ -0,0 +1,138 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds the existing key for a long URL so re-submitted URLs don't create new rows.
+ *
+ * Lookups go through the indexed url_hash column (a 64-bit hash, see {@link UrlHash}) and
+ * then compare the full URL to rule out hash collisions. A Bloom filter of every stored
+ * hash sits in front, so most genuinely new URLs skip the query altogether.
+ * Deduplication is best-effort: two concurrent requests for the same new URL can still
+ * each get their own key. Only generated keys (keys.length base62 characters) are handed
+ * out again; a custom alias belongs to whoever claimed it.
+ */
+public class UrlDeduplicator {
+
+    private static final String SELECT_HASHES_SQL = "SELECT url_hash FROM urls";
+
+    private final List<ConnectionPool> pools;
+    private final UrlSchema schema;
+    private final int keyLength;
+    private final BloomFilter filter;
+
+    private final LongAdder filterRejects = new LongAdder();
+    private final LongAdder duplicatesFound = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+
+    public UrlDeduplicator(ConnectionPool pool, long expectedUrls, double falsePositiveRate) {
+        this(List.of(pool), expectedUrls, falsePositiveRate);
+    }
+
+    /**
+     * @param pools Every shard; a URL may be stored on any of them, so a filter hit asks each in turn.
+     */
+    public UrlDeduplicator(List<ConnectionPool> pools, long expectedUrls, double falsePositiveRate) {
+        this(pools, UrlSchema.STANDARD, AppConfig.get().getInt("keys.length", 6), expectedUrls, falsePositiveRate);
+    }
+
+    /**
+     * @param schema Layout of the urls table (db.schema).
+     * @param keyLength Length of generated keys (keys.length); other keys are aliases and never reused.
+     */
+    UrlDeduplicator(List<ConnectionPool> pools, UrlSchema schema, int keyLength, long expectedUrls,
+                    double falsePositiveRate) {
+        this.pools = pools;
+        this.schema = schema;
+        this.keyLength = keyLength;
+        this.filter = new BloomFilter(expectedUrls, falsePositiveRate);
+    }
+
+    /**
+     * Builds a deduplicator from the dedupe.* settings and seeds its filter from the urls table.
+     */
+    static UrlDeduplicator fromConfig(AppConfig config, List<ConnectionPool> pools, UrlSchema schema) throws SQLException {
+        UrlDeduplicator dedupe = new UrlDeduplicator(pools, schema, config.getInt("keys.length", 6),
+            config.getLong("dedupe.expectedUrls", 1_000_000),
+            Double.parseDouble(config.getString("dedupe.falsePositiveRate", "0.01")));
+        dedupe.seed();
+        return dedupe;
+    }
+
+    /**
+     * Adds the hash of every stored URL to the filter. Only the 8-byte hash column is read.
+     */
+    public long seed() throws SQLException {
+        long count = 0;
+        for (ConnectionPool pool : pools) {
+            try (ConnectionPool.PooledConnection pc = pool.acquire();
+                 Statement stmt = pc.getConnection().createStatement()) {
+                stmt.setFetchSize(10_000);
+                try (ResultSet rs = stmt.executeQuery(SELECT_HASHES_SQL)) {
+                    while (rs.next()) {
+                        filter.put(rs.getLong(1));
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the key already used for this exact URL, or null if it has not been shortened before.
+     */
+    public String findExistingKey(String longUrl) throws SQLException {
+        long hash = UrlHash.of(longUrl);
+        if (!filter.mightContain(hash)) {
+            filterRejects.increment();
+            return null;
+        }
+        for (ConnectionPool pool : pools) {
+            try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+                PreparedStatement pstmt = pc.prepare(schema.findByHashSql);
+                pstmt.setLong(1, hash);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    // Usually one row; more only on a 64-bit hash collision
+                    while (rs.next()) {
+                        // An alias is its owner's, root or namespaced; it is never handed out for someone else's URL
+                        String shortKey = schema.readKey(rs, 1);
+                        if (KeyGenerator.isKey(shortKey, keyLength) && longUrl.equals(schema.readUrl(pc.getConnection(), rs, 2))) {
+                            duplicatesFound.increment();
+                            return shortKey;
+                        }
+                    }
+                }
+            }
+        }
+        falsePositives.increment();
+        return null;
+    }
+
+    /**
+     * Records a URL that has just been stored.
+     */
+    public void remember(String longUrl) {
+        filter.put(UrlHash.of(longUrl));
+    }
+
+    /** New URLs the filter answered without a query. */
+    public long getFilterRejectCount() { return filterRejects.sum(); }
+
+    /** Shorten requests answered with an existing key. */
+    public long getDuplicateCount() { return duplicatesFound.sum(); }
+
+    /** Queries made because of a filter false positive. */
+    public long getFalsePositiveCount() { return falsePositives.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("dedupe[duplicates=%d, filterRejects=%d, falsePositives=%d, filterBits=%d]",
+            getDuplicateCount(), getFilterRejectCount(), getFalsePositiveCount(), filter.bitSize());
+    }
+}
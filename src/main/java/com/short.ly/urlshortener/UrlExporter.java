@@ -0,0 +1,191 @@
+package com.yourcompany.urlshortener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming backup of the urls table (--export &lt;file&gt; / --restore &lt;file&gt;).
+ *
+ * Export reads each shard in key order, one page of export.pageSize rows at a time
+ * (WHERE key &gt; last key, never OFFSET), so memory stays flat however large the table is.
+ * Every page of a shard is read in one REPEATABLE READ transaction, which H2 serves from an
+ * MVCC snapshot: the file holds the shard exactly as it was when the export started, and
+ * saveUrl and the purge keep writing without waiting. (H2 keeps the old row versions the
+ * snapshot needs until the export finishes.) Shards are snapshotted one after another.
+ *
+ * The file is a small binary format, gzipped when its name ends in .gz:
+ * magic, version, then per link a 1 byte, key, URL, created_at and expires_at millis
+ * (NO_TIME for none), then a 0 byte and the link count, so a truncated file is detected.
+ * It is written to a temporary file and moved into place when complete.
+ *
+ * Restore upserts the links in JDBC batches through {@link LinkBatchWriter}, so it goes to
+ * whatever db.shards and db.schema are configured now, and can be run again after a failure.
+ */
+public final class UrlExporter {
+
+    private static final int MAGIC = 0x55524C45; // "URLE"
+    private static final byte VERSION = 1;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private UrlExporter() {
+    }
+
+    /**
+     * Writes every link of every shard to {@code file}.
+     * @return The number of links written.
+     */
+    public static long export(ShardRouter router, Path file, int pageSize) throws SQLException, IOException {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        long start = System.nanoTime();
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        long written = 0;
+        try {
+            try (DataOutputStream out = new DataOutputStream(open(temp, isGzip(file)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                for (int shard = 0; shard < router.shardCount(); shard++) {
+                    try (ConnectionPool.PooledConnection pc = router.pool(shard).acquire()) {
+                        written += exportShard(pc, out, pageSize);
+                    }
+                    System.out.printf("✅ Export status: shard %d of %d done (%d links so far).%n",
+                        shard + 1, router.shardCount(), written);
+                }
+                out.writeByte(0);
+                out.writeLong(written);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        System.out.printf("✅ Export status: %d links written to %s in %d ms.%n",
+            written, file, (System.nanoTime() - start) / 1_000_000);
+        return written;
+    }
+
+    private static OutputStream open(Path file, boolean gzip) throws IOException {
+        OutputStream out = Files.newOutputStream(file);
+        return gzip ? new GZIPOutputStream(out, 1 << 16) : new BufferedOutputStream(out, 1 << 16);
+    }
+
+    private static boolean isGzip(Path file) {
+        return file.getFileName().toString().endsWith(".gz");
+    }
+
+    private static long exportShard(ConnectionPool.PooledConnection pc, DataOutputStream out, int pageSize)
+            throws SQLException, IOException {
+        Connection conn = pc.getConnection();
+        UrlSchema schema = UrlSchema.of(conn);
+        String columns = "SELECT " + schema.selectColumns + ", created_at, expires_at FROM urls";
+        String order = " ORDER BY " + schema.keyColumn + " LIMIT ?";
+        PreparedStatement firstPage = pc.prepare(columns + order);
+        PreparedStatement nextPage = pc.prepare(columns + " WHERE " + schema.keyColumn + " > ?" + order);
+        int createdAt = schema.selectWidth + 1;
+
+        int isolation = conn.getTransactionIsolation();
+        conn.setAutoCommit(false);
+        conn.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        try {
+            long written = 0;
+            Object lastKey = null;
+            while (true) {
+                PreparedStatement page = lastKey == null ? firstPage : nextPage;
+                int index = 1;
+                if (lastKey != null) {
+                    page.setObject(index++, lastKey);
+                }
+                page.setInt(index, pageSize);
+                int rows = 0;
+                try (ResultSet rs = page.executeQuery()) {
+                    while (rs.next()) {
+                        lastKey = rs.getObject(1);
+                        out.writeByte(1);
+                        out.writeUTF(schema.readKey(rs, 1));
+                        out.writeUTF(schema.readUrl(conn, rs, 2));
+                        out.writeLong(millis(rs.getTimestamp(createdAt)));
+                        out.writeLong(millis(rs.getTimestamp(createdAt + 1)));
+                        rows++;
+                    }
+                }
+                written += rows;
+                if (rows < pageSize) {
+                    return written;
+                }
+            }
+        } finally {
+            conn.rollback();
+            conn.setTransactionIsolation(isolation);
+            conn.setAutoCommit(true);
+        }
+    }
+
+    private static long millis(Timestamp time) {
+        return time == null ? NO_TIME : time.getTime();
+    }
+
+    private static Timestamp timestamp(long millis) {
+        return millis == NO_TIME ? null : new Timestamp(millis);
+    }
+
+    /**
+     * Upserts every link in {@code file} (written by {@link #export}) into the given shards.
+     * @return The number of links restored.
+     * @throws IOException if the file is not an export or is incomplete; links read before
+     *         the damage are kept.
+     */
+    public static long restore(Path file, ShardRouter router, UrlSchema schema, int batchSize)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        long restored = 0;
+        try (DataInputStream in = new DataInputStream(openForRead(file));
+             LinkBatchWriter out = new LinkBatchWriter(router, schema, batchSize)) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException(file + " is not a link export");
+            }
+            try {
+                while (in.readByte() == 1) {
+                    out.add(in.readUTF(), in.readUTF(), timestamp(in.readLong()), timestamp(in.readLong()));
+                    restored++;
+                }
+                long expected = in.readLong();
+                out.flush();
+                if (expected != restored) {
+                    throw new IOException("Export holds " + expected + " links but " + restored + " were read");
+                }
+            } catch (EOFException e) {
+                out.flush();
+                throw new IOException(file + " is truncated after " + restored + " links", e);
+            }
+        }
+        System.out.printf("✅ Restore status: %d links restored from %s in %d ms.%n",
+            restored, file, (System.nanoTime() - start) / 1_000_000);
+        return restored;
+    }
+
+    private static InputStream openForRead(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+        in.mark(2);
+        boolean gzip = in.read() == 0x1f && in.read() == 0x8b;
+        in.reset();
+        return gzip ? new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16) : in;
+    }
+}
@@ -0,0 +1,34 @@
+package com.yourcompany.urlshortener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 64-bit hash of a long URL: the first 8 bytes of SHA-256 over its UTF-8 bytes.
+ * This is exactly what the generated urls.url_hash column stores
+ * (CAST(SUBSTRING(HASH('SHA-256', long_url) FROM 1 FOR 8) AS BIGINT)),
+ * so values computed here can be used directly in indexed lookups.
+ */
+public final class UrlHash {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required by every Java platform", e);
+        }
+    });
+
+    private UrlHash() {
+    }
+
+    public static long of(String longUrl) {
+        byte[] digest = SHA_256.get().digest(longUrl.getBytes(StandardCharsets.UTF_8));
+        long h = 0;
+        for (int i = 0; i < 8; i++) {
+            h = (h << 8) | (digest[i] & 0xff);
+        }
+        return h;
+    }
+}
@@ -0,0 +1,323 @@
+package com.yourcompany.urlshortener;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Layout of the urls table (db.schema setting).
+ *
+ *   standard - short_key and long_url as VARCHARs, with a surrogate id primary key
+ *   compact  - the key packed into a BIGINT primary key (KeyGenerator.pack); the URL split into
+ *              its scheme://host/ prefix, stored once per database in url_prefixes and referenced
+ *              by id, and the rest as bytes, deflated when that makes it smaller
+ *              (db.compact.compressMinBytes). url_hash is filled in from Java instead of generated.
+ *
+ * Every query that reads or writes keys and URLs uses the SQL and the bind/read methods here,
+ * so findLongUrl callers never see which layout is in use. The compact layout only holds
+ * base62 keys of up to 10 characters; other keys are rejected on save.
+ */
+enum UrlSchema {
+
+    STANDARD("short_key", "short_key, long_url", "short_key, long_url", "id"),
+    COMPACT("key_id", "key_id, prefix_id, url_tail", "key_id, prefix_id, url_tail, url_hash", "created_at");
+
+    private static final String CREATE_COMPACT_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS urls (" +
+        "    key_id BIGINT PRIMARY KEY," +
+        "    prefix_id BIGINT NOT NULL," +
+        "    url_tail VARBINARY(8193) NOT NULL," +
+        "    url_hash BIGINT NOT NULL," +
+        "    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP," +
+        "    expires_at TIMESTAMP" +
+        ")";
+
+    private static final String CREATE_PREFIX_TABLE_SQL =
+        "CREATE TABLE IF NOT EXISTS url_prefixes (id BIGINT PRIMARY KEY, prefix VARCHAR(2048) NOT NULL)";
+
+    // Insert-only: an existing row for the id is never overwritten
+    private static final String INSERT_PREFIX_SQL =
+        "MERGE INTO url_prefixes t USING (VALUES (CAST(? AS BIGINT), CAST(? AS VARCHAR(2048)))) s (id, prefix) " +
+        "ON t.id = s.id WHEN NOT MATCHED THEN INSERT VALUES (s.id, s.prefix)";
+
+    private static final String SELECT_PREFIX_SQL = "SELECT prefix FROM url_prefixes WHERE id = ?";
+
+    private static final String HAS_KEY_ID_SQL =
+        "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS " +
+        "WHERE TABLE_SCHEMA = CURRENT_SCHEMA AND TABLE_NAME = 'URLS' AND COLUMN_NAME = 'KEY_ID'";
+
+    private static final byte RAW = 0;
+    private static final byte DEFLATED = 1;
+
+    // Prefix ids are hashes of the prefix, so the same id means the same prefix on every shard
+    private static final int MAX_CACHED_PREFIXES = 100_000;
+    private static final Map<Long, String> PREFIXES = new ConcurrentHashMap<>();
+    private static final Map<ConnectionPool, Set<Long>> STORED_PREFIXES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final ThreadLocal<Deflater> DEFLATER =
+        ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_COMPRESSION, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    /** Column the key is looked up by. */
+    final String keyColumn;
+    /** The key, then the URL: read back with {@link #readKey} at 1 and {@link #readUrl} at 2. */
+    final String selectColumns;
+    /** Number of columns in {@link #selectColumns}. */
+    final int selectWidth;
+    /** Columns set by {@link #bindLink}. */
+    final String insertColumns;
+
+    /** Inserts a link; parameters are bindLink's, then expires_at. */
+    final String insertSql;
+    /** Finds a link by key; parameter: setKey. Columns: selectColumns, expires_at. */
+    final String selectUrlSql;
+    /** Newest live links first; parameter: limit. Columns: selectColumns, expires_at. */
+    final String selectRecentSql;
+    /** Permanent links with the given url_hash. Columns: selectColumns. */
+    final String findByHashSql;
+
+    UrlSchema(String keyColumn, String selectColumns, String insertColumns, String newestFirst) {
+        this.keyColumn = keyColumn;
+        this.selectColumns = selectColumns;
+        this.selectWidth = selectColumns.split(",").length;
+        this.insertColumns = insertColumns;
+        this.insertSql = "INSERT INTO urls (" + insertColumns + ", expires_at) VALUES ("
+            + "?, ".repeat(insertColumns.split(",").length) + "?)";
+        this.selectUrlSql = "SELECT " + selectColumns + ", expires_at FROM urls WHERE " + keyColumn + " = ?";
+        this.selectRecentSql = "SELECT " + selectColumns + ", expires_at FROM urls " +
+            "WHERE expires_at IS NULL OR expires_at > CURRENT_TIMESTAMP ORDER BY " + newestFirst + " DESC LIMIT ?";
+        this.findByHashSql = "SELECT " + selectColumns + " FROM urls WHERE url_hash = ? AND expires_at IS NULL";
+    }
+
+    /**
+     * The layout selected by db.schema.
+     */
+    static UrlSchema fromConfig(AppConfig config) {
+        String schema = config.getString("db.schema", "standard");
+        switch (schema) {
+            case "standard":
+                return STANDARD;
+            case "compact":
+                return COMPACT;
+            default:
+                throw new IllegalArgumentException("Unknown db.schema: " + schema + " (expected standard or compact)");
+        }
+    }
+
+    /**
+     * The layout of the existing urls table in this database (standard if there is none yet).
+     */
+    static UrlSchema of(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(HAS_KEY_ID_SQL)) {
+            rs.next();
+            return rs.getLong(1) > 0 ? COMPACT : STANDARD;
+        }
+    }
+
+    /**
+     * Creates the compact tables and indexes if needed. (The standard ones are DatabaseManager's.)
+     */
+    static void createCompact(Statement stmt) throws SQLException {
+        stmt.execute(CREATE_COMPACT_TABLE_SQL);
+        stmt.execute(CREATE_PREFIX_TABLE_SQL);
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_urls_url_hash ON urls (url_hash)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_urls_expires_at ON urls (expires_at)");
+    }
+
+    /**
+     * Sets the key parameter of {@link #selectUrlSql}.
+     * @return false if the key cannot exist in this layout, so there is nothing to look up.
+     */
+    boolean setKey(PreparedStatement pstmt, int index, String shortKey) throws SQLException {
+        if (this == STANDARD) {
+            pstmt.setString(index, shortKey);
+            return true;
+        }
+        long packed = KeyGenerator.pack(shortKey);
+        if (packed < 0) {
+            return false;
+        }
+        pstmt.setLong(index, packed);
+        return true;
+    }
+
+    /**
+     * Sets the {@link #insertColumns} parameters starting at {@code index}.
+     * @param pool The pool of the database being written; new URL prefixes are stored there first.
+     * @return The index of the next parameter.
+     */
+    int bindLink(ConnectionPool pool, PreparedStatement pstmt, int index, String shortKey, String longUrl)
+            throws SQLException {
+        if (this == STANDARD) {
+            pstmt.setString(index, shortKey);
+            pstmt.setString(index + 1, longUrl);
+            return index + 2;
+        }
+        checkKey(shortKey);
+        long packed = KeyGenerator.pack(shortKey);
+        int split = prefixLength(longUrl);
+        pstmt.setLong(index, packed);
+        pstmt.setLong(index + 1, storePrefix(pool, longUrl.substring(0, split)));
+        pstmt.setBytes(index + 2, encodeTail(longUrl.substring(split)));
+        pstmt.setLong(index + 3, UrlHash.of(longUrl));
+        return index + 4;
+    }
+
+    /**
+     * @throws SQLException if the key cannot be stored in this layout.
+     */
+    void checkKey(String shortKey) throws SQLException {
+        if (this == COMPACT && KeyGenerator.pack(shortKey) < 0) {
+            throw new SQLException("Key '" + shortKey + "' does not fit the compact schema (base62, at most "
+                + KeyGenerator.MAX_ENCODED_LENGTH + " characters)");
+        }
+    }
+
+    String readKey(ResultSet rs, int index) throws SQLException {
+        return this == STANDARD ? rs.getString(index) : KeyGenerator.unpack(rs.getLong(index));
+    }
+
+    /**
+     * Reads the URL whose columns start at {@code index}.
+     * @param conn Connection of the result set, used to load prefixes that aren't cached yet.
+     */
+    String readUrl(Connection conn, ResultSet rs, int index) throws SQLException {
+        if (this == STANDARD) {
+            return rs.getString(index);
+        }
+        return loadPrefix(conn, rs.getLong(index)) + decodeTail(rs.getBytes(index + 1));
+    }
+
+    /**
+     * Forgets cached prefixes (when the pools are closed and the databases may change).
+     */
+    static void clearCaches() {
+        PREFIXES.clear();
+        STORED_PREFIXES.clear();
+    }
+
+    /**
+     * Length of the "scheme://host/" part of a URL, or 0 if it has no scheme.
+     */
+    static int prefixLength(String url) {
+        int scheme = url.indexOf("://");
+        if (scheme < 0) {
+            return 0;
+        }
+        int slash = url.indexOf('/', scheme + 3);
+        return slash < 0 ? url.length() : slash + 1;
+    }
+
+    /**
+     * Makes sure the prefix is in the database's url_prefixes table and returns its id.
+     * The row is written on a connection of its own, so it is committed even if the link's
+     * own transaction is rolled back (and a pool needs room for that second connection).
+     */
+    private static long storePrefix(ConnectionPool pool, String prefix) throws SQLException {
+        long id = UrlHash.of(prefix);
+        Set<Long> stored = STORED_PREFIXES.computeIfAbsent(pool, p -> ConcurrentHashMap.newKeySet());
+        if (stored.contains(id)) {
+            return id;
+        }
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            PreparedStatement pstmt = pc.prepare(INSERT_PREFIX_SQL);
+            pstmt.setLong(1, id);
+            pstmt.setString(2, prefix);
+            pstmt.executeUpdate();
+        }
+        if (stored.size() >= MAX_CACHED_PREFIXES) {
+            stored.clear();
+        }
+        stored.add(id);
+        cachePrefix(id, prefix);
+        return id;
+    }
+
+    private static String loadPrefix(Connection conn, long id) throws SQLException {
+        String prefix = PREFIXES.get(id);
+        if (prefix != null) {
+            return prefix;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(SELECT_PREFIX_SQL)) {
+            pstmt.setLong(1, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("URL prefix " + id + " is missing from url_prefixes");
+                }
+                prefix = rs.getString(1);
+            }
+        }
+        cachePrefix(id, prefix);
+        return prefix;
+    }
+
+    private static void cachePrefix(long id, String prefix) {
+        if (PREFIXES.size() < MAX_CACHED_PREFIXES) {
+            PREFIXES.put(id, prefix);
+        }
+    }
+
+    /**
+     * One header byte (RAW or DEFLATED), then the UTF-8 bytes, deflated if at least
+     * db.compact.compressMinBytes long and smaller that way (0 turns compression off).
+     */
+    private static byte[] encodeTail(String tail) {
+        byte[] raw = tail.getBytes(StandardCharsets.UTF_8);
+        int minBytes = AppConfig.get().getInt("db.compact.compressMinBytes", 128);
+        if (minBytes > 0 && raw.length >= minBytes) {
+            Deflater deflater = DEFLATER.get();
+            deflater.reset();
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] out = new byte[raw.length];
+            int n = deflater.deflate(out, 1, out.length - 1);
+            if (deflater.finished()) {
+                out[0] = DEFLATED;
+                return Arrays.copyOf(out, n + 1);
+            }
+        }
+        byte[] out = new byte[raw.length + 1];
+        out[0] = RAW;
+        System.arraycopy(raw, 0, out, 1, raw.length);
+        return out;
+    }
+
+    private static String decodeTail(byte[] stored) throws SQLException {
+        if (stored[0] == RAW) {
+            return new String(stored, 1, stored.length - 1, StandardCharsets.UTF_8);
+        }
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setInput(stored, 1, stored.length - 1);
+        byte[] out = new byte[Math.max(256, stored.length * 4)];
+        int length = 0;
+        try {
+            while (!inflater.finished()) {
+                if (length == out.length) {
+                    out = Arrays.copyOf(out, out.length * 2);
+                }
+                int n = inflater.inflate(out, length, out.length - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new SQLException("Compressed URL is truncated");
+                }
+                length += n;
+            }
+        } catch (DataFormatException e) {
+            throw new SQLException("Compressed URL is corrupt", e);
+        }
+        return new String(out, 0, length, StandardCharsets.UTF_8);
+    }
+}
@@ -1,21 +1,229 @@
 package com.yourcompany.urlshortener;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 /**
  * PR 8: Main application class. Adds basic URL validation logic.
+ *
+ * Run with --server to serve HTTP redirects instead of the interactive console,
+ * or with --import &lt;urls.txt&gt; &lt;keys.tsv&gt; to bulk-shorten a file of URLs (one per line),
+ * or with --build-index to write the memory-mapped redirect index (index.path) and exit,
+ * or with --reshard &lt;N&gt; to copy every link from the db.shards layout into N shards and exit,
+ * or with --export &lt;file&gt; / --restore &lt;file&gt; to back up the urls table to a file and load it back,
+ * or with --train to run the startup path and a server once and exit (used to build the AppCDS archive).
+ * Links are kept in the UrlStore selected by store.engine; --build-index, --reshard, --export and
+ * --restore only apply to the H2 store.
  */
 public class UrlShortenerApp {
 
     private final Scanner scanner = new Scanner(System.in);
-    private final int KEY_LENGTH = 6;
+
+    private final UrlStore store;
     
     private boolean isDatabaseReady = false;
 
     public static void main(String[] args) {
-        UrlShortenerApp app = new UrlShortenerApp();
+        if (args.length > 0 && "--server".equals(args[0])) {
+            runServer();
+            return;
+        }
+        if (args.length > 0 && "--import".equals(args[0])) {
+            if (args.length != 3) {
+                System.err.println("Usage: --import <input file with one URL per line> <output file for key/URL pairs>");
+                return;
+            }
+            runImport(Paths.get(args[1]), Paths.get(args[2]));
+            return;
+        }
+        if (args.length > 0 && "--build-index".equals(args[0])) {
+            DatabaseManager.initializeDatabase();
+            DatabaseManager.refreshIndex();
+            DatabaseManager.shutdown();
+            return;
+        }
+        if (args.length > 0 && "--reshard".equals(args[0])) {
+            int toShards = 0;
+            if (args.length == 2) {
+                try {
+                    toShards = Integer.parseInt(args[1]);
+                } catch (NumberFormatException e) {
+                    // Reported below together with counts that are out of range
+                }
+            }
+            if (toShards < 1) {
+                System.err.println("Usage: --reshard <new shard count, at least 1>");
+                return;
+            }
+            runReshard(toShards);
+            return;
+        }
+        if (args.length > 0 && "--train".equals(args[0])) {
+            runTraining();
+            return;
+        }
+        if (args.length > 0 && ("--export".equals(args[0]) || "--restore".equals(args[0]))) {
+            if (args.length != 2) {
+                System.err.println("Usage: " + args[0] + " <file, gzipped if it ends in .gz>");
+                return;
+            }
+            runBackup("--export".equals(args[0]), Paths.get(args[1]));
+            return;
+        }
+        UrlShortenerApp app = new UrlShortenerApp(UrlStore.fromConfig(AppConfig.get()));
         app.start();
     }
+
+    public UrlShortenerApp(UrlStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Bulk import mode: streams the input file through UrlStore.importUrls and
+     * writes "key&lt;TAB&gt;url" lines to the output file. URLs are canonicalized; invalid ones are
+     * left out and counted as rejected, apart from blank lines, which are counted as skipped.
+     */
+    private static void runImport(Path input, Path output) {
+        System.out.println("--- URL Shortener Bulk Import ---");
+        UrlStore store = UrlStore.fromConfig(AppConfig.get());
+        if (!store.initialize()) {
+            System.err.println("CRITICAL: Database connection failed. Cannot import.");
+            return;
+        }
+
+        int batchSize = AppConfig.get().getInt("bulk.batchSize", 1000);
+        try (Stream<String> lines = Files.lines(input, StandardCharsets.UTF_8);
+             Writer out = Files.newBufferedWriter(output, StandardCharsets.UTF_8)) {
+
+            long[] rejected = new long[1];
+            BulkImportResult result = store.importUrls(
+                lines.map(line -> {
+                    String trimmed = line.trim();
+                    if (trimmed.isEmpty()) {
+                        return trimmed;
+                    }
+                    String canonicalUrl = UrlCanonicalizer.canonicalize(trimmed);
+                    if (canonicalUrl == null) {
+                        rejected[0]++;
+                    }
+                    return canonicalUrl;
+                }).filter(Objects::nonNull), out, batchSize).withRejected(rejected[0]);
+            System.out.println("✅ Import finished: " + result);
+            System.out.println("   Key/URL pairs written to " + output);
+        } catch (IOException e) {
+            System.err.println("❌ Import failed: " + e.getMessage());
+        } finally {
+            store.close();
+        }
+    }
+
+    /**
+     * Reshard mode: copies the current db.shards layout into the given number of shards.
+     * The old databases are left as they are; set db.shards to the new count afterwards.
+     */
+    private static void runReshard(int toShards) {
+        System.out.println("--- URL Shortener Reshard ---");
+        AppConfig config = AppConfig.get();
+        try {
+            ShardRebalancer.rebalance(config, config.getInt("db.shards", 1), toShards,
+                config.getInt("bulk.batchSize", 1000));
+            System.out.println("   Set db.shards=" + toShards + " to start using the new layout.");
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("❌ Reshard failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Export / restore mode: streams the urls table to a file, or upserts a file's links into it.
+     */
+    private static void runBackup(boolean export, Path file) {
+        System.out.println("--- URL Shortener " + (export ? "Export" : "Restore") + " ---");
+        AppConfig config = AppConfig.get();
+        DatabaseManager.initializeDatabase();
+        try {
+            if (export) {
+                UrlExporter.export(DatabaseManager.getShards(), file, config.getInt("export.pageSize", 1000));
+            } else {
+                UrlExporter.restore(file, DatabaseManager.getShards(), DatabaseManager.getSchema(),
+                    config.getInt("bulk.batchSize", 1000));
+            }
+        } catch (SQLException | IOException e) {
+            System.err.println("❌ " + (export ? "Export" : "Restore") + " failed: " + e.getMessage());
+        } finally {
+            DatabaseManager.shutdown();
+        }
+    }
+
+    /**
+     * Training run for the AppCDS archive (see the appcds Maven profile): goes through the
+     * startup path, starts the server on a free port, sends it one request and exits, so the
+     * JVM has loaded the classes a real start needs.
+     */
+    private static void runTraining() {
+        System.out.println("--- URL Shortener Training Run ---");
+        UrlStore store = UrlStore.fromConfig(AppConfig.get());
+        if (!store.initialize()) {
+            System.err.println("CRITICAL: Database connection failed. Cannot train.");
+            return;
+        }
+        WarmStart.run(store, AppConfig.get());
+        RedirectServer server = new RedirectServer(store, 0, 16, 302, 4096, 0, "/metrics");
+        try {
+            server.start();
+            HttpURLConnection request = (HttpURLConnection)
+                new URL("http://localhost:" + server.getPort() + "/" + KeyGenerator.generateKey(6)).openConnection();
+            request.setInstanceFollowRedirects(false);
+            System.out.println("✅ Training status: test request answered with " + request.getResponseCode() + ".");
+            request.disconnect();
+        } catch (IOException e) {
+            System.err.println("❌ Training request failed: " + e.getMessage());
+        } finally {
+            server.stop();
+            store.close();
+        }
+    }
+
+    /**
+     * Server mode: initializes the database once, restores and warms up the lookup path,
+     * then serves redirects until the JVM is stopped.
+     */
+    private static void runServer() {
+        System.out.println("--- URL Shortener Server v1.0 ---");
+        UrlStore store = UrlStore.fromConfig(AppConfig.get());
+        if (!store.initialize()) {
+            System.err.println("CRITICAL: Database connection failed. Cannot start server.");
+            return;
+        }
+        WarmStart.run(store, AppConfig.get());
+
+        RedirectServer server = RedirectServer.fromConfig(AppConfig.get(), store);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            store.close();
+        }, "shutdown"));
+
+        try {
+            server.start();
+            server.awaitStop();
+        } catch (IOException e) {
+            System.err.println("CRITICAL: Could not start server: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
     
     /**
      * Initializes the database connection and starts the main application loop.
@@ -24,13 +232,14 @@ public class UrlShortenerApp {
         System.out.println("--- URL Shortener Console App v1.0 ---");
         
         // 1. Initialize and confirm DB connection and schema
-        if (DatabaseManager.getConnection() != null) {
-            DatabaseManager.initializeDatabase(); 
+        if (store.initialize()) {
             isDatabaseReady = true;
         } else {
             System.err.println("CRITICAL: Database connection failed. Cannot start application.");
             return;
         }
+        // Restore the hot-key cache and warm up before the first prompt
+        WarmStart.run(store, AppConfig.get());
         
         // 2. Start the interactive loop
         mainLoop();
@@ -49,6 +258,7 @@ public class UrlShortenerApp {
             System.out.println("Select an option:");
             System.out.println(" [1] Shorten a long URL");
             System.out.println(" [2] Lookup a short key");
+            System.out.println(" [3] Show most-clicked links");
             System.out.println(" [0] Exit");
             System.out.print(" >> ");
 
@@ -61,23 +271,19 @@ public class UrlShortenerApp {
                 case "2":
                     lookupUrl();
                     break;
+                case "3":
+                    showTopLinks();
+                    break;
                 case "0":
                     System.out.println("\nGoodbye! Thanks for using the URL Shortener.");
+                    store.close();
                     return; 
                 default:
-                    System.out.println("❗ Invalid choice. Please enter 1, 2, or 0.");
+                    System.out.println("❗ Invalid choice. Please enter 1, 2, 3, or 0.");
             }
         }
     }
     
-    /**
-     * Checks if the URL has a valid protocol prefix.
-     * This is a simple validation (PR 8).
-     */
-    private static boolean isValidUrl(String url) {
-        return url != null && (url.startsWith("http://") || url.startsWith("https://"));
-    }
-
     /**
      * Prompts for a long URL, validates it, generates a key, and saves it.
      */
@@ -90,27 +296,91 @@ public class UrlShortenerApp {
             return;
         }
         
-        // PR 8: URL Validation Check
-        if (!isValidUrl(longUrl)) {
-            System.out.println("❌ Invalid URL format. URL must start with http:// or https://");
+        // PR 8: URL Validation Check (now also canonicalizes, see UrlCanonicalizer)
+        String canonicalUrl = UrlCanonicalizer.canonicalize(longUrl);
+        if (canonicalUrl == null) {
+            System.out.println("❌ Invalid URL. It must be an http:// or https:// address of at most "
+                + UrlCanonicalizer.MAX_LENGTH + " characters.");
             return;
         }
+        longUrl = canonicalUrl;
         
-        String shortKey = KeyGenerator.generateKey(KEY_LENGTH);
+        System.out.print("Expire after how many minutes? (blank = never): ");
+        String ttlInput = scanner.nextLine().trim();
+        Instant expiresAt = null;
+        if (!ttlInput.isEmpty()) {
+            try {
+                long minutes = Long.parseLong(ttlInput);
+                if (minutes <= 0 || minutes > UrlStore.MAX_TTL_SECONDS / 60) {
+                    throw new NumberFormatException();
+                }
+                expiresAt = Instant.now().plusSeconds(minutes * 60);
+            } catch (NumberFormatException e) {
+                System.out.println("❗ Expiry must be a positive number of minutes, at most "
+                    + UrlStore.MAX_TTL_SECONDS / 60 + ".");
+                return;
+            }
+        }
+        
+        System.out.print("Custom alias? (alias or namespace/alias, blank = generated key): ");
+        String aliasInput = scanner.nextLine().trim();
+        if (!aliasInput.isEmpty()) {
+            claimAlias(aliasInput, longUrl, expiresAt);
+            return;
+        }
+
+        // Key length and strategy come from the keys.* settings in application.properties
+        String shortKey = store.shorten(longUrl, expiresAt);
         
-        if (DatabaseManager.saveUrl(shortKey, longUrl)) {
+        if (shortKey != null) {
             System.out.println("\n✅ Success! Your shortened URL key is:");
             System.out.println("   --> Key: " + shortKey);
+            if (expiresAt != null) {
+                System.out.println("   --> Expires: " + expiresAt);
+            }
         } else {
             System.out.println("❌ Failed to shorten URL. Database error occurred.");
         }
     }
+
+    private void claimAlias(String aliasInput, String longUrl, Instant expiresAt) {
+        int slash = aliasInput.indexOf('/');
+        String namespace = slash < 0 ? null : aliasInput.substring(0, slash);
+        String alias = slash < 0 ? aliasInput : aliasInput.substring(slash + 1);
+        switch (store.claim(namespace, alias, longUrl, expiresAt)) {
+            case CLAIMED:
+                System.out.println("\n✅ Success! Your alias is claimed:");
+                System.out.println("   --> Key: " + aliasInput);
+                if (expiresAt != null) {
+                    System.out.println("   --> Expires: " + expiresAt);
+                }
+                break;
+            case TAKEN:
+                System.out.println("❗ Alias '" + aliasInput + "' is already taken.");
+                break;
+            case INVALID:
+                System.out.println("❗ Invalid alias. Use up to " + Aliases.MAX_ALIAS_LENGTH
+                    + " letters, digits, '-' or '_', optionally after a namespace of up to "
+                    + Aliases.MAX_NAMESPACE_LENGTH + " lowercase letters, digits or '-' and a '/'.");
+                break;
+            case RESERVED:
+                System.out.println("❗ Alias '" + aliasInput + "' looks like a generated key. Make it longer or shorter than "
+                    + AppConfig.get().getInt("keys.length", 6) + " characters, add '-' or '_', or use a namespace.");
+                break;
+            case UNSUPPORTED:
+                System.out.println("❗ Alias '" + aliasInput + "' can't be stored with db.schema=compact. Use up to "
+                    + KeyGenerator.MAX_ENCODED_LENGTH + " letters or digits, without a namespace.");
+                break;
+            default:
+                System.out.println("❌ Failed to shorten URL. Database error occurred.");
+        }
+    }
     
     /**
      * Prompts for a short key and retrieves the original URL.
      */
     private void lookupUrl() {
-        System.print("\nEnter the short key to lookup: ");
+        System.out.print("\nEnter the short key to lookup: ");
         String shortKey = scanner.nextLine().trim();
 
         if (shortKey.isEmpty()) {
@@ -118,7 +388,7 @@ public class UrlShortenerApp {
             return;
         }
         
-        String longUrl = DatabaseManager.findLongUrl(shortKey);
+        String longUrl = store.find(shortKey);
         
         if (longUrl != null) {
             System.out.println("\n✅ Key found! Original URL:");
@@ -127,4 +397,28 @@ public class UrlShortenerApp {
             System.out.println("\n❗ Key not found in the database. Try shortening a URL first!");
         }
     }
+
+    /**
+     * Prints the most-clicked keys recorded by click analytics (analytics.enabled).
+     */
+    private void showTopLinks() {
+        ClickTracker tracker = store.getClickTracker();
+        if (tracker == null) {
+            System.out.println("❗ Click analytics are disabled. Set analytics.enabled=true (H2 store only) to count clicks.");
+            return;
+        }
+        try {
+            List<Map.Entry<String, Long>> top = tracker.topKeys(10);
+            if (top.isEmpty()) {
+                System.out.println("\n❗ No clicks recorded yet.");
+                return;
+            }
+            System.out.println("\n✅ Most-clicked links:");
+            for (Map.Entry<String, Long> entry : top) {
+                System.out.printf("   %-10s %8d clicks%n", entry.getKey(), entry.getValue());
+            }
+        } catch (SQLException e) {
+            System.out.println("❌ Could not read click statistics: " + e.getMessage());
+        }
+    }
 }
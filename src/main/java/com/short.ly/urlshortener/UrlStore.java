@@ -0,0 +1,156 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Where links are kept. UrlShortenerApp and RedirectServer only talk to this interface;
+ * store.engine picks the implementation:
+ *   jdbc   - {@link JdbcUrlStore}, the H2 database behind DatabaseManager (default)
+ *   memory - {@link InMemoryUrlStore}, a lock-free in-process table with optional file persistence
+ * Implementations must be safe to call from many threads at once.
+ */
+public interface UrlStore extends AutoCloseable {
+
+    /** Longest time-to-live a link can be given, about 100 years; callers reject longer ones. */
+    long MAX_TTL_SECONDS = 100L * 365 * 24 * 60 * 60;
+
+    /**
+     * Prepares the store (schema, persisted data).
+     * @return false if the store cannot be used.
+     */
+    boolean initialize();
+
+    /**
+     * Saves a link under a caller-chosen key.
+     * @param expiresAt When the link expires, or null for never.
+     * @return true if saved, false if the key is taken or the save failed.
+     */
+    boolean save(String shortKey, String longUrl, Instant expiresAt);
+
+    default boolean save(String shortKey, String longUrl) {
+        return save(shortKey, longUrl, null);
+    }
+
+    /**
+     * Shortens a URL under a newly allocated key.
+     * @return The new key, or null if the URL could not be saved.
+     */
+    String shorten(String longUrl, Instant expiresAt);
+
+    default String shorten(String longUrl) {
+        return shorten(longUrl, null);
+    }
+
+    /**
+     * Claims a user-chosen alias, optionally in a tenant namespace; see {@link Aliases}.
+     * Implementations must claim atomically: of concurrent claims for one alias, exactly one wins.
+     * @param namespace The tenant namespace, or null for the root.
+     * @param expiresAt When the link expires, or null for never.
+     */
+    default Aliases.Result claim(String namespace, String alias, String longUrl, Instant expiresAt) {
+        String shortKey = Aliases.qualify(namespace, alias);
+        if (shortKey == null) {
+            return Aliases.Result.INVALID;
+        }
+        return save(shortKey, longUrl, expiresAt) ? Aliases.Result.CLAIMED : Aliases.Result.TAKEN;
+    }
+
+    /**
+     * @return The long URL, or null if the key is unknown or expired.
+     */
+    String find(String shortKey);
+
+    /**
+     * Saves several caller-keyed links.
+     * @return The number of links saved; taken keys are skipped.
+     */
+    default int saveAll(Map<String, String> links) {
+        int saved = 0;
+        for (Map.Entry<String, String> link : links.entrySet()) {
+            if (save(link.getKey(), link.getValue())) {
+                saved++;
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Looks up several keys. Keys that don't resolve are left out of the result.
+     */
+    default Map<String, String> findAll(Collection<String> shortKeys) {
+        Map<String, String> found = new LinkedHashMap<>();
+        for (String shortKey : shortKeys) {
+            String longUrl = find(shortKey);
+            if (longUrl != null) {
+                found.put(shortKey, longUrl);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Shortens a stream of URLs, writing "key&lt;TAB&gt;url" lines to {@code out}. Blank lines are skipped.
+     * @param batchSize Rows per write, for stores that batch.
+     */
+    default BulkImportResult importUrls(Stream<String> longUrls, Writer out, int batchSize) throws IOException {
+        long imported = 0;
+        long skipped = 0;
+        long failed = 0;
+        long start = System.nanoTime();
+        Iterator<String> it = longUrls.iterator();
+        while (it.hasNext()) {
+            String url = it.next();
+            if (url == null || (url = url.trim()).isEmpty()) {
+                skipped++;
+                continue;
+            }
+            String shortKey = shorten(url);
+            if (shortKey == null) {
+                failed++;
+                continue;
+            }
+            out.write(shortKey);
+            out.write('\t');
+            out.write(url);
+            out.write('\n');
+            imported++;
+        }
+        out.flush();
+        return new BulkImportResult(imported, skipped, failed, 0, System.nanoTime() - start);
+    }
+
+    /**
+     * Click analytics for this store, or null if it doesn't count clicks.
+     */
+    default ClickTracker getClickTracker() {
+        return null;
+    }
+
+    /**
+     * Flushes anything pending and releases the store's resources.
+     */
+    @Override
+    void close();
+
+    /**
+     * Builds the store selected by store.engine.
+     */
+    static UrlStore fromConfig(AppConfig config) {
+        String engine = config.getString("store.engine", "jdbc");
+        switch (engine) {
+            case "jdbc":
+                return new JdbcUrlStore();
+            case "memory":
+                return InMemoryUrlStore.fromConfig(config);
+            default:
+                throw new IllegalArgumentException("Unknown store.engine: " + engine + " (expected jdbc or memory)");
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.yourcompany.urlshortener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Startup path of the console and --server, run once after the store is initialized and
+ * before any traffic is accepted (startup.* settings):
+ *
+ *   1. The lookup cache is refilled from the snapshot the previous run saved on shutdown
+ *      (startup.snapshot.path): its hottest entries, with their expiry. That is one sequential
+ *      file read instead of thousands of database lookups. Links never change once saved, so a
+ *      snapshot entry can only be stale if its link was deleted while the app was down.
+ *   2. The lookup and shorten code paths (database lookup, canonicalization, key generation)
+ *      are run in rounds of startup.warmup.roundSize lookups until the round's p99 stops
+ *      improving by more than 10%, so the JIT has compiled them before the first real request.
+ *      Lookups bypass the cache, metrics and click counting.
+ *   3. Time to the first resolved lookup and time to steady-state p99 are printed, measured
+ *      from JVM start; RedirectServer adds the time to the first real redirect.
+ *
+ * Class loading itself is sped up with an AppCDS archive, see the appcds Maven profile and --train.
+ */
+final class WarmStart {
+
+    private static final int MAGIC = 0x55524C43; // "URLC"
+    private static final byte VERSION = 1;
+
+    private static final AtomicBoolean FIRST_REDIRECT_SEEN = new AtomicBoolean();
+
+    private WarmStart() {
+    }
+
+    /**
+     * What the warm-up did; the times are millis since JVM start, -1 if not reached.
+     */
+    static final class Report {
+        final int restored;
+        final int rounds;
+        final long p99Nanos;
+        final boolean steady;
+        final long firstLookupMillis;
+        final long steadyMillis;
+
+        Report(int restored, int rounds, long p99Nanos, boolean steady, long firstLookupMillis, long steadyMillis) {
+            this.restored = restored;
+            this.rounds = rounds;
+            this.p99Nanos = p99Nanos;
+            this.steady = steady;
+            this.firstLookupMillis = firstLookupMillis;
+            this.steadyMillis = steadyMillis;
+        }
+    }
+
+    /**
+     * Restores the cache snapshot (H2 store only) and warms up the request paths.
+     */
+    static Report run(UrlStore store, AppConfig config) {
+        boolean jdbc = store instanceof JdbcUrlStore;
+        UrlCache cache = jdbc ? DatabaseManager.getCache() : null;
+        int restored = 0;
+        String snapshot = config.getString("startup.snapshot.path", "");
+        if (cache != null && !snapshot.isBlank() && Files.exists(Paths.get(snapshot))) {
+            long start = System.nanoTime();
+            try {
+                restored = restoreSnapshot(cache, Paths.get(snapshot));
+                System.out.printf("✅ Startup status: %d cached links restored from %s in %d ms.%n",
+                    restored, snapshot, (System.nanoTime() - start) / 1_000_000);
+            } catch (IOException e) {
+                System.err.println("❌ Could not restore the cache snapshot " + snapshot + ": " + e.getMessage());
+            }
+        }
+
+        int maxRounds = config.getInt("startup.warmup.maxRounds", 20);
+        int roundSize = config.getInt("startup.warmup.roundSize", 1000);
+        if (maxRounds <= 0 || roundSize <= 0) {
+            return new Report(restored, 0, 0, false, -1, -1);
+        }
+        Function<String, String> lookup = jdbc ? DatabaseManager::lookupUncached : store::find;
+        Report report = warmUp(lookup, samples(cache, config.getInt("keys.length", 6)), maxRounds, roundSize);
+        if (report.firstLookupMillis >= 0) {
+            System.out.printf("✅ Startup status: first lookup resolved %d ms after JVM start.%n", report.firstLookupMillis);
+        }
+        System.out.printf("✅ Startup status: lookup p99 %s at %d µs after %d warm-up rounds, %d ms after JVM start.%n",
+            report.steady ? "steady" : "still settling", report.p99Nanos / 1000, report.rounds, report.steadyMillis);
+        return new Report(restored, report.rounds, report.p99Nanos, report.steady,
+            report.firstLookupMillis, report.steadyMillis);
+    }
+
+    /**
+     * Keys and URLs to warm up with: the hottest cached links, or made-up keys (lookups that
+     * miss still run the whole database path) when the cache is empty.
+     */
+    private static List<String[]> samples(UrlCache cache, int keyLength) {
+        List<String[]> samples = new ArrayList<>();
+        if (cache != null) {
+            for (Map.Entry<String, UrlCache.Loaded> hot : cache.hottest(1000).entrySet()) {
+                samples.add(new String[] { hot.getKey(), hot.getValue().value });
+            }
+        }
+        for (int i = samples.size(); i < 64; i++) {
+            samples.add(new String[] { KeyGenerator.generateKey(keyLength), "HTTPS://www.Example.com:443/warm up/" + i + "#top" });
+        }
+        return samples;
+    }
+
+    static Report warmUp(Function<String, String> lookup, List<String[]> samples, int maxRounds, int roundSize) {
+        long firstLookupMillis = -1;
+        long previousP99 = 0;
+        long p99 = 0;
+        int round = 0;
+        boolean steady = false;
+        int next = 0;
+        while (round < maxRounds && !steady) {
+            LatencyHistogram latency = new LatencyHistogram();
+            for (int i = 0; i < roundSize; i++) {
+                String[] sample = samples.get(next++ % samples.size());
+                long start = System.nanoTime();
+                String found = lookup.apply(sample[0]);
+                latency.recordSince(start);
+                if (found != null && firstLookupMillis < 0) {
+                    firstLookupMillis = millisSinceJvmStart();
+                }
+                // The CPU-side work of a shorten, without writing a link
+                String canonicalUrl = UrlCanonicalizer.canonicalize(sample[1]);
+                if (canonicalUrl != null) {
+                    UrlHash.of(canonicalUrl);
+                }
+                KeyGenerator.generateKey(sample[0].length());
+            }
+            round++;
+            p99 = latency.getPercentile(99.0);
+            // Steady once a round is no longer more than 10% faster than the one before
+            steady = round >= 3 && p99 >= previousP99 * 0.9;
+            previousP99 = p99;
+        }
+        return new Report(0, round, p99, steady, firstLookupMillis, millisSinceJvmStart());
+    }
+
+    /**
+     * Prints the time to the first redirect the server answers; called for every redirect.
+     */
+    static void firstRedirect() {
+        if (!FIRST_REDIRECT_SEEN.get() && FIRST_REDIRECT_SEEN.compareAndSet(false, true)) {
+            System.out.printf("✅ Startup status: first redirect served %d ms after JVM start.%n", millisSinceJvmStart());
+        }
+    }
+
+    /**
+     * Milliseconds since this JVM was started. (ProcessHandle's start time is only as precise
+     * as the OS boot time, a whole second on Linux.)
+     */
+    static long millisSinceJvmStart() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * Saves the hottest cached links to startup.snapshot.path for the next start, if that is set.
+     */
+    static void saveSnapshot(AppConfig config) {
+        String snapshot = config.getString("startup.snapshot.path", "");
+        UrlCache cache = DatabaseManager.getCache();
+        if (snapshot.isBlank() || cache == null) {
+            return;
+        }
+        try {
+            int saved = saveSnapshot(cache, Paths.get(snapshot), config.getInt("startup.snapshot.maxEntries", 10_000));
+            System.out.println("✅ Startup status: " + saved + " hot links saved to " + snapshot + " for the next start.");
+        } catch (IOException e) {
+            System.err.println("❌ Could not save the cache snapshot " + snapshot + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes up to {@code maxEntries} of the cache's hottest links to {@code file}: magic, version,
+     * then per link a 1 byte, key, URL and expiry millis (0 for never), then a 0 byte and the count.
+     * The file is written next to its final name and moved into place when complete.
+     * @return The number of links saved.
+     */
+    static int saveSnapshot(UrlCache cache, Path file, int maxEntries) throws IOException {
+        Map<String, UrlCache.Loaded> hot = cache.hottest(maxEntries);
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                for (Map.Entry<String, UrlCache.Loaded> link : hot.entrySet()) {
+                    out.writeByte(1);
+                    out.writeUTF(link.getKey());
+                    out.writeUTF(link.getValue().value);
+                    out.writeLong(link.getValue().expiresAtMillis);
+                }
+                out.writeByte(0);
+                out.writeInt(hot.size());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return hot.size();
+    }
+
+    /**
+     * Puts the links of a snapshot back into the cache, in the order they were saved.
+     * Links that expired in the meantime are skipped.
+     * @return The number of links restored.
+     * @throws IOException if the file is not a snapshot or is incomplete; links read before the damage are kept.
+     */
+    static int restoreSnapshot(UrlCache cache, Path file) throws IOException {
+        long now = Instant.now().toEpochMilli();
+        int read = 0;
+        int restored = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException(file + " is not a cache snapshot");
+            }
+            while (in.readByte() == 1) {
+                String shortKey = in.readUTF();
+                String longUrl = in.readUTF();
+                long expiresAtMillis = in.readLong();
+                read++;
+                if (expiresAtMillis == 0 || expiresAtMillis > now) {
+                    cache.put(shortKey, longUrl, expiresAtMillis);
+                    restored++;
+                }
+            }
+            if (in.readInt() != read) {
+                throw new IOException(file + " does not hold the number of links it says");
+            }
+        } catch (EOFException e) {
+            throw new IOException(file + " is truncated after " + read + " links", e);
+        }
+        return restored;
+    }
+}
@@ -0,0 +1,320 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Write-behind persistence for new links.
+ *
+ * A saved link is put in an in-memory map (so findLongUrl can see it straight away)
+ * and on a bounded queue, and the caller is acknowledged immediately. A single
+ * background writer drains the queue and inserts the links in batched transactions.
+ * When the queue is full, callers wait up to the offer timeout and then get an error,
+ * so a slow database pushes back on writers instead of growing memory without limit.
+ */
+public class WriteBehindQueue implements AutoCloseable {
+
+    private final Function<String, ConnectionPool> poolFor;
+    private final String insertSql;
+    private final Binder binder;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final Consumer<String> onDropped;
+
+    private final ArrayBlockingQueue<String[]> queue;
+    private final ConcurrentHashMap<String, String> pending = new ConcurrentHashMap<>();
+    private final Thread writer;
+    private final Object writeLock = new Object();
+    private volatile boolean running = true;
+
+    // Metrics
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder persisted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+    private final LongAdder flushNanos = new LongAdder();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+
+    /**
+     * @param onDropped Called with the key of every link that could not be persisted,
+     *                  so anything that already served it (e.g. the lookup cache) can forget it.
+     */
+    public WriteBehindQueue(ConnectionPool pool, String insertSql, int capacity, int batchSize,
+                            long flushIntervalMillis, long offerTimeoutMillis, Consumer<String> onDropped) {
+        this(key -> pool, insertSql, capacity, batchSize, flushIntervalMillis, offerTimeoutMillis, onDropped);
+    }
+
+    /**
+     * @param poolFor Picks the database a link is written to (its shard); each batch commits once per shard.
+     */
+    public WriteBehindQueue(Function<String, ConnectionPool> poolFor, String insertSql, int capacity, int batchSize,
+                            long flushIntervalMillis, long offerTimeoutMillis, Consumer<String> onDropped) {
+        this(poolFor, insertSql, (pool, pstmt, shortKey, longUrl) -> {
+            pstmt.setString(1, shortKey);
+            pstmt.setString(2, longUrl);
+        }, capacity, batchSize, flushIntervalMillis, offerTimeoutMillis, onDropped);
+    }
+
+    /**
+     * @param binder Sets one link's parameters on {@code insertSql}; the default sets the key and URL as parameters 1 and 2.
+     */
+    public WriteBehindQueue(Function<String, ConnectionPool> poolFor, String insertSql, Binder binder, int capacity,
+                            int batchSize, long flushIntervalMillis, long offerTimeoutMillis, Consumer<String> onDropped) {
+        if (capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("capacity and batchSize must be positive");
+        }
+        this.poolFor = poolFor;
+        this.insertSql = insertSql;
+        this.binder = binder;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.onDropped = onDropped;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.writer = new Thread(this::runWriter, "write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Builds a queue from the writeBehind.* settings.
+     */
+    public static WriteBehindQueue fromConfig(AppConfig config, Function<String, ConnectionPool> poolFor,
+                                              String insertSql, Binder binder, Consumer<String> onDropped) {
+        return new WriteBehindQueue(poolFor, insertSql, binder,
+            config.getInt("writeBehind.capacity", 10_000),
+            config.getInt("writeBehind.batchSize", 500),
+            config.getLong("writeBehind.flushIntervalMs", 50),
+            config.getLong("writeBehind.offerTimeoutMs", 1000),
+            onDropped);
+    }
+
+    /**
+     * Accepts a link for background persistence. It is readable via {@link #get} as soon as this returns.
+     * @throws SQLException with the duplicate-key SQLState if the key is already waiting to be written,
+     *         or if the queue stayed full for the whole offer timeout.
+     */
+    public void enqueue(String shortKey, String longUrl) throws SQLException {
+        if (!running) {
+            throw new SQLException("Write-behind queue is closed");
+        }
+        if (pending.putIfAbsent(shortKey, longUrl) != null) {
+            throw new SQLException("Key '" + shortKey + "' is already pending", "23505");
+        }
+        boolean accepted;
+        try {
+            accepted = queue.offer(new String[] { shortKey, longUrl }, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            pending.remove(shortKey);
+            rejected.increment();
+            throw new SQLException("Write-behind queue is full (" + queue.size() + " links waiting)");
+        }
+        enqueued.increment();
+    }
+
+    /**
+     * Returns the URL for a key that is queued but not yet persisted, or null.
+     */
+    public String get(String shortKey) {
+        return pending.get(shortKey);
+    }
+
+    private void runWriter() {
+        List<String[]> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                String[] first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Writes out everything queued so far on the calling thread and waits until no link
+     * is left pending, or until the timeout passes (e.g. because the database is down).
+     * @return true if every link was persisted or dropped within the timeout.
+     */
+    public boolean flush(long timeoutMillis) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        List<String[]> batch = new ArrayList<>(batchSize);
+        while (!pending.isEmpty()) {
+            if (System.nanoTime() - deadline > 0) {
+                return false;
+            }
+            queue.drainTo(batch, batchSize);
+            if (batch.isEmpty()) {
+                // The writer thread holds the remaining links; give it a moment to finish
+                sleepQuietly(1);
+            } else {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        return true;
+    }
+
+    private void writeBatch(List<String[]> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            Map<ConnectionPool, List<String[]>> byShard = new LinkedHashMap<>();
+            for (String[] link : batch) {
+                byShard.computeIfAbsent(poolFor.apply(link[0]), p -> new ArrayList<>()).add(link);
+            }
+            boolean retry = false;
+            for (Map.Entry<ConnectionPool, List<String[]>> shard : byShard.entrySet()) {
+                try {
+                    writeShard(shard.getKey(), shard.getValue());
+                } catch (SQLException e) {
+                    // The database is unavailable: put the links back and try again on the next round
+                    System.err.println("❌ Write-behind flush failed, will retry: " + e.getMessage());
+                    requeue(shard.getValue());
+                    retry = true;
+                }
+            }
+            if (retry) {
+                sleepQuietly(flushIntervalMillis);
+                return;
+            }
+            long elapsed = System.nanoTime() - start;
+            flushes.increment();
+            flushNanos.add(elapsed);
+            maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    private void writeShard(ConnectionPool pool, List<String[]> links) throws SQLException {
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            pc.getConnection().setAutoCommit(false);
+            PreparedStatement pstmt = pc.prepare(insertSql);
+            for (String[] link : links) {
+                binder.bind(pool, pstmt, link[0], link[1]);
+                pstmt.addBatch();
+            }
+            int[] counts;
+            try {
+                counts = pstmt.executeBatch();
+            } catch (BatchUpdateException e) {
+                // Rows that failed (e.g. a key that already existed) are dropped; the rest are kept
+                counts = e.getUpdateCounts();
+                pstmt.clearBatch();
+                System.err.println("❌ Write-behind: some links could not be saved: " + e.getMessage());
+            }
+            pc.getConnection().commit();
+            pc.getConnection().setAutoCommit(true);
+
+            for (int i = 0; i < links.size(); i++) {
+                String shortKey = links.get(i)[0];
+                pending.remove(shortKey);
+                if (i < counts.length && counts[i] != Statement.EXECUTE_FAILED) {
+                    persisted.increment();
+                } else {
+                    failed.increment();
+                    onDropped.accept(shortKey);
+                }
+            }
+        }
+    }
+
+    private void requeue(List<String[]> batch) {
+        for (String[] link : batch) {
+            if (!queue.offer(link)) {
+                pending.remove(link[0]);
+                failed.increment();
+                onDropped.accept(link[0]);
+                System.err.println("❌ Write-behind: dropped link '" + link[0] + "', queue is full.");
+            }
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(Math.max(1, millis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops accepting links and waits (up to the timeout) for everything already queued to be persisted.
+     * @return true if nothing was left unwritten.
+     */
+    public boolean close(long timeoutMillis) {
+        // No interrupt: it could abort a write that is waiting for a connection and leave its
+        // links with nowhere to go. The writer notices within one flush interval.
+        running = false;
+        try {
+            writer.join(timeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        boolean drained = flush(timeoutMillis);
+        if (!drained) {
+            System.err.println("❌ Write-behind: " + pending.size() + " links were not persisted before shutdown.");
+        }
+        return drained;
+    }
+
+    @Override
+    public void close() {
+        close(30_000);
+    }
+
+    public int getQueueDepth() { return queue.size(); }
+    public long getEnqueuedCount() { return enqueued.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public long getPersistedCount() { return persisted.sum(); }
+    public long getFailedCount() { return failed.sum(); }
+    public long getFlushCount() { return flushes.sum(); }
+    public long getMaxFlushNanos() { return maxFlushNanos.get(); }
+
+    public double getAverageFlushMillis() {
+        long count = flushes.sum();
+        return count == 0 ? 0.0 : flushNanos.sum() / 1e6 / count;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("writeBehind[depth=%d, enqueued=%d, persisted=%d, failed=%d, rejected=%d, flushes=%d, avgFlush=%.2fms, maxFlush=%.2fms]",
+            getQueueDepth(), getEnqueuedCount(), getPersistedCount(), getFailedCount(), getRejectedCount(),
+            getFlushCount(), getAverageFlushMillis(), getMaxFlushNanos() / 1e6);
+    }
+
+    /**
+     * Sets the parameters of the insert statement for one link.
+     */
+    @FunctionalInterface
+    public interface Binder {
+        void bind(ConnectionPool pool, PreparedStatement pstmt, String shortKey, String longUrl) throws SQLException;
+    }
+}
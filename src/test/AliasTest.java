@@ -0,0 +1,203 @@
+package com.yourcompany.urlshortener;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for custom aliases: the naming rules, insert-or-fail claims, and the key column
+ * of databases created before aliases.
+ */
+public class AliasTest {
+
+    @AfterEach
+    void restoreDefaults() {
+        DatabaseManager.shutdown();
+        System.clearProperty("db.url");
+        System.clearProperty("keys.strategy");
+        System.clearProperty("dedupe.enabled");
+        System.clearProperty("index.enabled");
+        System.clearProperty("index.path");
+        System.clearProperty("index.authoritative");
+        DatabaseManager.clearCache();
+    }
+
+    private static void useDatabase(String name) {
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:" + name);
+        DatabaseManager.clearCache();
+        assertTrue(DatabaseManager.initializeDatabase());
+    }
+
+    /**
+     * Test: Aliases and namespaces are checked against their character sets and lengths,
+     * and reserved root paths can't be claimed.
+     */
+    @Test
+    void qualify_shouldApplyTheNamingRules() {
+        assertEquals("Spring_Sale-2", Aliases.qualify(null, "Spring_Sale-2"));
+        assertEquals("acme-co/spring-sale", Aliases.qualify("acme-co", "spring-sale"));
+        assertEquals("sale", Aliases.qualify(" ", "sale"), "A blank namespace is the root.");
+        assertEquals(Aliases.MAX_KEY_LENGTH,
+            Aliases.qualify("n".repeat(Aliases.MAX_NAMESPACE_LENGTH), "a".repeat(Aliases.MAX_ALIAS_LENGTH)).length());
+
+        assertNull(Aliases.qualify(null, ""));
+        assertNull(Aliases.qualify(null, "a/b"));
+        assertNull(Aliases.qualify(null, "sale!"));
+        assertNull(Aliases.qualify(null, "a".repeat(Aliases.MAX_ALIAS_LENGTH + 1)));
+        assertNull(Aliases.qualify("Acme", "sale"), "Namespaces are lowercase.");
+        assertNull(Aliases.qualify("acme_co", "sale"));
+        assertNull(Aliases.qualify(null, "Metrics"));
+        assertEquals("acme/metrics", Aliases.qualify("acme", "metrics"), "Reserved only at the root.");
+    }
+
+    /**
+     * Test: Of many concurrent claims for one alias exactly one wins, and the alias then
+     * resolves to the winner's URL; the same alias in another namespace is a different key.
+     */
+    @Test
+    void concurrentClaims_shouldHaveExactlyOneWinner() throws Exception {
+        useDatabase("aliasclaims");
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<Aliases.Result>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                String longUrl = "https://www.example.com/claim/" + i;
+                Callable<Aliases.Result> claim = () -> {
+                    go.await();
+                    return DatabaseManager.claimAlias("acme", "launch", longUrl, null);
+                };
+                results.add(pool.submit(claim));
+            }
+            go.countDown();
+            int claimed = 0;
+            String winner = null;
+            for (int i = 0; i < threads; i++) {
+                Aliases.Result result = results.get(i).get();
+                if (result == Aliases.Result.CLAIMED) {
+                    claimed++;
+                    winner = "https://www.example.com/claim/" + i;
+                } else {
+                    assertEquals(Aliases.Result.TAKEN, result);
+                }
+            }
+            assertEquals(1, claimed);
+            assertEquals(winner, DatabaseManager.findLongUrl("acme/launch"));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertNull(DatabaseManager.findLongUrl("other/launch"));
+        assertEquals(Aliases.Result.CLAIMED, DatabaseManager.claimAlias("other", "launch", "https://www.example.com/other", null));
+        assertEquals(Aliases.Result.CLAIMED, DatabaseManager.claimAlias(null, "launch", "https://www.example.com/root", null));
+        assertEquals("https://www.example.com/other", DatabaseManager.findLongUrl("other/launch"));
+        assertEquals(Aliases.Result.INVALID, DatabaseManager.claimAlias("acme", "no/slash", "https://www.example.com/x", null));
+    }
+
+    /**
+     * Test: With the collision-free range allocator, root aliases it could generate are refused,
+     * so it never hands out a key an alias already holds; other aliases are still claimed.
+     */
+    @Test
+    void rangeAllocator_shouldReserveItsKeyspaceAtTheRoot() throws Exception {
+        System.setProperty("keys.strategy", "range");
+        useDatabase("aliasrange");
+        assertEquals(Aliases.Result.RESERVED, DatabaseManager.claimAlias(null, "abc123", "https://www.example.com/a", null));
+        assertEquals(Aliases.Result.CLAIMED, DatabaseManager.claimAlias(null, "abc12", "https://www.example.com/b", null));
+        assertEquals(Aliases.Result.CLAIMED, DatabaseManager.claimAlias(null, "abc-12", "https://www.example.com/c", null));
+        assertEquals(Aliases.Result.CLAIMED, DatabaseManager.claimAlias("acme", "abc123", "https://www.example.com/d", null));
+
+        String shortKey = DatabaseManager.shortenUrl("https://www.example.com/generated");
+        assertNotNull(shortKey);
+        assertEquals("https://www.example.com/generated", DatabaseManager.findLongUrl(shortKey));
+    }
+
+    /**
+     * Test: In dedupe mode, shortening a URL someone claimed an alias for, at the root or in a
+     * namespace, gets a generated key of its own rather than their alias.
+     */
+    @Test
+    void dedupe_shouldNotHandOutSomeoneElsesAlias() {
+        String longUrl = "https://www.example.com/spring-sale";
+        useDatabase("aliasdedupe");
+        assertEquals(Aliases.Result.CLAIMED, DatabaseManager.claimAlias(null, "spring-sale", longUrl, null));
+        assertEquals(Aliases.Result.CLAIMED, DatabaseManager.claimAlias("acme", "sale", longUrl, null));
+
+        // Restart so the filter is seeded with the aliases' URL
+        System.setProperty("dedupe.enabled", "true");
+        useDatabase("aliasdedupe");
+        String shortKey = DatabaseManager.shortenUrl(longUrl);
+        assertNotNull(shortKey);
+        assertNotEquals("spring-sale", shortKey);
+        assertNotEquals("acme/sale", shortKey);
+        assertEquals(shortKey, DatabaseManager.shortenUrl(longUrl), "Generated keys are still reused.");
+    }
+
+    /**
+     * Test: An authoritative index node still resolves aliases too long for the index's key
+     * width, by asking the database, while short unknown keys stay "not found" without it.
+     */
+    @Test
+    void authoritativeIndex_shouldResolveAliasesLongerThanItsKeyWidth() throws Exception {
+        Path indexPath = Files.createTempFile("aliasindex", ".idx");
+        try {
+            useDatabase("aliasindex");
+            String longKey = Aliases.qualify("acme", "a-much-longer-alias-than-ten");
+            assertEquals(Aliases.Result.CLAIMED,
+                DatabaseManager.claimAlias("acme", "a-much-longer-alias-than-ten", "https://www.example.com/long", null));
+            assertTrue(DatabaseManager.saveUrl("short1", "https://www.example.com/short"));
+
+            System.setProperty("index.enabled", "true");
+            System.setProperty("index.path", indexPath.toString());
+            System.setProperty("index.authoritative", "true");
+            useDatabase("aliasindex");
+            assertEquals("https://www.example.com/short", DatabaseManager.findLongUrl("short1"));
+            assertEquals("https://www.example.com/long", DatabaseManager.findLongUrl(longKey));
+            assertNull(DatabaseManager.findLongUrl("nope12"));
+        } finally {
+            DatabaseManager.shutdown();
+            Files.deleteIfExists(indexPath);
+        }
+    }
+
+    /**
+     * Test: A urls table from before aliases has its short_key column widened on startup,
+     * keeping its links and its unique index.
+     */
+    @Test
+    void oldTable_shouldBeWidenedForAliases() throws Exception {
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:aliasmigrate;DB_CLOSE_DELAY=-1", "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE urls (id INT AUTO_INCREMENT PRIMARY KEY, short_key VARCHAR(10) NOT NULL UNIQUE, "
+                + "long_url VARCHAR(2048) NOT NULL, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+            stmt.execute("INSERT INTO urls (short_key, long_url) VALUES ('old123', 'https://www.example.com/old')");
+
+            useDatabase("aliasmigrate");
+            try (ResultSet rs = stmt.executeQuery("SELECT CHARACTER_MAXIMUM_LENGTH FROM INFORMATION_SCHEMA.COLUMNS "
+                    + "WHERE TABLE_NAME = 'URLS' AND COLUMN_NAME = 'SHORT_KEY'")) {
+                assertTrue(rs.next());
+                assertEquals(Aliases.MAX_KEY_LENGTH, rs.getLong(1));
+            }
+        }
+        assertEquals("https://www.example.com/old", DatabaseManager.findLongUrl("old123"));
+        assertEquals(Aliases.Result.TAKEN, DatabaseManager.claimAlias(null, "old123", "https://www.example.com/new", null));
+        assertEquals(Aliases.Result.CLAIMED,
+            DatabaseManager.claimAlias("acme", "a-much-longer-alias-than-ten", "https://www.example.com/new", null));
+    }
+}
@@ -0,0 +1,101 @@
+package com.yourcompany.urlshortener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for click analytics: in-memory counting, batched flushes to url_stats and top-N queries.
+ */
+public class ClickTrackerTest {
+
+    @BeforeEach
+    void enableAnalytics() throws Exception {
+        System.setProperty("analytics.enabled", "true");
+        System.setProperty("analytics.flushSeconds", "0");
+        DatabaseManager.initializeDatabase();
+        try (java.sql.Connection conn = DatabaseManager.getConnection();
+             java.sql.Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM url_stats");
+        }
+    }
+
+    @AfterEach
+    void disableAnalytics() {
+        System.clearProperty("analytics.enabled");
+        System.clearProperty("analytics.flushSeconds");
+        DatabaseManager.shutdown();
+    }
+
+    /**
+     * Test: Clicks from many threads are all counted, and repeated flushes add up instead of overwriting.
+     */
+    @Test
+    void flush_shouldAccumulateConcurrentClicks() throws Exception {
+        String key = "clk" + (System.nanoTime() % 100_000);
+        assertTrue(DatabaseManager.saveUrl(key, "https://www.example.com/clicks"));
+        ClickTracker tracker = DatabaseManager.getClickTracker();
+        assertNotNull(tracker);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    assertNotNull(DatabaseManager.findLongUrl(key));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(1, tracker.flush(), "One (key, bucket) row per flush, however many clicks.");
+        DatabaseManager.findLongUrl(key);
+        assertEquals(4001, tracker.getHits(key));
+    }
+
+    /**
+     * Test: Unknown keys are not counted, and topKeys orders by total clicks.
+     */
+    @Test
+    void topKeys_shouldOrderByClicks() throws Exception {
+        String suffix = Long.toString(System.nanoTime() % 10_000);
+        assertTrue(DatabaseManager.saveUrl("hot" + suffix, "https://www.example.com/hot"));
+        assertTrue(DatabaseManager.saveUrl("warm" + suffix, "https://www.example.com/warm"));
+        for (int i = 0; i < 1000; i++) {
+            DatabaseManager.findLongUrl("hot" + suffix);
+        }
+        for (int i = 0; i < 999; i++) {
+            DatabaseManager.findLongUrl("warm" + suffix);
+        }
+        assertNull(DatabaseManager.findLongUrl("missing" + suffix));
+
+        List<Map.Entry<String, Long>> top = DatabaseManager.getClickTracker().topKeys(2);
+        assertEquals("hot" + suffix, top.get(0).getKey());
+        assertEquals(1000L, top.get(0).getValue());
+        assertEquals("warm" + suffix, top.get(1).getKey());
+        assertEquals(0, DatabaseManager.getClickTracker().getHits("missing" + suffix));
+    }
+
+    /**
+     * Test: Once maxTrackedKeys distinct keys are waiting, clicks on new keys are dropped rather than buffered.
+     */
+    @Test
+    void record_shouldDropNewKeysBeyondLimit() throws Exception {
+        ClickTracker tracker = new ClickTracker(DatabaseManager.getPool(), 0, 3600, 2);
+        tracker.record("a");
+        tracker.record("b");
+        tracker.record("c");
+        tracker.record("a");
+        assertEquals(3, tracker.getRecordedCount());
+        assertEquals(1, tracker.getDroppedCount());
+        tracker.close();
+    }
+}
@@ -0,0 +1,139 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the compact urls layout (db.schema=compact): packed keys, the prefix dictionary,
+ * compressed tails, and dedupe and resharding on top of it. Each test uses its own
+ * in-memory database name.
+ */
+public class CompactSchemaTest {
+
+    @AfterEach
+    void restoreDefaults() {
+        DatabaseManager.shutdown();
+        System.clearProperty("db.schema");
+        System.clearProperty("db.url");
+        System.clearProperty("db.shards");
+        System.clearProperty("dedupe.enabled");
+        DatabaseManager.clearCache();
+    }
+
+    private static void startCompact(String name) {
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:" + name);
+        System.setProperty("db.schema", "compact");
+        DatabaseManager.initializeDatabase();
+    }
+
+    /**
+     * Test: Links come back unchanged from the database, a long repetitive tail is stored deflated,
+     * and URLs on the same host share one url_prefixes row.
+     */
+    @Test
+    void compact_shouldRoundTripAndShareHostPrefixes() throws Exception {
+        startCompact("compactrt");
+        String longUrl = "https://www.example.com/" + "search?q=shortener&page=1&".repeat(20) + "ünï";
+        String shortUrl = "https://www.example.com/a";
+        assertTrue(DatabaseManager.saveUrl("abc123", longUrl));
+        assertTrue(DatabaseManager.saveUrl("Zz9", shortUrl));
+        assertTrue(DatabaseManager.saveUrl("other1", "http://other.example.org"));
+
+        DatabaseManager.clearCache();
+        UrlSchema.clearCaches();
+        assertEquals(longUrl, DatabaseManager.findLongUrl("abc123"));
+        assertEquals(shortUrl, DatabaseManager.findLongUrl("Zz9"));
+        assertEquals("http://other.example.org", DatabaseManager.findLongUrl("other1"));
+        assertNull(DatabaseManager.findLongUrl("nope12"));
+
+        assertEquals(2, count("SELECT COUNT(*) FROM url_prefixes"));
+        assertTrue(count("SELECT OCTET_LENGTH(url_tail) FROM urls WHERE key_id = " + KeyGenerator.pack("abc123"))
+            < longUrl.length() / 4, "A repetitive tail should be stored deflated.");
+    }
+
+    /**
+     * Test: Keys that do not pack into a BIGINT are refused instead of being stored.
+     */
+    @Test
+    void compact_shouldRefuseKeysThatDoNotPack() {
+        startCompact("compactkeys");
+        assertFalse(DatabaseManager.saveUrl("my-alias", "https://www.example.com/alias"));
+        assertFalse(DatabaseManager.saveUrl("abcdefghijk", "https://www.example.com/too-long"));
+        assertNull(DatabaseManager.findLongUrl("my-alias"));
+
+        String shortKey = DatabaseManager.shortenUrl("https://www.example.com/generated");
+        assertEquals("https://www.example.com/generated", DatabaseManager.findLongUrl(shortKey));
+    }
+
+    /**
+     * Test: Dedupe finds an existing link through the Java-computed url_hash.
+     */
+    @Test
+    void compact_shouldSupportDedupe() {
+        System.setProperty("dedupe.enabled", "true");
+        startCompact("compactdedupe");
+        String first = DatabaseManager.shortenUrl("https://www.example.com/same");
+        assertNotNull(first);
+        assertEquals(first, DatabaseManager.shortenUrl("https://www.example.com/same"));
+        assertNotEquals(first, DatabaseManager.shortenUrl("https://www.example.com/different"));
+    }
+
+    /**
+     * Test: A standard database is not opened as compact, and --reshard migrates it instead.
+     */
+    @Test
+    void reshard_shouldMigrateStandardToCompact() throws Exception {
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:compactmove");
+        DatabaseManager.initializeDatabase();
+        for (int i = 0; i < 20; i++) {
+            assertTrue(DatabaseManager.saveUrl("move" + i, "https://www.example.com/move/" + i));
+        }
+        DatabaseManager.shutdown();
+
+        System.setProperty("db.schema", "compact");
+        try (Connection conn = DatabaseManager.getConnection()) {
+            assertThrows(SQLException.class, () -> DatabaseManager.initializeSchema(conn, true));
+        }
+        DatabaseManager.shutdown();
+
+        assertEquals(20, ShardRebalancer.rebalance(AppConfig.get(), 1, 2, 5));
+        System.setProperty("db.shards", "2");
+        DatabaseManager.clearCache();
+        DatabaseManager.initializeDatabase();
+        assertEquals(UrlSchema.COMPACT, DatabaseManager.getSchema());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("https://www.example.com/move/" + i, DatabaseManager.findLongUrl("move" + i));
+        }
+    }
+
+    /**
+     * Test: Aliases that are valid but can't be packed are refused as unsupported, not as invalid,
+     * and plain base62 aliases still work.
+     */
+    @Test
+    void compact_shouldRefuseAliasesItCannotStoreAsUnsupported() {
+        startCompact("compactalias");
+        assertEquals(Aliases.Result.CLAIMED, DatabaseManager.claimAlias(null, "Sale2026", "https://www.example.com/s", null));
+        assertEquals(Aliases.Result.UNSUPPORTED, DatabaseManager.claimAlias("acme", "sale", "https://www.example.com/a", null));
+        assertEquals(Aliases.Result.UNSUPPORTED, DatabaseManager.claimAlias(null, "spring-sale", "https://www.example.com/b", null));
+        assertEquals(Aliases.Result.INVALID, DatabaseManager.claimAlias(null, "no/slash", "https://www.example.com/c", null));
+        assertEquals("https://www.example.com/s", DatabaseManager.findLongUrl("Sale2026"));
+    }
+
+    private static long count(String sql) throws SQLException {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            assertTrue(rs.next());
+            return rs.getLong(1);
+        }
+    }
+}
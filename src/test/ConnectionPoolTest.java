@@ -0,0 +1,87 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the ConnectionPool: reuse, bounds, timeouts and statement caching.
+ * Each test gets its own private in-memory database.
+ */
+public class ConnectionPoolTest {
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void createPool() {
+        pool = new ConnectionPool("jdbc:h2:mem:pooltest", "sa", "", 1, 2, 100, true, 1);
+    }
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    /**
+     * Test: A released connection is handed out again instead of opening a new one.
+     */
+    @Test
+    void acquire_shouldReuseReleasedConnection() throws SQLException {
+        Connection first;
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            first = pc.getConnection();
+        }
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            assertSame(first, pc.getConnection(), "Pool should reuse the idle connection.");
+        }
+        assertEquals(1, pool.getOpenedCount(), "Only the pre-filled connection should have been opened.");
+    }
+
+    /**
+     * Test: Once maxSize connections are borrowed, acquire times out and the timeout is counted.
+     */
+    @Test
+    void acquire_shouldTimeOutWhenPoolExhausted() throws SQLException {
+        ConnectionPool.PooledConnection a = pool.acquire();
+        ConnectionPool.PooledConnection b = pool.acquire();
+        assertEquals(2, pool.getActiveCount());
+
+        assertThrows(SQLException.class, pool::acquire, "Third acquire must time out.");
+        assertEquals(1, pool.getTimeoutCount());
+
+        a.close();
+        b.close();
+        assertEquals(0, pool.getActiveCount());
+        assertEquals(2, pool.getIdleCount());
+    }
+
+    /**
+     * Test: The same prepared statement object is returned for the same SQL on one connection.
+     */
+    @Test
+    void prepare_shouldCacheStatementsPerConnection() throws SQLException {
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            PreparedStatement first = pc.prepare("SELECT 1");
+            PreparedStatement second = pc.prepare("SELECT 1");
+            assertSame(first, second, "Statement should come from the per-connection cache.");
+        }
+    }
+
+    /**
+     * Test: Closing the Connection view returns it to the pool, and a second close is harmless.
+     */
+    @Test
+    void connectionView_closeShouldReturnToPool() throws SQLException {
+        Connection conn = pool.acquire().asConnection();
+        assertEquals(1, pool.getActiveCount());
+        conn.close();
+        conn.close();
+        assertTrue(conn.isClosed());
+        assertEquals(0, pool.getActiveCount());
+    }
+}
@@ -40,6 +40,8 @@ public class DatabaseManagerTest {
         } catch (java.sql.SQLException e) {
             System.err.println("Cleanup failed: " + e.getMessage());
         }
+        // The rows were deleted behind DatabaseManager's back, so drop cached lookups too
+        DatabaseManager.clearCache();
     }
 
     /**
@@ -91,4 +93,44 @@ public class DatabaseManagerTest {
         assertFalse(DatabaseManager.saveUrl(UNIQUE_SHORT_KEY, LONG_URL + "2"), 
             "Saving the same key again must fail due to UNIQUE constraint.");
     }
-}
\ No newline at end of file
+
+    /**
+     * Test 5: Verifies that repeated lookups are served from the cache, including misses.
+     */
+    @Test
+    void findLongUrl_shouldServeRepeatedLookupsFromCache() {
+        UrlCache cache = DatabaseManager.getCache();
+        assertNotNull(cache, "Cache is enabled by default.");
+        DatabaseManager.saveUrl(SHORT_KEY, LONG_URL);
+
+        long hitsBefore = cache.getHitCount();
+        assertEquals(LONG_URL, DatabaseManager.findLongUrl(SHORT_KEY));
+        assertEquals(hitsBefore + 1, cache.getHitCount(), "saveUrl should have populated the cache.");
+
+        long negativeBefore = cache.getNegativeHitCount();
+        assertNull(DatabaseManager.findLongUrl("MISSING"));
+        assertNull(DatabaseManager.findLongUrl("MISSING"));
+        assertEquals(negativeBefore + 1, cache.getNegativeHitCount(), "Second miss should be a cached miss.");
+    }
+
+    /**
+     * Test 6: Verifies that a bulk import saves every row across several batches and reports it.
+     */
+    @Test
+    void bulkImport_shouldSaveAllRowsAndWriteMapping() throws Exception {
+        int rows = 2500;
+        java.io.StringWriter out = new java.io.StringWriter();
+        java.util.stream.Stream<String> urls = java.util.stream.IntStream.range(0, rows)
+            .mapToObj(i -> i % 500 == 0 ? "   " : LONG_URL + "/" + i);
+
+        BulkImportResult result = DatabaseManager.bulkImport(urls, out, 1000);
+
+        assertEquals(rows - 5, result.getImported(), "Every non-blank row should be imported.");
+        assertEquals(5, result.getSkipped(), "Blank rows should be skipped.");
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(rows - 5, lines.length);
+        String[] first = lines[0].split("\t");
+        assertEquals(first[1], DatabaseManager.findLongUrl(first[0]), "Written mapping must resolve.");
+    }
+}
@@ -0,0 +1,97 @@
+package com.yourcompany.urlshortener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for expiring links: lookups after expiry (cached or not) and the batched background purge.
+ */
+public class ExpiredLinkPurgerTest {
+
+    @BeforeEach
+    void setUp() {
+        DatabaseManager.initializeDatabase();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM urls WHERE expires_at IS NOT NULL");
+        }
+        DatabaseManager.clearCache();
+        DatabaseManager.shutdown();
+    }
+
+    /**
+     * Test: A link resolves until it expires, then is a miss even though it is still cached and not purged.
+     */
+    @Test
+    void findLongUrl_shouldMissAfterExpiry() throws Exception {
+        String key = "exp" + (System.nanoTime() % 100_000);
+        assertTrue(DatabaseManager.saveUrl(key, "https://www.example.com/campaign", Instant.now().plusMillis(300)));
+        assertEquals("https://www.example.com/campaign", DatabaseManager.findLongUrl(key));
+
+        Thread.sleep(400);
+        assertNull(DatabaseManager.findLongUrl(key), "Expired link must not be served from the cache.");
+
+        DatabaseManager.clearCache();
+        assertNull(DatabaseManager.findLongUrl(key), "Expired link must not be served from the database.");
+    }
+
+    /**
+     * Test: The purger deletes only expired rows, in batches, and the backlog drops to zero.
+     */
+    @Test
+    void purge_shouldDeleteExpiredRowsInBatches() throws Exception {
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(
+                 "INSERT INTO urls (short_key, long_url, expires_at) VALUES (?, ?, ?)")) {
+            Timestamp past = new Timestamp(System.currentTimeMillis() - 60_000);
+            for (int i = 0; i < 1200; i++) {
+                pstmt.setString(1, "old" + i);
+                pstmt.setString(2, "https://www.example.com/old/" + i);
+                pstmt.setTimestamp(3, past);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        String live = "live" + (System.nanoTime() % 100_000);
+        assertTrue(DatabaseManager.saveUrl(live, "https://www.example.com/live", Instant.now().plusSeconds(3600)));
+
+        ExpiredLinkPurger purger = new ExpiredLinkPurger(DatabaseManager.getPool(), 0, 500, 0, 100);
+        assertEquals(1200, purger.getBacklog());
+        assertEquals(1200, purger.purge());
+        assertEquals(3, purger.getBatchCount(), "1200 rows at batch size 500 take three batches.");
+        assertEquals(0, purger.getBacklog());
+        assertEquals("https://www.example.com/live", DatabaseManager.findLongUrl(live));
+        purger.close();
+    }
+
+    /**
+     * Test: One run stops after maxBatchesPerRun and leaves the rest for the next run.
+     */
+    @Test
+    void purge_shouldCapWorkPerRun() throws Exception {
+        try (Connection conn = DatabaseManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("INSERT INTO urls (short_key, long_url, expires_at) " +
+                "SELECT 'cap' || X, 'https://www.example.com/cap', DATEADD(MINUTE, -1, CURRENT_TIMESTAMP) " +
+                "FROM SYSTEM_RANGE(1, 250)");
+        }
+        ExpiredLinkPurger purger = new ExpiredLinkPurger(DatabaseManager.getPool(), 0, 100, 0, 2);
+        assertEquals(200, purger.purge());
+        assertEquals(50, purger.getBacklog());
+        assertEquals(50, purger.purge());
+        purger.close();
+    }
+}
@@ -0,0 +1,148 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the in-memory store engine (store.engine=memory): lookups, key ownership,
+ * concurrent writers, and snapshot/append-log persistence.
+ */
+public class InMemoryUrlStoreTest {
+
+    /**
+     * Test: Saved links are found, taken keys are refused, and non-base62 keys work too.
+     */
+    @Test
+    void save_shouldStoreAndRefuseTakenKeys() {
+        InMemoryUrlStore store = new InMemoryUrlStore(16, 4);
+        assertTrue(store.initialize());
+        assertTrue(store.save("abc123", "https://www.example.com/one"));
+        assertFalse(store.save("abc123", "https://www.example.com/other"), "A taken key must not be overwritten.");
+        assertTrue(store.save("my-alias", "https://www.example.com/alias"));
+
+        assertEquals("https://www.example.com/one", store.find("abc123"));
+        assertEquals("https://www.example.com/alias", store.find("my-alias"));
+        assertNull(store.find("nope12"));
+
+        String shortKey = store.shorten("https://www.example.com/generated");
+        assertEquals("https://www.example.com/generated", store.find(shortKey));
+
+        assertTrue(store.save("gone12", "https://www.example.com/gone", Instant.now().minusSeconds(1)));
+        assertNull(store.find("gone12"), "Expired links must not resolve.");
+        store.close();
+    }
+
+    /**
+     * Test: Many threads shortening at once, well past the initial capacity, lose no link.
+     */
+    @Test
+    void shorten_shouldSurviveConcurrentWritersAndGrowth() throws Exception {
+        InMemoryUrlStore store = new InMemoryUrlStore(16, 2);
+        store.initialize();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            results.add(pool.submit(() -> {
+                List<String> keys = new ArrayList<>();
+                for (int i = 0; i < 2000; i++) {
+                    keys.add(store.shorten("https://www.example.com/" + thread + "/" + i));
+                }
+                return keys;
+            }));
+        }
+        for (int t = 0; t < 8; t++) {
+            List<String> keys = results.get(t).get();
+            for (int i = 0; i < keys.size(); i++) {
+                assertEquals("https://www.example.com/" + t + "/" + i, store.find(keys.get(i)));
+            }
+        }
+        pool.shutdown();
+        assertEquals(16000, store.size());
+    }
+
+    /**
+     * Test: Links come back after a restart, both from the snapshot and from the log written after it,
+     * and a record cut short by a crash is ignored.
+     */
+    @Test
+    void persistence_shouldRestoreSnapshotAndLog() throws IOException {
+        Path dir = Files.createTempDirectory("memstore");
+        InMemoryUrlStore store = new InMemoryUrlStore(16, 4, 6, 5, dir, 0, 0);
+        assertTrue(store.initialize());
+        assertTrue(store.save("snap01", "https://www.example.com/in-snapshot"));
+        assertEquals(1, store.snapshot());
+        assertTrue(store.save("log001", "https://www.example.com/in-log"));
+        assertTrue(store.save("url/odd", "https://www.example.com/unpacked"));
+        // Simulate a crash: no close(), and a half-written record at the end of the log
+        try (OutputStream out = Files.newOutputStream(dir.resolve("append.log"), StandardOpenOption.APPEND)) {
+            out.write(new byte[] { 0, 6, 'h', 'a' });
+        }
+
+        InMemoryUrlStore restarted = new InMemoryUrlStore(16, 4, 6, 5, dir, 0, 0);
+        assertTrue(restarted.initialize());
+        assertEquals("https://www.example.com/in-snapshot", restarted.find("snap01"));
+        assertEquals("https://www.example.com/in-log", restarted.find("log001"));
+        assertEquals("https://www.example.com/unpacked", restarted.find("url/odd"));
+        assertEquals(3, restarted.size());
+        restarted.close();
+
+        InMemoryUrlStore again = new InMemoryUrlStore(16, 4, 6, 5, dir, 0, 0);
+        assertTrue(again.initialize());
+        assertEquals(3, again.size(), "close() should leave everything in the snapshot.");
+        again.close();
+    }
+
+    /**
+     * Test: Saves made after recovering from a torn log record survive the next crash too.
+     */
+    @Test
+    void persistence_shouldKeepSavesMadeAfterATornRecord() throws IOException {
+        Path dir = Files.createTempDirectory("memstore");
+        InMemoryUrlStore store = new InMemoryUrlStore(16, 4, 6, 5, dir, 0, 0);
+        assertTrue(store.initialize());
+        assertTrue(store.save("before", "https://www.example.com/before"));
+        try (OutputStream out = Files.newOutputStream(dir.resolve("append.log"), StandardOpenOption.APPEND)) {
+            out.write(new byte[] { 0, 6, 'h', 'a' });
+        }
+
+        InMemoryUrlStore recovered = new InMemoryUrlStore(16, 4, 6, 5, dir, 0, 0);
+        assertTrue(recovered.initialize());
+        assertTrue(recovered.save("after1", "https://www.example.com/after"));
+        // Crash again without close()
+
+        InMemoryUrlStore again = new InMemoryUrlStore(16, 4, 6, 5, dir, 0, 0);
+        assertTrue(again.initialize());
+        assertEquals("https://www.example.com/before", again.find("before"));
+        assertEquals("https://www.example.com/after", again.find("after1"));
+        assertEquals(2, again.size());
+        again.close();
+    }
+
+    /**
+     * Test: store.engine selects the implementation.
+     */
+    @Test
+    void fromConfig_shouldSelectEngine() {
+        try {
+            System.setProperty("store.engine", "memory");
+            assertTrue(UrlStore.fromConfig(AppConfig.get()) instanceof InMemoryUrlStore);
+            System.setProperty("store.engine", "jdbc");
+            assertTrue(UrlStore.fromConfig(AppConfig.get()) instanceof JdbcUrlStore);
+        } finally {
+            System.clearProperty("store.engine");
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the key allocation strategies and the base62 helpers they share.
+ */
+public class KeyAllocatorTest {
+
+    private static ConnectionPool pool;
+
+    @BeforeAll
+    static void createPool() {
+        pool = new ConnectionPool("jdbc:h2:mem:keyalloctest", "sa", "", 1, 4, 1000, false, 1);
+    }
+
+    @AfterAll
+    static void closePool() {
+        pool.close();
+    }
+
+    /**
+     * Test: Fixed-width base62 encoding pads with the first alphabet character and round-trips via digit().
+     */
+    @Test
+    void encode_shouldProduceFixedWidthBase62() {
+        assertEquals("aaaaab", KeyGenerator.encode(1, 6));
+        assertEquals("aaaaba", KeyGenerator.encode(62, 6));
+
+        String key = KeyGenerator.encode(123_456_789L, 6);
+        long decoded = 0;
+        for (char c : key.toCharArray()) {
+            decoded = decoded * 62 + KeyGenerator.digit(c);
+        }
+        assertEquals(123_456_789L, decoded);
+    }
+
+    /**
+     * Test: The range allocator's permutation is a bijection on a small key space.
+     */
+    @Test
+    void rangeAllocator_permutationShouldBeBijective() {
+        RangeKeyAllocator allocator = new RangeKeyAllocator(pool, 2, 10, 1);
+        Set<Long> seen = new HashSet<>();
+        for (long id = 0; id < 62 * 62; id++) {
+            assertTrue(seen.add(allocator.permute(id)), "Permutation must not map two ids to one key.");
+        }
+    }
+
+    /**
+     * Test: Many threads drawing from the range allocator never get the same key.
+     */
+    @Test
+    void rangeAllocator_shouldBeUniqueUnderConcurrency() throws Exception {
+        RangeKeyAllocator allocator = new RangeKeyAllocator(pool, 6, 100, 4);
+        Set<String> keys = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 2000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        String key = allocator.nextKey();
+                        assertEquals(6, key.length());
+                        keys.add(key);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(threads * perThread, keys.size(), "All allocated keys must be distinct.");
+    }
+
+    /**
+     * Test: Changing the block size between restarts never hands out an id that was already
+     * leased under the old size.
+     */
+    @Test
+    void rangeAllocator_shouldNotReuseIdsWhenBlockSizeChanges() throws Exception {
+        ConnectionPool own = new ConnectionPool("jdbc:h2:mem:keyblocksize", "sa", "", 1, 2, 1000, false, 1);
+        try {
+            Set<String> keys = new HashSet<>();
+            for (int blockSize : new int[] { 100, 7, 1000, 3 }) {
+                RangeKeyAllocator allocator = new RangeKeyAllocator(own, 4, blockSize, 1);
+                for (int i = 0; i < 250; i++) {
+                    assertTrue(keys.add(allocator.nextKey()), "Block size " + blockSize + " reused a key.");
+                }
+            }
+        } finally {
+            own.close();
+        }
+    }
+
+    /**
+     * Test: Running out of range keys is a SQLException, which shortenUrl reports as a failed
+     * save (null) rather than letting it escape.
+     */
+    @Test
+    void rangeAllocator_shouldFailCleanlyWhenExhausted() throws Exception {
+        ConnectionPool own = new ConnectionPool("jdbc:h2:mem:keyexhausted", "sa", "", 1, 2, 1000, false, 1);
+        try {
+            RangeKeyAllocator allocator = new RangeKeyAllocator(own, 1, 10, 1);
+            for (int i = 0; i < 62; i++) {
+                allocator.nextKey();
+            }
+            assertThrows(SQLException.class, allocator::nextKey);
+        } finally {
+            own.close();
+        }
+
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:keyexhaustedapp");
+        System.setProperty("keys.strategy", "range");
+        System.setProperty("keys.length", "1");
+        try {
+            DatabaseManager.clearCache();
+            assertTrue(DatabaseManager.initializeDatabase());
+            for (int i = 0; i < 62; i++) {
+                assertNotNull(DatabaseManager.shortenUrl("https://www.example.com/" + i));
+            }
+            assertNull(DatabaseManager.shortenUrl("https://www.example.com/one-too-many"));
+        } finally {
+            DatabaseManager.shutdown();
+            System.clearProperty("db.url");
+            System.clearProperty("keys.strategy");
+            System.clearProperty("keys.length");
+            DatabaseManager.clearCache();
+        }
+    }
+
+    /**
+     * Test: The random allocator honours the configured key length and alphabet.
+     */
+    @Test
+    void randomAllocator_shouldUseConfiguredLength() throws Exception {
+        KeyAllocator allocator = new RandomKeyAllocator(7);
+        String key = allocator.nextKey();
+        assertEquals(7, key.length());
+        assertTrue(key.matches("^[a-zA-Z0-9]+$"));
+        assertFalse(allocator.isCollisionFree());
+    }
+}
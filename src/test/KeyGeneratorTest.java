@@ -46,4 +46,20 @@ public class KeyGeneratorTest {
         // Uses a Regular Expression to check for alphanumeric characters only
         assertTrue(key.matches("^[a-zA-Z0-9]+$"), "Key must be strictly alphanumeric.");
     }
+
+    /**
+     * Test: Packing a key into a long is reversible and keeps keys of different lengths apart.
+     */
+    @Test
+    void pack_shouldRoundTripAndKeepLengthsApart() {
+        for (String key : new String[] { "a", "aa", "Z9", "abc123", "9999999999", KeyGenerator.generateKey(7) }) {
+            long packed = KeyGenerator.pack(key);
+            assertTrue(packed > 0, "Packed keys must be positive: " + key);
+            assertEquals(key, KeyGenerator.unpack(packed));
+        }
+        assertNotEquals(KeyGenerator.pack("a"), KeyGenerator.pack("aa"));
+        assertEquals(-1, KeyGenerator.pack("has-dash"));
+        assertEquals(-1, KeyGenerator.pack("abcdefghijk"));
+        assertEquals(-1, KeyGenerator.pack(""));
+    }
 }
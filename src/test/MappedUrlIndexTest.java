@@ -0,0 +1,134 @@
+package com.yourcompany.urlshortener;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the memory-mapped URL index: building from the urls table, lookups and rebuilds.
+ */
+public class MappedUrlIndexTest {
+
+    private ConnectionPool pool;
+    private Path indexFile;
+
+    @BeforeEach
+    void createTable() throws Exception {
+        pool = new ConnectionPool("jdbc:h2:mem:indextest", "sa", "", 1, 2, 5000, false, 1);
+        indexFile = Files.createTempDirectory("url-index").resolve("urls.idx");
+        try (ConnectionPool.PooledConnection pc = pool.acquire();
+             Statement stmt = pc.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE urls (short_key VARCHAR(10) PRIMARY KEY, long_url VARCHAR(2048), expires_at TIMESTAMP)");
+        }
+        insert(0, 5000);
+    }
+
+    @AfterEach
+    void dropTable() throws SQLException {
+        try (ConnectionPool.PooledConnection pc = pool.acquire();
+             Statement stmt = pc.getConnection().createStatement()) {
+            stmt.execute("DROP TABLE urls");
+        }
+        pool.close();
+    }
+
+    private void insert(int from, int to) throws SQLException {
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            PreparedStatement pstmt = pc.prepare("INSERT INTO urls (short_key, long_url) VALUES (?, ?)");
+            for (int i = from; i < to; i++) {
+                pstmt.setString(1, "k" + Integer.toString(i, 36));
+                pstmt.setString(2, "https://www.example.com/ünïcode/" + i);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+    }
+
+    private long build() throws Exception {
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            return MappedUrlIndex.build(pc.getConnection(), indexFile, 10);
+        }
+    }
+
+    /**
+     * Test: Every row in the table can be resolved from the index, with non-ASCII URLs intact.
+     */
+    @Test
+    void get_shouldResolveEveryIndexedKey() throws Exception {
+        assertEquals(5000, build());
+        MappedUrlIndex index = MappedUrlIndex.open(indexFile);
+
+        assertEquals(5000, index.size());
+        for (int i = 0; i < 5000; i++) {
+            assertEquals("https://www.example.com/ünïcode/" + i, index.get("k" + Integer.toString(i, 36)));
+        }
+    }
+
+    /**
+     * Test: Unknown keys, prefixes of real keys and over-long keys are all misses.
+     */
+    @Test
+    void get_shouldReturnNullForMisses() throws Exception {
+        build();
+        MappedUrlIndex index = MappedUrlIndex.open(indexFile);
+
+        assertNull(index.get("nothere"));
+        assertNull(index.get("k"), "A prefix of an indexed key must not match.");
+        assertNull(index.get("waytoolongkey"));
+    }
+
+    /**
+     * Test: Expiring links are indexed and resolve until their expiry; links already expired
+     * at build time are left out.
+     */
+    @Test
+    void get_shouldHonourExpiry() throws Exception {
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            PreparedStatement pstmt = pc.prepare("INSERT INTO urls (short_key, long_url, expires_at) VALUES (?, ?, ?)");
+            long now = System.currentTimeMillis();
+            String[][] links = { { "later", "3600000" }, { "soon", "300" }, { "gone", "-1000" } };
+            for (String[] link : links) {
+                pstmt.setString(1, link[0]);
+                pstmt.setString(2, "https://www.example.com/" + link[0]);
+                pstmt.setTimestamp(3, new Timestamp(now + Long.parseLong(link[1])));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        assertEquals(5002, build());
+        MappedUrlIndex index = MappedUrlIndex.open(indexFile);
+
+        assertEquals("https://www.example.com/later", index.get("later"));
+        assertEquals("https://www.example.com/soon", index.get("soon"));
+        assertNull(index.get("gone"));
+        Thread.sleep(400);
+        assertNull(index.get("soon"), "Stops resolving once expired, without a rebuild.");
+        assertEquals("https://www.example.com/later", index.get("later"));
+    }
+
+    /**
+     * Test: A rebuild replaces the file while a previously opened index keeps working.
+     */
+    @Test
+    void build_shouldReplaceFileAtomically() throws Exception {
+        build();
+        MappedUrlIndex old = MappedUrlIndex.open(indexFile);
+
+        insert(5000, 6000);
+        assertEquals(6000, build());
+        MappedUrlIndex fresh = MappedUrlIndex.open(indexFile);
+
+        String newKey = "k" + Integer.toString(5500, 36);
+        assertNull(old.get(newKey), "The old mapping is a snapshot.");
+        assertNotNull(old.get("k0"), "The old mapping stays readable after the rename.");
+        assertEquals("https://www.example.com/ünïcode/5500", fresh.get(newKey));
+    }
+}
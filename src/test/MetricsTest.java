@@ -0,0 +1,93 @@
+package com.yourcompany.urlshortener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for latency histograms, hot-path instrumentation and the JMX / Prometheus exports.
+ */
+public class MetricsTest {
+
+    @AfterEach
+    void tearDown() {
+        DatabaseManager.shutdown();
+    }
+
+    /**
+     * Test: Percentiles are within the histogram's ~3% precision and never below the true value.
+     */
+    @Test
+    void histogram_shouldReportAccuratePercentiles() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            h.record(v * 1000); // 1us .. 100ms
+        }
+        assertEquals(100_000, h.getCount());
+        assertWithin(50_000_000L, h.getPercentile(50));
+        assertWithin(99_000_000L, h.getPercentile(99));
+        assertWithin(99_900_000L, h.getPercentile(99.9));
+        assertEquals(100_000_000L, h.getMax());
+        assertEquals(100_000_000L, h.getPercentile(100));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.035, "expected ~" + expected + " but was " + actual);
+    }
+
+    /**
+     * Test: Recording does not allocate, so enabling metrics doesn't add GC pressure to the hot path.
+     */
+    @Test
+    void record_shouldNotAllocate() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return; // allocation counters not available on this JVM
+        }
+        com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) threads;
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 0; i < 100_000; i++) {
+            h.record(i); // warm up so the JIT has compiled record()
+        }
+        long tid = Thread.currentThread().getId();
+        long before = mx.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < 100_000; i++) {
+            h.record(i * 37L);
+        }
+        long allocated = mx.getThreadAllocatedBytes(tid) - before;
+        assertTrue(allocated < 1024, "record() allocated " + allocated + " bytes");
+    }
+
+    /**
+     * Test: Lookups, saves and collisions are counted and show up over JMX and in the Prometheus dump.
+     */
+    @Test
+    void databaseManager_shouldBeInstrumented() throws Exception {
+        DatabaseManager.initializeDatabase();
+        Metrics.reset();
+        String key = "met" + (System.nanoTime() % 100_000);
+        assertTrue(DatabaseManager.saveUrl(key, "https://www.example.com/metrics"));
+        assertFalse(DatabaseManager.saveUrl(key, "https://www.example.com/metrics"), "Duplicate key must fail.");
+        DatabaseManager.findLongUrl(key);
+        DatabaseManager.findLongUrl("nosuchkey");
+
+        assertEquals(2, Metrics.SAVE.getCount());
+        assertEquals(1, Metrics.SAVE_ERRORS.sum());
+        assertEquals(2, Metrics.LOOKUP.getCount());
+        assertEquals(1, Metrics.LOOKUP_NOT_FOUND.sum());
+
+        Object lookups = ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName("com.yourcompany.urlshortener:type=Metrics"), "lookupCount");
+        assertEquals(2L, lookups);
+
+        String text = Metrics.toPrometheus();
+        assertTrue(text.contains("# TYPE shortener_lookup_seconds summary"));
+        assertTrue(text.contains("shortener_lookup_seconds_count 2"));
+        assertTrue(text.contains("shortener_save_errors_total 1"));
+        assertTrue(text.contains("shortener_pool_acquire_seconds{quantile=\"0.99\"}"));
+    }
+}
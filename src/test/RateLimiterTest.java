@@ -0,0 +1,109 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the token-bucket rate limiter: bursts and refill, the global limit,
+ * the bounded client map, and 429 responses from the server.
+ */
+public class RateLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    /**
+     * Test: A client gets its burst at once, then one request per interval as tokens refill.
+     */
+    @Test
+    void acquire_shouldAllowBurstThenRefill() {
+        RateLimiter limiter = new RateLimiter(2, 3, 0, 1, 100, 60_000);
+        long now = 10 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.acquire("10.0.0.1", now), "Request " + i + " is within the burst.");
+        }
+        long wait = limiter.acquire("10.0.0.1", now);
+        assertEquals(SECOND / 2, wait, "At 2/s the next token is half a second away.");
+        assertEquals(0, limiter.acquire("10.0.0.2", now), "Other clients have their own bucket.");
+
+        assertEquals(0, limiter.acquire("10.0.0.1", now + wait));
+        assertTrue(limiter.acquire("10.0.0.1", now + wait) > 0);
+    }
+
+    /**
+     * Test: The global bucket caps all clients together, even when each is under its own limit.
+     */
+    @Test
+    void acquire_shouldEnforceGlobalLimit() {
+        RateLimiter limiter = new RateLimiter(0, 1, 10, 5, 100, 60_000);
+        long now = SECOND;
+        int allowed = 0;
+        for (int i = 0; i < 20; i++) {
+            if (limiter.acquire("client" + i, now) == 0) {
+                allowed++;
+            }
+        }
+        assertEquals(5, allowed);
+        assertEquals(0, limiter.getClientCount(), "No client buckets are needed without a per-client rate.");
+        assertEquals(0, limiter.acquire("late", now + SECOND / 10));
+    }
+
+    /**
+     * Test: The client map stays within maxClients; refilled buckets are swept away to make room,
+     * and while every bucket is busy new clients share the overflow bucket.
+     */
+    @Test
+    void acquire_shouldBoundClientMap() {
+        RateLimiter limiter = new RateLimiter(1, 1, 0, 1, 4, 60_000);
+        long now = SECOND;
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0, limiter.acquire("busy" + i, now));
+        }
+        assertEquals(4, limiter.getClientCount());
+        assertEquals(0, limiter.acquire("new1", now), "The first overflow client gets the shared token.");
+        assertTrue(limiter.acquire("new2", now) > 0, "Further new clients share the empty overflow bucket.");
+        assertEquals(4, limiter.getClientCount());
+
+        // Two seconds later every bucket has refilled, so the next new client triggers a sweep
+        assertEquals(0, limiter.acquire("new3", now + 2 * SECOND));
+        assertEquals(1, limiter.getClientCount());
+    }
+
+    /**
+     * Test: Over the limit, POST /shorten answers 429 with Retry-After and the rejection is counted.
+     */
+    @Test
+    void server_shouldRejectWith429() throws IOException {
+        DatabaseManager.initializeDatabase();
+        RedirectServer server = new RedirectServer(0, 16, 302, 4096, 1);
+        server.setRateLimiters(new RateLimiter(0.001, 2, 0, 1, 100, 60_000), null, false);
+        server.start();
+        try {
+            long rejectedBefore = Metrics.RATE_LIMITED_SHORTEN.sum();
+            assertEquals(201, post(server, "https://www.example.com/limited/1").getResponseCode());
+            assertEquals(201, post(server, "https://www.example.com/limited/2").getResponseCode());
+            HttpURLConnection limited = post(server, "https://www.example.com/limited/3");
+            assertEquals(429, limited.getResponseCode());
+            assertNotNull(limited.getHeaderField("Retry-After"));
+            assertEquals(rejectedBefore + 1, Metrics.RATE_LIMITED_SHORTEN.sum());
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static HttpURLConnection post(RedirectServer server, String body) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/shorten")
+            .openConnection();
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return conn;
+    }
+}
@@ -0,0 +1,134 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for db.replicas: lookups served by replicas that follow the change feed,
+ * read-your-writes fallback to the primary, and taking a broken replica out of rotation.
+ * Syncing is driven by hand (pollMillis=0) so the tests decide when replicas catch up.
+ */
+public class ReadReplicaTest {
+
+    @AfterEach
+    void restoreDefaults() {
+        DatabaseManager.shutdown();
+        System.clearProperty("db.url");
+        System.clearProperty("db.replicas");
+        System.clearProperty("db.replicas.pollMillis");
+        System.clearProperty("db.replicas.readYourWritesMillis");
+        DatabaseManager.clearCache();
+    }
+
+    private static ReadReplicas useReplicas(String name, int count) {
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:" + name);
+        System.setProperty("db.replicas", Integer.toString(count));
+        System.setProperty("db.replicas.pollMillis", "0");
+        System.setProperty("db.replicas.readYourWritesMillis", "0");
+        DatabaseManager.clearCache();
+        DatabaseManager.initializeDatabase();
+        ReadReplicas replicas = DatabaseManager.getReplicas();
+        assertNotNull(replicas);
+        return replicas;
+    }
+
+    /** Writes straight to the primary, like another process would: not a write this process remembers. */
+    private static void onPrimary(String sql, String... params) throws Exception {
+        try (ConnectionPool.PooledConnection pc = DatabaseManager.getPool().acquire();
+             PreparedStatement pstmt = pc.getConnection().prepareStatement(sql)) {
+            for (int i = 0; i < params.length; i++) {
+                pstmt.setString(i + 1, params[i]);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    private static String lookup(String shortKey) {
+        DatabaseManager.clearCache();
+        return DatabaseManager.findLongUrl(shortKey);
+    }
+
+    /**
+     * Test: Lookups are answered by the replicas, which see existing links after the startup
+     * copy and inserts, updates and deletes only once the change feed has been applied.
+     */
+    @Test
+    void replicas_shouldServeLookupsAndFollowTheChangeFeed() throws Exception {
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:replicafeed");
+        DatabaseManager.initializeDatabase();
+        assertTrue(DatabaseManager.saveUrl("before1", "https://www.example.com/before"));
+
+        ReadReplicas replicas = useReplicas("replicafeed", 2);
+        assertEquals(2, replicas.getHealthyCount());
+        assertEquals("https://www.example.com/before", lookup("before1"), "The startup copy holds existing links.");
+
+        onPrimary("INSERT INTO urls (short_key, long_url) VALUES (?, ?)", "other1", "https://www.example.com/other");
+        assertNull(lookup("other1"), "Not on the replicas until the feed is applied.");
+        assertEquals(1, replicas.replicate());
+        assertEquals("https://www.example.com/other", lookup("other1"));
+        assertEquals("https://www.example.com/other", lookup("other1"), "Both replicas have it.");
+
+        onPrimary("UPDATE urls SET long_url = ? WHERE short_key = ?", "https://www.example.com/moved", "other1");
+        onPrimary("DELETE FROM urls WHERE short_key = ?", "before1");
+        assertEquals("https://www.example.com/before", lookup("before1"), "Replicas lag until the next sync.");
+        assertEquals(2, replicas.replicate());
+        assertEquals("https://www.example.com/moved", lookup("other1"));
+        assertNull(lookup("before1"));
+        assertEquals(0, replicas.replicate(), "Applied changes are removed from the feed.");
+    }
+
+    /**
+     * Test: A link saved by this process resolves at once, from the primary, although the
+     * replicas don't have it yet; once they do, the key is forgotten.
+     */
+    @Test
+    void recentWrites_shouldFallBackToPrimaryOnReplicaMiss() throws Exception {
+        ReadReplicas replicas = useReplicas("replicaryw", 1);
+
+        assertTrue(DatabaseManager.saveUrl("fresh1", "https://www.example.com/fresh"));
+        assertEquals("https://www.example.com/fresh", lookup("fresh1"));
+        assertEquals(1, replicas.getPrimaryFallbackCount());
+        assertEquals(1, replicas.getRecentWriteCount());
+
+        Thread.sleep(5);
+        replicas.replicate();
+        assertEquals(0, replicas.getRecentWriteCount(), "The replica has synced past the write.");
+        assertEquals("https://www.example.com/fresh", lookup("fresh1"));
+        assertEquals(1, replicas.getPrimaryFallbackCount(), "Now served by the replica.");
+
+        assertNull(lookup("missing"), "Unknown keys are still misses.");
+    }
+
+    /**
+     * Test: A replica whose lookups fail is taken out of rotation, the primary answers
+     * meanwhile, and the next sync rebuilds it.
+     */
+    @Test
+    void brokenReplica_shouldBeSkippedAndRebuilt() throws Exception {
+        ReadReplicas replicas = useReplicas("replicabroken", 1);
+        onPrimary("INSERT INTO urls (short_key, long_url) VALUES (?, ?)", "keep1", "https://www.example.com/keep");
+        replicas.replicate();
+
+        try (Connection conn = DriverManager.getConnection("jdbc:h2:mem:replicabroken-replica-0", "sa", "");
+             Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE urls");
+        }
+        assertEquals("https://www.example.com/keep", lookup("keep1"), "The primary answers for the broken replica.");
+        assertEquals(0, replicas.getHealthyCount());
+        assertNull(replicas.route("keep1"));
+
+        replicas.replicate();
+        assertEquals(1, replicas.getHealthyCount());
+        assertEquals(2, replicas.getResyncCount());
+        assertNotNull(replicas.route("keep1"));
+        assertEquals("https://www.example.com/keep", lookup("keep1"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the HTTP server mode: shorten over POST, then follow the redirect.
+ */
+public class RedirectServerTest {
+
+    private static RedirectServer server;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        DatabaseManager.initializeDatabase();
+        server = new RedirectServer(0, 16, 302, 4096, 1);
+        server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    private static HttpURLConnection open(String path) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        conn.setInstanceFollowRedirects(false);
+        return conn;
+    }
+
+    private static HttpURLConnection post(String path, String body) throws IOException {
+        HttpURLConnection conn = open(path);
+        conn.setRequestMethod("POST");
+        conn.setDoOutput(true);
+        try (OutputStream out = conn.getOutputStream()) {
+            out.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        return conn;
+    }
+
+    /**
+     * Test: POST /shorten returns a key, and GET /{key} redirects to the original URL.
+     */
+    @Test
+    void shortenThenResolve_shouldRedirect() throws IOException {
+        String longUrl = "https://www.example.com/server/test";
+        HttpURLConnection shorten = post("/shorten", longUrl);
+        assertEquals(201, shorten.getResponseCode());
+        String key;
+        try (InputStream in = shorten.getInputStream()) {
+            key = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+        }
+        assertFalse(key.isEmpty(), "Response body should contain the new key.");
+
+        HttpURLConnection resolve = open("/" + key);
+        assertEquals(302, resolve.getResponseCode());
+        assertEquals(longUrl, resolve.getHeaderField("Location"));
+    }
+
+    /**
+     * Test: ?alias= and ?namespace= claim a chosen key, a second claim gets 409, and the
+     * namespaced alias redirects like any key.
+     */
+    @Test
+    void shortenWithAlias_shouldClaimOnce() throws IOException {
+        HttpURLConnection claim = post("/shorten?alias=spring-sale&namespace=acme", "https://www.example.com/sale");
+        assertEquals(201, claim.getResponseCode());
+        try (InputStream in = claim.getInputStream()) {
+            assertEquals("acme/spring-sale", new String(in.readAllBytes(), StandardCharsets.UTF_8).trim());
+        }
+        assertEquals(409, post("/shorten?namespace=acme&alias=spring-sale", "https://www.example.com/other").getResponseCode());
+        assertEquals(400, post("/shorten?alias=shorten", "https://www.example.com/other").getResponseCode());
+
+        HttpURLConnection resolve = open("/acme/spring-sale");
+        assertEquals(302, resolve.getResponseCode());
+        assertEquals("https://www.example.com/sale", resolve.getHeaderField("Location"));
+        assertEquals(404, open("/acme/spring-sale/x").getResponseCode());
+    }
+
+    /**
+     * Test: Unknown keys return 404.
+     */
+    @Test
+    void resolve_shouldReturn404ForUnknownKey() throws IOException {
+        assertEquals(404, open("/doesNotExist").getResponseCode());
+    }
+
+    /**
+     * Test: Invalid URLs are rejected with 400 without touching the database.
+     */
+    @Test
+    void shorten_shouldRejectInvalidUrl() throws IOException {
+        assertEquals(400, post("/shorten", "ftp://nope").getResponseCode());
+    }
+
+    /**
+     * Test: GET /metrics serves Prometheus text including the lookup timer.
+     */
+    @Test
+    void metrics_shouldServePrometheusText() throws IOException {
+        HttpURLConnection conn = open("/metrics");
+        assertEquals(200, conn.getResponseCode());
+        assertTrue(conn.getContentType().startsWith("text/plain; version=0.0.4"));
+        try (InputStream in = conn.getInputStream()) {
+            String body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            assertTrue(body.contains("shortener_lookup_seconds_count"));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.yourcompany.urlshortener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for sharded storage (db.shards): key routing, saves and lookups across shards,
+ * and offline rebalancing. Each test uses its own in-memory database name so the
+ * shared default database of the other test classes is never touched.
+ */
+public class ShardRouterTest {
+
+    @AfterEach
+    void restoreDefaults() {
+        DatabaseManager.shutdown();
+        System.clearProperty("db.shards");
+        System.clearProperty("db.url");
+        DatabaseManager.clearCache();
+    }
+
+    /**
+     * Test: A key always maps to the same shard, and keys spread over all shards.
+     */
+    @Test
+    void shardOf_shouldBeStableAndSpreadKeys() {
+        int[] counts = new int[4];
+        for (int i = 0; i < 4000; i++) {
+            String key = KeyGenerator.generateKey(6);
+            int shard = ShardRouter.shardOf(key, 4);
+            assertEquals(shard, ShardRouter.shardOf(key, 4));
+            counts[shard]++;
+        }
+        for (int count : counts) {
+            assertTrue(count > 800, "Each of 4 shards should get a fair share of 4000 keys, got " + count);
+        }
+        assertEquals(0, ShardRouter.shardOf("anything", 1));
+    }
+
+    /**
+     * Test: Each shard gets its own database name, with the suffix before the URL options.
+     */
+    @Test
+    void buildJdbcUrl_shouldSuffixDatabaseNamePerShard() {
+        System.setProperty("db.url", "jdbc:h2:mem:shardurl;MODE=MySQL");
+        String url = DatabaseManager.buildJdbcUrl(AppConfig.get(), ShardRouter.databaseSuffix(1, 3));
+        assertTrue(url.startsWith("jdbc:h2:mem:shardurl-1-of-3;MODE=MySQL"), url);
+        assertEquals("", ShardRouter.databaseSuffix(0, 1));
+    }
+
+    /**
+     * Test: With several shards, every saved link is found again and lands on its owning shard only.
+     */
+    @Test
+    void shardedDatabase_shouldSaveAndFindAcrossShards() throws Exception {
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:shardsave");
+        System.setProperty("db.shards", "3");
+        DatabaseManager.initializeDatabase();
+
+        for (int i = 0; i < 30; i++) {
+            assertTrue(DatabaseManager.saveUrl("shard" + i, "https://www.example.com/" + i));
+        }
+        DatabaseManager.clearCache();
+        for (int i = 0; i < 30; i++) {
+            assertEquals("https://www.example.com/" + i, DatabaseManager.findLongUrl("shard" + i));
+        }
+
+        ShardRouter router = DatabaseManager.getShards();
+        long total = 0;
+        for (int shard = 0; shard < 3; shard++) {
+            total += countUrls(router.pool(shard));
+        }
+        assertEquals(30, total, "Each link should be stored exactly once.");
+    }
+
+    /**
+     * Test: Rebalancing from one shard to three keeps every link resolvable under the new layout.
+     */
+    @Test
+    void rebalance_shouldMoveLinksToNewShardCount() throws Exception {
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:shardmove");
+        DatabaseManager.initializeDatabase();
+        for (int i = 0; i < 50; i++) {
+            assertTrue(DatabaseManager.saveUrl("move" + i, "https://www.example.com/move/" + i));
+        }
+        DatabaseManager.shutdown();
+
+        assertEquals(50, ShardRebalancer.rebalance(AppConfig.get(), 1, 3, 7));
+
+        System.setProperty("db.shards", "3");
+        DatabaseManager.clearCache();
+        DatabaseManager.initializeDatabase();
+        for (int i = 0; i < 50; i++) {
+            assertEquals("https://www.example.com/move/" + i, DatabaseManager.findLongUrl("move" + i));
+        }
+        assertThrows(IllegalArgumentException.class, () -> ShardRebalancer.rebalance(AppConfig.get(), 3, 3, 10));
+    }
+
+    private static long countUrls(ConnectionPool pool) throws Exception {
+        try (ConnectionPool.PooledConnection pc = pool.acquire();
+             java.sql.Statement stmt = pc.getConnection().createStatement();
+             java.sql.ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM urls")) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+}
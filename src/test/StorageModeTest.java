@@ -0,0 +1,70 @@
+package com.yourcompany.urlshortener;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the db.mode storage setting: JDBC URL building and file-mode persistence.
+ * Settings are passed as system properties and always restored afterwards, because
+ * the other test classes share the same JVM and DatabaseManager.
+ */
+public class StorageModeTest {
+
+    @AfterEach
+    void restoreDefaults() {
+        DatabaseManager.shutdown();
+        System.clearProperty("db.mode");
+        System.clearProperty("db.file.path");
+        DatabaseManager.clearCache();
+    }
+
+    /**
+     * Test: Memory mode keeps the database alive after the last connection closes.
+     */
+    @Test
+    void buildJdbcUrl_memoryModeShouldKeepDatabaseAlive() {
+        String url = DatabaseManager.buildJdbcUrl(AppConfig.get());
+        assertTrue(url.startsWith("jdbc:h2:mem:"));
+        assertTrue(url.contains("DB_CLOSE_DELAY=-1"));
+    }
+
+    /**
+     * Test: File mode points at db.file.path and carries the tuning settings.
+     */
+    @Test
+    void buildJdbcUrl_fileModeShouldUseFileSettings() {
+        System.setProperty("db.mode", "file");
+        System.setProperty("db.file.path", "/tmp/some/db");
+        String url = DatabaseManager.buildJdbcUrl(AppConfig.get());
+        assertTrue(url.startsWith("jdbc:h2:file:/tmp/some/db;"));
+        assertTrue(url.contains("CACHE_SIZE="));
+        assertTrue(url.contains("WRITE_DELAY="));
+    }
+
+    /**
+     * Test: Links saved in file mode are still there after the pool is closed and reopened,
+     * and warmup loads them back into the cache.
+     */
+    @Test
+    void fileMode_shouldPersistAcrossRestart() throws Exception {
+        Path dir = Files.createTempDirectory("shortener-db");
+        DatabaseManager.shutdown();
+        System.setProperty("db.mode", "file");
+        System.setProperty("db.file.path", dir.resolve("links").toString());
+
+        DatabaseManager.initializeDatabase();
+        assertTrue(DatabaseManager.saveUrl("persist1", "https://www.example.com/persisted"));
+
+        DatabaseManager.shutdown();
+        DatabaseManager.clearCache();
+        DatabaseManager.initializeDatabase();
+
+        assertEquals(1, DatabaseManager.warmUp(10), "Warmup should load the saved link.");
+        assertEquals("https://www.example.com/persisted", DatabaseManager.getCache().getIfPresent("persist1"));
+        assertEquals("https://www.example.com/persisted", DatabaseManager.findLongUrl("persist1"));
+    }
+}
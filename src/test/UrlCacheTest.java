@@ -0,0 +1,85 @@
+package com.yourcompany.urlshortener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the UrlCache: read-through loading, LRU eviction, TTLs and negative caching.
+ */
+public class UrlCacheTest {
+
+    /**
+     * Test: The loader is only called on the first lookup of a key.
+     */
+    @Test
+    void get_shouldLoadOnceThenHit() throws Exception {
+        UrlCache cache = new UrlCache(100, 1_000_000, 0, 0, 4);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("https://a", cache.get("k", key -> { loads.incrementAndGet(); return "https://a"; }));
+        assertEquals("https://a", cache.get("k", key -> { loads.incrementAndGet(); return "https://a"; }));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    /**
+     * Test: The least recently used entry is evicted once the entry limit is reached.
+     */
+    @Test
+    void put_shouldEvictLeastRecentlyUsed() throws Exception {
+        UrlCache cache = new UrlCache(2, 1_000_000, 0, 0, 1);
+        cache.put("a", "https://a");
+        cache.put("b", "https://b");
+        cache.get("a", key -> null);          // touch 'a' so 'b' becomes eldest
+        cache.put("c", "https://c");
+
+        assertEquals("https://a", cache.getIfPresent("a"));
+        assertNull(cache.getIfPresent("b"), "'b' should have been evicted.");
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    /**
+     * Test: The byte bound is enforced independently of the entry bound.
+     */
+    @Test
+    void put_shouldRespectByteBound() {
+        UrlCache cache = new UrlCache(1000, 1000, 0, 0, 1);
+        for (int i = 0; i < 50; i++) {
+            cache.put("key" + i, "https://example.com/" + "x".repeat(100));
+        }
+        assertTrue(cache.weightedBytes() <= 1000, "Cache must stay within its byte budget.");
+        assertTrue(cache.getEvictionCount() > 0);
+    }
+
+    /**
+     * Test: Misses are cached, and a later put replaces the negative entry.
+     */
+    @Test
+    void get_shouldCacheMissesUntilPut() throws Exception {
+        UrlCache cache = new UrlCache(100, 1_000_000, 0, 60_000, 4);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("nope", key -> { loads.incrementAndGet(); return null; }));
+        assertNull(cache.get("nope", key -> { loads.incrementAndGet(); return null; }));
+        assertEquals(1, loads.get(), "Second miss should be answered from the cache.");
+
+        cache.put("nope", "https://now-exists");
+        assertEquals("https://now-exists", cache.get("nope", key -> null));
+    }
+
+    /**
+     * Test: Entries are reloaded once their TTL has passed.
+     */
+    @Test
+    void get_shouldReloadAfterTtl() throws Exception {
+        UrlCache cache = new UrlCache(100, 1_000_000, 20, 0, 1);
+        cache.put("k", "https://old");
+        Thread.sleep(40);
+        assertEquals("https://new", cache.get("k", key -> "https://new"));
+        assertEquals(1, cache.getExpirationCount());
+    }
+}
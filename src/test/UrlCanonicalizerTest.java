@@ -0,0 +1,55 @@
+package com.yourcompany.urlshortener;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for URL validation and canonicalization.
+ */
+public class UrlCanonicalizerTest {
+
+    /**
+     * Test: A URL that is already canonical comes back as the very same instance.
+     */
+    @Test
+    void canonicalize_shouldReturnCanonicalUrlUnchanged() {
+        String url = "https://www.example.com:8443/path/to?q=a%2Fb&x=1";
+        assertSame(url, UrlCanonicalizer.canonicalize(url));
+    }
+
+    /**
+     * Test: Scheme and host case, default ports, empty paths, fragments and escapes are normalized.
+     */
+    @Test
+    void canonicalize_shouldNormalizeEquivalentForms() {
+        assertEquals("http://example.com/", UrlCanonicalizer.canonicalize("HTTP://Example.COM:80"));
+        assertEquals("https://example.com/a", UrlCanonicalizer.canonicalize("https://EXAMPLE.com:443/a#section"));
+        assertEquals("https://example.com/?q=1", UrlCanonicalizer.canonicalize("https://example.com?q=1"));
+        assertEquals("http://example.com:8080/", UrlCanonicalizer.canonicalize("http://example.com:08080/"));
+        assertEquals("http://example.com/", UrlCanonicalizer.canonicalize("http://example.com:/"));
+        assertEquals("https://example.com/~user/a%2Fb", UrlCanonicalizer.canonicalize("https://example.com/%7euser/a%2fb"));
+        assertEquals("https://example.com/a%20b/%C3%BC", UrlCanonicalizer.canonicalize("https://example.com/a b/ü"));
+        assertEquals("https://xn--bcher-kva.example/", UrlCanonicalizer.canonicalize("https://Bücher.example"));
+        assertEquals("http://user:Pw@example.com/", UrlCanonicalizer.canonicalize("http://user:Pw@EXAMPLE.com"));
+        assertEquals("http://[2001:db8::1]:8080/", UrlCanonicalizer.canonicalize("http://[2001:DB8::1]:8080"));
+    }
+
+    /**
+     * Test: Other schemes, missing hosts, bad ports, control characters and oversized URLs are rejected.
+     */
+    @Test
+    void canonicalize_shouldRejectInvalidUrls() {
+        assertNull(UrlCanonicalizer.canonicalize(null));
+        assertNull(UrlCanonicalizer.canonicalize("ftp://example.com/"));
+        assertNull(UrlCanonicalizer.canonicalize("example.com"));
+        assertNull(UrlCanonicalizer.canonicalize("https://"));
+        assertNull(UrlCanonicalizer.canonicalize("https:///path"));
+        assertNull(UrlCanonicalizer.canonicalize("https://exa mple.com/"));
+        assertNull(UrlCanonicalizer.canonicalize("https://example.com:99999/"));
+        assertNull(UrlCanonicalizer.canonicalize("https://example.com:8o/"));
+        assertNull(UrlCanonicalizer.canonicalize("https://example.com/a\nb"));
+        assertNull(UrlCanonicalizer.canonicalize("https://example.com/" + "a".repeat(UrlCanonicalizer.MAX_LENGTH)));
+        // Short enough as typed, too long once the spaces are escaped
+        assertNull(UrlCanonicalizer.canonicalize("https://example.com/" + " ".repeat(1000)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.yourcompany.urlshortener;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for dedupe mode: the url_hash column, the Bloom filter and shortenUrl returning existing keys.
+ */
+public class UrlDeduplicatorTest {
+
+    @BeforeEach
+    void enableDedupe() {
+        System.setProperty("dedupe.enabled", "true");
+        DatabaseManager.initializeDatabase();
+    }
+
+    @AfterEach
+    void disableDedupe() {
+        System.clearProperty("dedupe.enabled");
+        DatabaseManager.shutdown();
+    }
+
+    /**
+     * Test: Java's UrlHash matches the value H2 stores in the generated url_hash column.
+     */
+    @Test
+    void urlHash_shouldMatchGeneratedColumn() throws Exception {
+        String url = "https://www.example.com/dedupe/ünïcode";
+        assertTrue(DatabaseManager.saveUrl("hashchk", url));
+        try (java.sql.Connection conn = DatabaseManager.getConnection();
+             java.sql.Statement stmt = conn.createStatement();
+             java.sql.ResultSet rs = stmt.executeQuery("SELECT url_hash FROM urls WHERE short_key = 'hashchk'")) {
+            assertTrue(rs.next());
+            assertEquals(UrlHash.of(url), rs.getLong(1));
+        }
+    }
+
+    /**
+     * Test: Shortening the same URL twice returns the same key; a different URL gets a new one.
+     */
+    @Test
+    void shortenUrl_shouldReturnExistingKeyForSameUrl() {
+        String url = "https://www.example.com/dedupe/" + System.nanoTime();
+        String first = DatabaseManager.shortenUrl(url);
+        String second = DatabaseManager.shortenUrl(url);
+        String other = DatabaseManager.shortenUrl(url + "/other");
+
+        assertNotNull(first);
+        assertEquals(first, second, "A re-submitted URL must get its existing key.");
+        assertNotEquals(first, other);
+        assertEquals(1, DatabaseManager.getDeduplicator().getDuplicateCount());
+    }
+
+    /**
+     * Test: The Bloom filter never forgets an added hash, and rejects most unseen ones.
+     */
+    @Test
+    void bloomFilter_shouldHaveNoFalseNegatives() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (long i = 0; i < 10_000; i++) {
+            filter.put(UrlHash.of("https://a/" + i));
+        }
+        int falsePositives = 0;
+        for (long i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(UrlHash.of("https://a/" + i)));
+            if (filter.mightContain(UrlHash.of("https://b/" + i))) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "False positive rate should be near 1%, was " + falsePositives);
+    }
+}
@@ -0,0 +1,104 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for --export / --restore: keyset-paged export, round trips between databases and
+ * layouts, and rejection of damaged files. Each test uses its own in-memory database names.
+ */
+public class UrlExporterTest {
+
+    @AfterEach
+    void restoreDefaults() {
+        DatabaseManager.shutdown();
+        System.clearProperty("db.url");
+        System.clearProperty("db.shards");
+        System.clearProperty("db.schema");
+        DatabaseManager.clearCache();
+    }
+
+    private static void useDatabase(String name, int shards) {
+        DatabaseManager.shutdown();
+        System.setProperty("db.url", "jdbc:h2:mem:" + name);
+        System.setProperty("db.shards", Integer.toString(shards));
+        DatabaseManager.clearCache();
+        DatabaseManager.initializeDatabase();
+    }
+
+    /**
+     * Test: Links exported page by page (including a last page that is exactly full) come back
+     * in another database with a different shard count, with their expiry intact.
+     */
+    @Test
+    void exportThenRestore_shouldRoundTripAcrossShardLayouts() throws Exception {
+        useDatabase("exportsrc", 2);
+        for (int i = 0; i < 12; i++) {
+            assertTrue(DatabaseManager.saveUrl("exp" + i, "https://www.example.com/export/" + i));
+        }
+        Instant expiresAt = Instant.now().plusSeconds(3600);
+        assertTrue(DatabaseManager.saveUrl("expiring", "https://www.example.com/expiring", expiresAt));
+        assertTrue(DatabaseManager.saveUrl("expired", "https://www.example.com/expired", Instant.now().minusSeconds(5)));
+
+        Path file = Files.createTempDirectory("export").resolve("urls.bin.gz");
+        assertEquals(14, UrlExporter.export(DatabaseManager.getShards(), file, 2));
+
+        useDatabase("exportdst", 3);
+        assertEquals(14, UrlExporter.restore(file, DatabaseManager.getShards(), DatabaseManager.getSchema(), 5));
+        for (int i = 0; i < 12; i++) {
+            assertEquals("https://www.example.com/export/" + i, DatabaseManager.findLongUrl("exp" + i));
+        }
+        assertEquals("https://www.example.com/expiring", DatabaseManager.findLongUrl("expiring"));
+        assertNull(DatabaseManager.findLongUrl("expired"), "Expired links stay expired after a restore.");
+
+        // Restoring again upserts instead of failing on existing keys
+        assertEquals(14, UrlExporter.restore(file, DatabaseManager.getShards(), DatabaseManager.getSchema(), 5));
+    }
+
+    /**
+     * Test: A standard-layout export restores into a compact database.
+     */
+    @Test
+    void restore_shouldWriteConfiguredSchema() throws Exception {
+        useDatabase("exportstd", 1);
+        assertTrue(DatabaseManager.saveUrl("std123", "https://www.example.com/standard"));
+        Path file = Files.createTempDirectory("export").resolve("urls.bin");
+        assertEquals(1, UrlExporter.export(DatabaseManager.getShards(), file, 100));
+
+        System.setProperty("db.schema", "compact");
+        useDatabase("exportcompact", 1);
+        assertEquals(1, UrlExporter.restore(file, DatabaseManager.getShards(), DatabaseManager.getSchema(), 100));
+        assertEquals("https://www.example.com/standard", DatabaseManager.findLongUrl("std123"));
+    }
+
+    /**
+     * Test: A file cut short, or one that is not an export at all, is rejected.
+     */
+    @Test
+    void restore_shouldRejectDamagedFiles() throws Exception {
+        useDatabase("exportdamaged", 1);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(DatabaseManager.saveUrl("dmg" + i, "https://www.example.com/damaged/" + i));
+        }
+        Path dir = Files.createTempDirectory("export");
+        Path file = dir.resolve("urls.bin");
+        UrlExporter.export(DatabaseManager.getShards(), file, 100);
+
+        byte[] bytes = Files.readAllBytes(file);
+        Path truncated = dir.resolve("truncated.bin");
+        Files.write(truncated, java.util.Arrays.copyOf(bytes, bytes.length - 12));
+        assertThrows(IOException.class,
+            () -> UrlExporter.restore(truncated, DatabaseManager.getShards(), DatabaseManager.getSchema(), 100));
+
+        Path garbage = dir.resolve("garbage.bin");
+        Files.writeString(garbage, "https://www.example.com/not-an-export\n");
+        assertThrows(IOException.class,
+            () -> UrlExporter.restore(garbage, DatabaseManager.getShards(), DatabaseManager.getSchema(), 100));
+    }
+}
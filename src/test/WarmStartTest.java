@@ -0,0 +1,103 @@
+package com.yourcompany.urlshortener;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the startup path: the hot-key cache snapshot and the warm-up rounds.
+ */
+public class WarmStartTest {
+
+    private static UrlCache newCache() {
+        return new UrlCache(1000, 1 << 20, 0, 30_000, 4);
+    }
+
+    /**
+     * Test: The hottest entries survive a save and restore with their expiry; cached misses
+     * are not saved, and links that expired in between are not restored.
+     */
+    @Test
+    void snapshot_shouldRestoreHotLinks() throws Exception {
+        UrlCache cache = newCache();
+        cache.put("perm1", "https://www.example.com/permanent");
+        cache.put("soon1", "https://www.example.com/soon", System.currentTimeMillis() + 300);
+        cache.put("later1", "https://www.example.com/later", System.currentTimeMillis() + 3_600_000);
+        cache.get("missing", key -> null);
+        Map<String, UrlCache.Loaded> hot = cache.hottest(10);
+        assertEquals(3, hot.size(), "Cached misses are not part of the hot set.");
+        assertEquals(0, hot.get("perm1").expiresAtMillis);
+
+        Path file = Files.createTempDirectory("snapshot").resolve("cache.bin");
+        assertEquals(3, WarmStart.saveSnapshot(cache, file, 10));
+        Thread.sleep(400);
+
+        UrlCache restored = newCache();
+        assertEquals(2, WarmStart.restoreSnapshot(restored, file));
+        assertEquals("https://www.example.com/permanent", restored.getIfPresent("perm1"));
+        assertEquals("https://www.example.com/later", restored.getIfPresent("later1"));
+        assertNull(restored.getIfPresent("soon1"), "Expired while the app was down.");
+    }
+
+    /**
+     * Test: Only the most recently used entries are saved when the cache holds more than the limit.
+     */
+    @Test
+    void snapshot_shouldKeepMostRecentlyUsed() throws Exception {
+        UrlCache cache = new UrlCache(1000, 1 << 20, 0, 0, 1);
+        for (int i = 0; i < 10; i++) {
+            cache.put("key" + i, "https://www.example.com/" + i);
+        }
+        cache.getIfPresent("key0");
+        assertEquals(List.of("key8", "key9", "key0"), List.copyOf(cache.hottest(3).keySet()));
+
+        Path dir = Files.createTempDirectory("snapshot");
+        Path garbage = dir.resolve("garbage.bin");
+        Files.writeString(garbage, "not a snapshot");
+        assertThrows(IOException.class, () -> WarmStart.restoreSnapshot(newCache(), garbage));
+    }
+
+    /**
+     * Test: Warm-up runs whole rounds until the p99 settles or the round limit is reached,
+     * and notes when a lookup first resolved.
+     */
+    @Test
+    void warmUp_shouldRunRoundsUntilSteady() {
+        List<String[]> samples = List.of(
+            new String[] { "abc123", "https://www.example.com/a" },
+            new String[] { "zzz999", "HTTP://Example.com/b c" });
+        int[] lookups = new int[1];
+        WarmStart.Report report = WarmStart.warmUp(key -> {
+            lookups[0]++;
+            return "abc123".equals(key) ? "https://www.example.com/a" : null;
+        }, samples, 50, 200);
+
+        assertTrue(report.rounds >= 3 && report.rounds <= 50);
+        assertEquals(report.rounds * 200, lookups[0]);
+        assertTrue(report.firstLookupMillis > 0);
+        assertTrue(report.steadyMillis >= report.firstLookupMillis);
+
+        // Each round's lookups take half as long as the last: still improving, so never steady
+        int[] calls = new int[1];
+        WarmStart.Report improving = WarmStart.warmUp(key -> {
+            try {
+                Thread.sleep(64 >> (calls[0]++ / 5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }, samples, 4, 5);
+        assertEquals(4, improving.rounds);
+        assertFalse(improving.steady, "A p99 that keeps dropping is not steady.");
+
+        WarmStart.Report capped = WarmStart.warmUp(key -> null, samples, 1, 10);
+        assertEquals(1, capped.rounds);
+        assertFalse(capped.steady);
+        assertEquals(-1, capped.firstLookupMillis);
+    }
+}
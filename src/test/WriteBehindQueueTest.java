@@ -0,0 +1,112 @@
+package com.yourcompany.urlshortener;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for the WriteBehindQueue: immediate visibility, batched persistence and backpressure.
+ * Uses its own pool and database so it doesn't interfere with DatabaseManager.
+ */
+public class WriteBehindQueueTest {
+
+    private static final String INSERT_SQL = "INSERT INTO urls (short_key, long_url) VALUES (?, ?)";
+
+    private ConnectionPool pool;
+
+    @BeforeEach
+    void createTable() throws SQLException {
+        pool = new ConnectionPool("jdbc:h2:mem:writebehindtest", "sa", "", 1, 1, 5000, false, 1);
+        try (ConnectionPool.PooledConnection pc = pool.acquire();
+             Statement stmt = pc.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE urls (short_key VARCHAR(10) PRIMARY KEY, long_url VARCHAR(2048))");
+        }
+    }
+
+    @AfterEach
+    void dropTable() throws SQLException {
+        try (ConnectionPool.PooledConnection pc = pool.acquire();
+             Statement stmt = pc.getConnection().createStatement()) {
+            stmt.execute("DROP TABLE urls");
+        }
+        pool.close();
+    }
+
+    private int countRows() throws SQLException {
+        try (ConnectionPool.PooledConnection pc = pool.acquire()) {
+            return countRowsWith(pc);
+        }
+    }
+
+    private static int countRowsWith(ConnectionPool.PooledConnection pc) throws SQLException {
+        try (Statement stmt = pc.getConnection().createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM urls")) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+
+    /**
+     * Test: Links are readable right after enqueue and all land in the table after a flush.
+     */
+    @Test
+    void enqueue_shouldBeReadableImmediatelyAndPersistedAfterFlush() throws SQLException {
+        ConnectionPool.PooledConnection blocker = pool.acquire(); // keep everything pending until checked
+        WriteBehindQueue queue = new WriteBehindQueue(pool, INSERT_SQL, 1000, 50, 10, 1000, key -> { });
+        for (int i = 0; i < 200; i++) {
+            queue.enqueue("k" + i, "https://example.com/" + i);
+        }
+        assertEquals("https://example.com/7", queue.get("k7"));
+        assertEquals(0, countRowsWith(blocker));
+
+        blocker.close();
+        assertTrue(queue.flush(5000), "Flush should finish while the database is up.");
+        assertEquals(200, countRows());
+        assertEquals(200, queue.getPersistedCount());
+        assertNull(queue.get("k7"), "Persisted links leave the pending map.");
+        assertTrue(queue.getFlushCount() >= 4, "200 links at batch size 50 need several flushes.");
+        queue.close();
+    }
+
+    /**
+     * Test: A key that is already pending is rejected as a duplicate.
+     */
+    @Test
+    void enqueue_shouldRejectPendingDuplicate() throws SQLException {
+        ConnectionPool.PooledConnection blocker = pool.acquire(); // keep 'dup' pending
+        WriteBehindQueue queue = new WriteBehindQueue(pool, INSERT_SQL, 1000, 50, 1000, 1000, key -> { });
+        queue.enqueue("dup", "https://example.com/a");
+        SQLException e = assertThrows(SQLException.class, () -> queue.enqueue("dup", "https://example.com/b"));
+        assertTrue(DatabaseManager.isDuplicateKey(e));
+        blocker.close();
+        queue.close();
+    }
+
+    /**
+     * Test: When the writer is stuck, a full queue rejects new links after the offer timeout.
+     */
+    @Test
+    void enqueue_shouldApplyBackpressureWhenFull() throws SQLException {
+        ConnectionPool.PooledConnection blocker = pool.acquire(); // the writer can't get a connection
+        WriteBehindQueue queue = new WriteBehindQueue(pool, INSERT_SQL, 1, 10, 10, 50, key -> { });
+
+        queue.enqueue("a", "https://example.com/a");
+        // Wait until the writer has taken 'a' off the queue and is blocked on the pool
+        long deadline = System.currentTimeMillis() + 2000;
+        while (queue.getQueueDepth() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        queue.enqueue("b", "https://example.com/b");
+        assertThrows(SQLException.class, () -> queue.enqueue("c", "https://example.com/c"));
+        assertEquals(1, queue.getRejectedCount());
+
+        blocker.close();
+        assertTrue(queue.close(5000), "Everything accepted must be written on close.");
+        assertEquals(2, countRows());
+    }
+}